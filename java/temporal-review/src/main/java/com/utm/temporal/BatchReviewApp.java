@@ -0,0 +1,145 @@
+package com.utm.temporal;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.model.BatchReviewProgress;
+import com.utm.temporal.model.BatchReviewRequest;
+import com.utm.temporal.workflow.BatchReviewWorkflow;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.worker.WorkerFactory;
+
+/**
+ * CLI entrypoint for reviewing many PRs in one batch, e.g. backfills or
+ * evaluating a new learning version.
+ *
+ * Usage:
+ * java com.utm.temporal.BatchReviewApp <requests-jsonl-path> <summary-json-path> [parallelism]
+ *
+ * The input file holds one ReviewRequest JSON object per line. Progress
+ * (throughput, token usage and cost) is printed while the batch runs and the
+ * final totals are written to the summary file.
+ *
+ * Exit codes:
+ * 0 - Success
+ * 1 - Invalid arguments
+ * 2 - Workflow execution failed
+ * 3 - File I/O error
+ */
+public class BatchReviewApp {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final long PROGRESS_INTERVAL_SECONDS = 15;
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BatchReviewApp <requests-jsonl-path> <summary-json-path> [parallelism]");
+            System.exit(1);
+        }
+
+        try {
+            AppConfig.validate();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        String inputPath = args[0];
+        String summaryPath = args[1];
+        int parallelism = AppConfig.getBatchParallelism();
+        if (args.length == 3) {
+            try {
+                parallelism = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                parallelism = -1;
+            }
+            if (parallelism <= 0) {
+                System.err.println("parallelism must be a positive integer, got: " + args[2]);
+                System.exit(1);
+            }
+        }
+
+        File inputFile = new File(inputPath);
+        if (!inputFile.exists()) {
+            System.err.println("Error: Input file does not exist: " + inputPath);
+            System.exit(3);
+        }
+
+        try {
+            WorkflowServiceStubs service = TemporalBootstrap.connectToTemporal();
+            WorkflowClient client = TemporalBootstrap.newWorkflowClient(service);
+
+            // Serve the batch and every child review from this process. The
+            // batch runs on the bulk lane so it never delays interactive reviews.
+            String taskQueue = AppConfig.getLaneTaskQueue(AppConfig.LANE_BULK);
+            String workflowId = "batch-review-" + UUID.randomUUID();
+            // The input file is only on this host, so only this process reads it
+            String inputTaskQueue = workflowId + "-input";
+            DatabaseClient dbClient = new DatabaseClient();
+            WorkerFactory factory = WorkerFactory.newInstance(client);
+            TemporalBootstrap.registerLaneWorkers(factory, dbClient);
+            TemporalBootstrap.registerBatchInputWorker(factory, inputTaskQueue, dbClient);
+            factory.start();
+
+            BatchReviewWorkflow batch = client.newWorkflowStub(
+                    BatchReviewWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(taskQueue)
+                            .setWorkflowId(workflowId)
+                            .build());
+            System.out.println("Starting batch " + workflowId + " (parallelism " + parallelism + ")...");
+            BatchReviewRequest request = new BatchReviewRequest(inputFile.getAbsolutePath(), parallelism);
+            request.inputTaskQueue = inputTaskQueue;
+            WorkflowClient.start(batch::run, request);
+
+            // Queries go to the latest run, which changes on every continue-as-new
+            BatchReviewWorkflow latest = client.newWorkflowStub(BatchReviewWorkflow.class, workflowId);
+            CompletableFuture<BatchReviewProgress> result =
+                    WorkflowStub.fromTyped(batch).getResultAsync(BatchReviewProgress.class);
+            BatchReviewProgress progress;
+            while (true) {
+                try {
+                    progress = result.get(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    printProgress(latest.getProgress());
+                }
+            }
+            printProgress(progress);
+
+            System.out.println("Writing summary to: " + summaryPath);
+            Files.writeString(new File(summaryPath).toPath(),
+                    objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(progress));
+
+            TemporalBootstrap.printMetrics();
+            factory.shutdown();
+            service.shutdown();
+            System.exit(0);
+
+        } catch (Exception e) {
+            System.err.println("Error executing batch: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static void printProgress(BatchReviewProgress p) {
+        if (p == null) {
+            return;
+        }
+        System.out.println(String.format(
+                "  %d started, %d reviewed, %d failed | %.1f reviews/min | %d prompt + %d completion tokens | $%.4f",
+                p.started, p.completed, p.failed, p.reviewsPerMinute,
+                p.totalPromptTokens, p.totalCompletionTokens, p.estimatedCost));
+    }
+}
@@ -3,70 +3,90 @@ package com.utm.temporal;
 import com.utm.temporal.activity.*;
 import com.utm.temporal.agent.FindingDispositionAgent;
 import com.utm.temporal.agent.LearningAgent;
+import com.utm.temporal.config.AppConfig;
 import com.utm.temporal.db.DatabaseClient;
 import com.utm.temporal.github.GitHubClient;
+import com.utm.temporal.learning.LearningSchedules;
 import com.utm.temporal.workflow.*;
 
+import io.temporal.api.enums.v1.ScheduleOverlapPolicy;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.schedules.*;
 import io.temporal.serviceclient.WorkflowServiceStubs;
-import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerOptions;
 
-import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Long-running worker for the learning system.
  * Registers Temporal Schedules and processes learning workflows.
  *
- * Usage: java com.utm.temporal.LearningWorkerApp <repository>
+ * Usage: java com.utm.temporal.LearningWorkerApp [repository...]
+ *
+ * With no arguments, the repositories come from the {@code learning_repositories}
+ * table, so one fleet of learning workers serves every repository. Each
+ * repository gets its own schedules, fired at a deterministic offset (see
+ * {@link LearningSchedules}) so repositories do not all start at the top of
+ * the hour. A schedule never overlaps its own previous run, so each
+ * repository runs at most one workflow of each kind at a time; across
+ * repositories, {@code LEARNING_MAX_CONCURRENT_ACTIVITIES} caps the work a
+ * worker does at once.
  *
  * Environment variables:
  *   POSTGRES_URL   — Neon Postgres connection string
  *   GITHUB_TOKEN   — GitHub API token
  *   OPENAI_API_KEY — OpenAI API key
  *   TEMPORAL_ADDRESS — Temporal server (default: localhost:7233)
+ *   PAYLOAD_COMPRESSION, LEARNING_MAX_CONCURRENT_ACTIVITIES — see {@link AppConfig}
  */
 public class LearningWorkerApp {
     private static final String TASK_QUEUE = "learning";
 
     public static void main(String[] args) {
-        if (args.length < 1) {
-            System.err.println("Usage: LearningWorkerApp <repository>");
-            System.err.println("  repository: owner/repo (e.g., nadvolod/ultimate-code-metrics)");
+        // Validate environment variables at startup — fail fast with clear messages
+        try {
+            AppConfig.validate();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
             System.exit(1);
         }
 
-        String repository = args[0];
-
-        // Connect to Temporal server
-        String temporalAddress = System.getenv().getOrDefault("TEMPORAL_ADDRESS", "localhost:7233");
-        System.out.println("Connecting to Temporal server at " + temporalAddress + "...");
-
-        WorkflowServiceStubs service;
-        if ("localhost:7233".equals(temporalAddress)) {
-            service = WorkflowServiceStubs.newLocalServiceStubs();
-        } else {
-            service = WorkflowServiceStubs.newServiceStubs(
-                    WorkflowServiceStubsOptions.newBuilder()
-                            .setTarget(temporalAddress)
-                            .build());
+        DatabaseClient dbClient = new DatabaseClient();
+        List<String> repositories = repositories(args, dbClient);
+        if (repositories.isEmpty()) {
+            System.err.println("Usage: LearningWorkerApp [repository...]");
+            System.err.println("  repository: owner/repo (e.g., nadvolod/ultimate-code-metrics)");
+            System.err.println("  With no arguments, enabled rows of the learning_repositories table are used; none found.");
+            System.exit(1);
         }
 
-        WorkflowClient client = WorkflowClient.newInstance(service);
+        WorkflowServiceStubs service = TemporalBootstrap.connectToTemporal();
+        WorkflowClient client = TemporalBootstrap.newWorkflowClient(service);
 
         // Register schedules
-        System.out.println("Registering schedules for " + repository + "...");
-        ScheduleClient scheduleClient = ScheduleClient.newInstance(service);
-        registerSchedules(scheduleClient, repository);
+        ScheduleClient scheduleClient = ScheduleClient.newInstance(service,
+                ScheduleClientOptions.newBuilder()
+                        .setDataConverter(TemporalBootstrap.dataConverter())
+                        .build());
+        for (String repository : repositories) {
+            System.out.println("Registering schedules for " + repository + "...");
+            registerSchedules(scheduleClient, repository);
+        }
 
         // Create and start worker
-        System.out.println("Starting learning worker on task queue: " + TASK_QUEUE);
+        int maxActivities = AppConfig.getLearningMaxConcurrentActivities();
+        System.out.println("Starting learning worker on task queue: " + TASK_QUEUE
+                + " (" + repositories.size() + " repositories, " + maxActivities + " concurrent activities)");
         WorkerFactory factory = WorkerFactory.newInstance(client);
-        Worker worker = factory.newWorker(TASK_QUEUE);
+        Worker worker = factory.newWorker(TASK_QUEUE, WorkerOptions.newBuilder()
+                .setMaxConcurrentActivityExecutionSize(maxActivities)
+                .build());
 
         // Register workflow implementations
         worker.registerWorkflowImplementationTypes(
@@ -76,7 +96,6 @@ public class LearningWorkerApp {
         );
 
         // Create dependencies
-        DatabaseClient dbClient = new DatabaseClient();
         GitHubClient gitHubClient = new GitHubClient();
         LearningAgent learningAgent = new LearningAgent();
         FindingDispositionAgent dispositionAgent = new FindingDispositionAgent();
@@ -90,6 +109,15 @@ public class LearningWorkerApp {
                 new EvaluationActivityImpl(dbClient)
         );
 
+        // Let in-flight activities finish on Ctrl+C / SIGTERM
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Learning worker shutting down...");
+            TemporalBootstrap.printMetrics();
+            factory.shutdown();
+            factory.awaitTermination(30, TimeUnit.SECONDS);
+            service.shutdown();
+        }));
+
         // Start worker — blocks forever (daemon mode)
         factory.start();
         System.out.println("Learning worker started. Schedules registered. Press Ctrl+C to stop.");
@@ -99,38 +127,55 @@ public class LearningWorkerApp {
         try {
             Thread.currentThread().join();
         } catch (InterruptedException e) {
-            System.out.println("Learning worker shutting down...");
-            factory.shutdown();
-            service.shutdown();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Repositories named on the command line, or else those enabled in the database. */
+    private static List<String> repositories(String[] args, DatabaseClient dbClient) {
+        if (args.length > 0) {
+            return Arrays.asList(args);
+        }
+        if (!dbClient.isConfigured()) {
+            return Collections.emptyList();
+        }
+        try {
+            return dbClient.loadLearningRepositories();
+        } catch (Exception e) {
+            System.err.println("Failed to load learning_repositories: " + e.getMessage());
+            return Collections.emptyList();
         }
     }
 
     private static void registerSchedules(ScheduleClient scheduleClient, String repository) {
         // 1. Outcome Collection — every hour
+        String outcomeId = LearningSchedules.scheduleId("outcome-collection-hourly", repository);
         registerSchedule(scheduleClient,
-                "outcome-collection-hourly",
+                outcomeId,
                 OutcomeCollectionWorkflow.class,
                 "outcome-collection",
                 repository,
-                "0 * * * *",
+                LearningSchedules.hourly(outcomeId),
                 "Collect PR outcomes from GitHub every hour");
 
-        // 2. Learning Analysis — daily at 3 AM UTC
+        // 2. Learning Analysis — daily between 3 and 5 AM UTC
+        String learningId = LearningSchedules.scheduleId("learning-daily", repository);
         registerSchedule(scheduleClient,
-                "learning-daily",
+                learningId,
                 LearningWorkflow.class,
                 "learning-analysis",
                 repository,
-                "0 3 * * *",
+                LearningSchedules.daily(learningId, 3, 120, "*"),
                 "Analyze outcomes and propose learning improvements daily");
 
-        // 3. Evaluation — weekly Monday 6 AM UTC
+        // 3. Evaluation — weekly Monday between 6 and 8 AM UTC
+        String evaluationId = LearningSchedules.scheduleId("evaluation-weekly", repository);
         registerSchedule(scheduleClient,
-                "evaluation-weekly",
+                evaluationId,
                 EvaluationWorkflow.class,
                 "evaluation",
                 repository,
-                "0 6 * * MON",
+                LearningSchedules.daily(evaluationId, 6, 120, "MON"),
                 "Compute weekly evaluation metrics snapshot");
     }
 
@@ -155,9 +200,13 @@ public class LearningWorkerApp {
                     .setCronExpressions(Collections.singletonList(cron))
                     .build();
 
+            // A run still going when the next one is due is not doubled up
             Schedule schedule = Schedule.newBuilder()
                     .setAction(action)
                     .setSpec(spec)
+                    .setPolicy(SchedulePolicy.newBuilder()
+                            .setOverlap(ScheduleOverlapPolicy.SCHEDULE_OVERLAP_POLICY_SKIP)
+                            .build())
                     .build();
 
             scheduleClient.createSchedule(scheduleId, schedule, ScheduleOptions.newBuilder().build());
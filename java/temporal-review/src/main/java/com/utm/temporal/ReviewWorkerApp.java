@@ -0,0 +1,61 @@
+package com.utm.temporal;
+
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.db.DatabaseClient;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.worker.WorkerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running worker for PR reviews.
+ * Registers the review workflows and activities once and then serves every
+ * review submitted to the task queues (see {@link SubmitReviewApp}), so JVM
+ * startup, Temporal connection setup, agent construction and JIT warm-up are
+ * paid once per worker instead of once per review.
+ *
+ * Usage: java com.utm.temporal.ReviewWorkerApp
+ *
+ * Environment variables: see {@link AppConfig}.
+ */
+public class ReviewWorkerApp {
+
+    public static void main(String[] args) {
+        // Validate environment variables at startup — fail fast with clear messages
+        try {
+            AppConfig.validate();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        WorkflowServiceStubs service = TemporalBootstrap.connectToTemporal();
+        WorkflowClient client = TemporalBootstrap.newWorkflowClient(service);
+
+        System.out.println("Starting review worker on task queue " + AppConfig.getTaskQueue() + " and its lanes:");
+        WorkerFactory factory = WorkerFactory.newInstance(client);
+        TemporalBootstrap.registerLaneWorkers(factory, new DatabaseClient());
+
+        // Let in-flight activities finish on Ctrl+C / SIGTERM
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Review worker shutting down...");
+            TemporalBootstrap.printMetrics();
+            factory.shutdown();
+            factory.awaitTermination(30, TimeUnit.SECONDS);
+            service.shutdown();
+        }));
+
+        // Start worker — blocks forever (daemon mode)
+        factory.start();
+        System.out.println("Review worker started. Press Ctrl+C to stop.");
+
+        // Keep the process alive
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.utm.temporal;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.diff.DiffStores;
+import com.utm.temporal.model.ReviewRequest;
+import com.utm.temporal.model.ReviewResponse;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+
+/**
+ * Thin client that submits one PR review to a running {@link ReviewWorkerApp}
+ * and waits for the result. It starts no worker and builds no agents or HTTP
+ * clients, so it needs no OpenAI credentials and starts in milliseconds.
+ *
+ * Usage:
+ * java com.utm.temporal.SubmitReviewApp <input-json-path> <output-json-path>
+ *
+ * Exit codes:
+ * 0 - Success
+ * 1 - Invalid arguments
+ * 2 - Workflow execution failed
+ * 3 - File I/O error
+ */
+public class SubmitReviewApp {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: SubmitReviewApp <input-json-path> <output-json-path>");
+            System.exit(1);
+        }
+
+        try {
+            AppConfig.validateForClient();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        String inputPath = args[0];
+        String outputPath = args[1];
+
+        try {
+            File inputFile = new File(inputPath);
+            if (!inputFile.exists()) {
+                System.err.println("Error: Input file does not exist: " + inputPath);
+                System.exit(3);
+            }
+            ReviewRequest request = objectMapper.readValue(
+                    Files.readString(inputFile.toPath()), ReviewRequest.class);
+
+            // Large diffs travel by hash so they stay out of workflow history
+            DiffStores.externalize(request, DiffStores.fromConfig(new DatabaseClient()),
+                    AppConfig.getDiffStoreMinChars());
+
+            WorkflowServiceStubs service = TemporalBootstrap.connectToTemporal();
+            WorkflowClient client = TemporalBootstrap.newWorkflowClient(service);
+
+            // Starts the review, or supersedes the one running for this PR,
+            // then waits for the latest run on the worker fleet
+            String taskQueue = AppConfig.getLaneTaskQueue(request.lane);
+            ReviewResponse response = TemporalBootstrap.submitReview(client, taskQueue, request)
+                    .getResult(ReviewResponse.class);
+
+            System.out.println("Writing output to: " + outputPath);
+            Files.writeString(new File(outputPath).toPath(),
+                    objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(response));
+
+            service.shutdown();
+            System.out.println("Overall recommendation: " + response.overallRecommendation);
+            System.exit(0);
+
+        } catch (Exception e) {
+            System.err.println("Error executing workflow: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.utm.temporal;
+
+import com.utm.temporal.activity.*;
+import com.utm.temporal.agent.CodeQualityAgent;
+import com.utm.temporal.agent.ComplexityAgent;
+import com.utm.temporal.agent.PriorityAgent;
+import com.utm.temporal.agent.SecurityAgent;
+import com.utm.temporal.agent.TestQualityAgent;
+import com.utm.temporal.codec.CompressingPayloadCodec;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.diff.DiffStores;
+import com.utm.temporal.llm.LlmClients;
+import com.utm.temporal.llm.OpenAiRateLimiter;
+import com.utm.temporal.model.ReviewRequest;
+import com.utm.temporal.workflow.AgentTimeoutModel;
+import com.utm.temporal.workflow.BatchReviewWorkflowImpl;
+import com.utm.temporal.workflow.PRReviewWorkflow;
+import com.utm.temporal.workflow.PRReviewWorkflowImpl;
+import com.utm.temporal.workflow.ReviewRequestHash;
+import com.utm.temporal.workflow.ShardReviewWorkflowImpl;
+
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowExecutionDescription;
+import io.temporal.client.WorkflowNotFoundException;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerOptions;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared connection and worker setup for the review entrypoints
+ * ({@link WorkerApp}, {@link ReviewWorkerApp}, {@link SubmitReviewApp} and
+ * {@link BatchReviewApp}) and the client setup of {@link LearningWorkerApp}.
+ */
+public final class TemporalBootstrap {
+
+    // One codec per process so its counters cover every client and worker
+    private static volatile CompressingPayloadCodec payloadCodec;
+
+    // Reviews whose agent latencies the timeout model is fitted to, and how
+    // often it is refitted
+    private static final int TIMEOUT_MODEL_REVIEWS = 1000;
+    private static final long TIMEOUT_MODEL_REFRESH_MINUTES = 15;
+    private static volatile ScheduledExecutorService timeoutModelRefresh;
+
+    private TemporalBootstrap() {
+        // utility class
+    }
+
+    /**
+     * Connects to the Temporal server configured by {@code TEMPORAL_ADDRESS}.
+     */
+    public static WorkflowServiceStubs connectToTemporal() {
+        String temporalAddress = AppConfig.getTemporalAddress();
+        System.out.println("Connecting to Temporal server at " + temporalAddress + "...");
+        if (AppConfig.DEFAULT_TEMPORAL_ADDRESS.equals(temporalAddress)) {
+            return WorkflowServiceStubs.newLocalServiceStubs();
+        }
+        return WorkflowServiceStubs.newServiceStubs(
+                WorkflowServiceStubsOptions.newBuilder()
+                        .setTarget(temporalAddress)
+                        .build());
+    }
+
+    /**
+     * Creates a client that uses {@link #dataConverter()}. Workers created
+     * from it through a {@code WorkerFactory} use the same converter.
+     */
+    public static WorkflowClient newWorkflowClient(WorkflowServiceStubs service) {
+        return WorkflowClient.newInstance(service, WorkflowClientOptions.newBuilder()
+                .setDataConverter(dataConverter())
+                .build());
+    }
+
+    /**
+     * The default JSON data converter, wrapped in a
+     * {@link CompressingPayloadCodec} unless {@code PAYLOAD_COMPRESSION=false}.
+     * Uncompressed payloads always decode, so enabling compression is safe for
+     * existing histories; disabling it requires that no compressed payloads
+     * remain in open workflows.
+     */
+    public static DataConverter dataConverter() {
+        if (!AppConfig.isPayloadCompression()) {
+            return DefaultDataConverter.newDefaultInstance();
+        }
+        synchronized (TemporalBootstrap.class) {
+            if (payloadCodec == null) {
+                payloadCodec = new CompressingPayloadCodec(AppConfig.getPayloadCompressionMinBytes());
+            }
+        }
+        return new CodecDataConverter(DefaultDataConverter.newDefaultInstance(),
+                Collections.singletonList(payloadCodec));
+    }
+
+    /**
+     * Workflow ID of a review: one per PR when the request names its
+     * repository and number, so a review of a newer push finds the one still
+     * running for the same PR. Other requests are keyed by their content hash,
+     * so identical submissions share an ID.
+     */
+    public static String reviewWorkflowId(ReviewRequest request, String requestHash) {
+        if (request.repository != null && request.prNumber != null) {
+            return AppConfig.getTaskQueue() + "-" + request.repository + "-pr-" + request.prNumber;
+        }
+        return AppConfig.getTaskQueue() + "-request-" + requestHash.substring(0, 16);
+    }
+
+    /**
+     * Submits a review of {@code request} on {@code taskQueue} and returns a
+     * stub whose result is that of the latest run for it:
+     * <ul>
+     *   <li>an identical request (same {@link ReviewRequestHash}) that is still
+     *       running, or completed within {@code RESULT_CACHE_TTL_SECONDS}, is
+     *       reused as is — no new LLM calls;</li>
+     *   <li>a different request for a PR whose review is still running
+     *       {@link PRReviewWorkflow#supersede supersedes} it;</li>
+     *   <li>otherwise a new review starts.</li>
+     * </ul>
+     */
+    public static WorkflowStub submitReview(WorkflowClient client, String taskQueue, ReviewRequest request) {
+        String requestHash = ReviewRequestHash.of(request);
+        String workflowId = reviewWorkflowId(request, requestHash);
+        for (int attempt = 1; ; attempt++) {
+            WorkflowStub latest = client.newUntypedWorkflowStub(workflowId, Optional.empty(),
+                    Optional.of(PRReviewWorkflow.class.getSimpleName()));
+            WorkflowExecutionDescription description = describeOrNull(latest);
+            if (description != null && isReusable(description, requestHash)) {
+                System.out.println("Identical review " + workflowId + " is "
+                        + (description.getStatus() == WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING
+                                ? "in flight, waiting for its result"
+                                : "cached, reusing its result"));
+                return latest;
+            }
+            try {
+                if (description != null
+                        && description.getStatus() == WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING) {
+                    client.newWorkflowStub(PRReviewWorkflow.class, workflowId).supersede(request);
+                    System.out.println("Superseded the review already running as " + workflowId);
+                    return latest;
+                }
+                PRReviewWorkflow workflow = client.newWorkflowStub(
+                        PRReviewWorkflow.class,
+                        WorkflowOptions.newBuilder()
+                                .setTaskQueue(taskQueue)
+                                .setWorkflowId(workflowId)
+                                .setMemo(Collections.singletonMap(ReviewRequestHash.MEMO_KEY, requestHash))
+                                .build());
+                WorkflowClient.start(workflow::review, request);
+                System.out.println("Submitted review " + workflowId + " to task queue " + taskQueue);
+                return WorkflowStub.fromTyped(workflow);
+            } catch (WorkflowExecutionAlreadyStarted | WorkflowNotFoundException e) {
+                // Another submission started it, or it completed, since we looked: look again
+                if (attempt >= 3) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static WorkflowExecutionDescription describeOrNull(WorkflowStub stub) {
+        try {
+            return stub.describe();
+        } catch (WorkflowNotFoundException e) {
+            return null;
+        }
+    }
+
+    /** Whether the described run reviewed the same request and is running or freshly completed. */
+    private static boolean isReusable(WorkflowExecutionDescription run, String requestHash) {
+        if (!requestHash.equals(run.getMemo(ReviewRequestHash.MEMO_KEY, String.class))) {
+            return false;
+        }
+        if (run.getStatus() == WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING) {
+            return true;
+        }
+        return run.getStatus() == WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED
+                && run.getCloseTime() != null
+                && run.getCloseTime().isAfter(Instant.now().minusSeconds(AppConfig.getResultCacheTtlSeconds()));
+    }
+
+    /** Prints the payload codec, LLM cache and LLM rate limiter counters, for whichever is enabled. */
+    public static void printMetrics() {
+        CompressingPayloadCodec codec = payloadCodec;
+        if (codec != null) {
+            System.out.println(codec.metricsSummary());
+        }
+        String llmCache = LlmClients.cacheMetricsSummary();
+        if (llmCache != null) {
+            System.out.println(llmCache);
+        }
+        if (AppConfig.isLlmRateLimiter() && !AppConfig.isDummyMode()) {
+            System.out.println(OpenAiRateLimiter.shared().metricsSummary());
+        }
+    }
+
+    /**
+     * Creates the review workers for the plain {@code TASK_QUEUE} and each
+     * lane's queue. The plain queue keeps serving reviews started before lanes
+     * existed; each lane has its own pollers and activity slots, so a bulk
+     * backfill can never take the slots interactive reviews are waiting for.
+     *
+     * <p>With {@code SEPARATE_ACTIVITY_QUEUES} every workflow queue also gets an
+     * agent and a storage activity queue (see
+     * {@link AppConfig#activityTaskQueue}), so slow LLM calls never hold the
+     * slots of quick database writes. {@code WORKER_POOLS} picks which of the
+     * workflow, agent and storage workers this process runs.
+     */
+    public static void registerLaneWorkers(WorkerFactory factory, DatabaseClient dbClient) {
+        // Null when DIFF_STORE=none: every diff is passed inline
+        DiffStore diffStore = DiffStores.fromConfig(dbClient);
+        registerWorkflowQueue(factory, AppConfig.getTaskQueue(),
+                AppConfig.getInteractiveMaxConcurrentActivities(), dbClient, diffStore);
+        registerWorkflowQueue(factory, AppConfig.getLaneTaskQueue(AppConfig.LANE_INTERACTIVE),
+                AppConfig.getInteractiveMaxConcurrentActivities(), dbClient, diffStore);
+        registerWorkflowQueue(factory, AppConfig.getLaneTaskQueue(AppConfig.LANE_BULK),
+                AppConfig.getBulkMaxConcurrentActivities(), dbClient, diffStore);
+        if (AppConfig.getWorkerPools().contains(AppConfig.POOL_WORKFLOWS)) {
+            startTimeoutModelRefresh(dbClient);
+        }
+    }
+
+    /**
+     * Periodically refits the {@link AgentTimeoutModel} the review workflows
+     * on this worker read, from the agent latencies recorded in the database.
+     * Does nothing when adaptive timeouts are off or no database is
+     * configured; agents then keep {@code ACTIVITY_TIMEOUT_SECONDS}.
+     */
+    public static synchronized void startTimeoutModelRefresh(DatabaseClient dbClient) {
+        if (!AppConfig.isAdaptiveTimeouts() || !dbClient.isConfigured() || timeoutModelRefresh != null) {
+            return;
+        }
+        timeoutModelRefresh = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "agent-timeout-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timeoutModelRefresh.scheduleWithFixedDelay(() -> {
+            try {
+                AgentTimeoutModel model = AgentTimeoutModel.fit(
+                        dbClient.loadAgentLatencies(TIMEOUT_MODEL_REVIEWS),
+                        AppConfig.getAdaptiveTimeoutMinSeconds(), AppConfig.getAdaptiveTimeoutMaxSeconds());
+                AgentTimeoutModel.install(model);
+                System.out.println("Refitted " + model);
+            } catch (Exception e) {
+                // Keep the previous model; the next refresh tries again
+                System.err.println("Failed to refit agent timeouts: " + e.getMessage());
+            }
+        }, 0, TIMEOUT_MODEL_REFRESH_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private static void registerWorkflowQueue(WorkerFactory factory, String taskQueue, int agentSlots,
+                                              DatabaseClient dbClient, DiffStore diffStore) {
+        List<String> pools = AppConfig.getWorkerPools();
+        if (pools.contains(AppConfig.POOL_WORKFLOWS)) {
+            System.out.println("  " + taskQueue + ": workflows, " + agentSlots + " concurrent activities");
+            Worker worker = factory.newWorker(taskQueue, WorkerOptions.newBuilder()
+                    .setMaxConcurrentActivityExecutionSize(agentSlots)
+                    .build());
+            registerReviewWorker(worker, dbClient, diffStore);
+        }
+        if (!AppConfig.isSeparateActivityQueues()) {
+            return;
+        }
+        if (pools.contains(AppConfig.POOL_AGENTS)) {
+            String agentQueue = AppConfig.activityTaskQueue(taskQueue, AppConfig.POOL_AGENTS);
+            System.out.println("  " + agentQueue + ": " + agentSlots + " concurrent activities");
+            registerAgentActivities(factory.newWorker(agentQueue, activityWorkerOptions(agentSlots,
+                    AppConfig.getAgentActivityPollers(), AppConfig.getAgentActivitiesPerSecond())), diffStore);
+        }
+        if (pools.contains(AppConfig.POOL_STORAGE)) {
+            String storageQueue = AppConfig.activityTaskQueue(taskQueue, AppConfig.POOL_STORAGE);
+            int storageSlots = AppConfig.getStorageMaxConcurrentActivities();
+            System.out.println("  " + storageQueue + ": " + storageSlots + " concurrent activities");
+            registerStorageActivities(factory.newWorker(storageQueue, activityWorkerOptions(storageSlots,
+                    AppConfig.getStorageActivityPollers(), AppConfig.getStorageActivitiesPerSecond())),
+                    dbClient, diffStore);
+        }
+    }
+
+    private static WorkerOptions activityWorkerOptions(int slots, int pollers, int perSecond) {
+        WorkerOptions.Builder options = WorkerOptions.newBuilder()
+                .setMaxConcurrentActivityExecutionSize(slots)
+                .setMaxConcurrentActivityTaskPollers(pollers);
+        if (perSecond > 0) {
+            options.setMaxWorkerActivitiesPerSecond(perSecond);
+        }
+        return options.build();
+    }
+
+    /**
+     * Registers the review workflows and every activity they call on {@code worker}.
+     */
+    public static void registerReviewWorker(Worker worker, DatabaseClient dbClient) {
+        // Null when DIFF_STORE=none: every diff is passed inline
+        registerReviewWorker(worker, dbClient, DiffStores.fromConfig(dbClient));
+    }
+
+    private static void registerReviewWorker(Worker worker, DatabaseClient dbClient, DiffStore diffStore) {
+        // Register workflow implementations
+        worker.registerWorkflowImplementationTypes(
+                PRReviewWorkflowImpl.class,
+                ShardReviewWorkflowImpl.class,
+                BatchReviewWorkflowImpl.class);
+
+        // Activities stay registered here too: histories from before separate
+        // activity queues, and SEPARATE_ACTIVITY_QUEUES=false, schedule them
+        // on the workflow's own queue.
+        registerAgentActivities(worker, diffStore);
+        registerStorageActivities(worker, dbClient, diffStore);
+    }
+
+    /**
+     * Registers the activity that reads a batch input file on
+     * {@code taskQueue}, which only this process polls, since the file is
+     * only on this host.
+     */
+    public static void registerBatchInputWorker(WorkerFactory factory, String taskQueue, DatabaseClient dbClient) {
+        factory.newWorker(taskQueue).registerActivitiesImplementations(
+                new ReviewBatchActivityImpl(DiffStores.fromConfig(dbClient)));
+    }
+
+    /** Registers the LLM-bound agent activities. */
+    private static void registerAgentActivities(Worker worker, DiffStore diffStore) {
+        // Create agent instances for dependency injection
+        CodeQualityAgent codeQualityAgent = new CodeQualityAgent();
+        TestQualityAgent testQualityAgent = new TestQualityAgent();
+        SecurityAgent securityAgent = new SecurityAgent();
+        PriorityAgent priorityAgent = new PriorityAgent();
+        ComplexityAgent complexityAgent = new ComplexityAgent();
+
+        worker.registerActivitiesImplementations(
+                new CodeQualityActivityImpl(codeQualityAgent, diffStore),
+                new TestQualityActivityImpl(testQualityAgent, diffStore),
+                new SecurityQualityActivityImpl(securityAgent, diffStore),
+                new PriorityActivityImpl(priorityAgent),
+                new ComplexityQualityActivityImpl(complexityAgent, diffStore));
+    }
+
+    /** Registers the database and diff store activities. */
+    private static void registerStorageActivities(Worker worker, DatabaseClient dbClient, DiffStore diffStore) {
+        worker.registerActivitiesImplementations(
+                new OutcomeRecordingActivityImpl(dbClient),
+                new LoadInsightsActivityImpl(dbClient),
+                new ReviewHistoryActivityImpl(dbClient),
+                new DiffStoreActivityImpl(diffStore));
+    }
+}
@@ -2,31 +2,25 @@ package com.utm.temporal;
 
 import java.io.File;
 import java.nio.file.Files;
-import java.util.UUID;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.utm.temporal.activity.*;
-import com.utm.temporal.agent.ComplexityAgent;
-import com.utm.temporal.agent.CodeQualityAgent;
-import com.utm.temporal.agent.PriorityAgent;
-import com.utm.temporal.agent.SecurityAgent;
-import com.utm.temporal.agent.TestQualityAgent;
 import com.utm.temporal.config.AppConfig;
 import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.diff.DiffStores;
 import com.utm.temporal.model.ReviewRequest;
 import com.utm.temporal.model.ReviewResponse;
-import com.utm.temporal.workflow.PRReviewWorkflow;
-import com.utm.temporal.workflow.PRReviewWorkflowImpl;
 
 import io.temporal.client.WorkflowClient;
-import io.temporal.client.WorkflowOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
-import io.temporal.serviceclient.WorkflowServiceStubsOptions;
-import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
 
 /**
- * CLI entrypoint for running PR reviews via Temporal.
+ * CLI entrypoint for running a single PR review via Temporal.
+ *
+ * Starts an in-process worker, runs one workflow and exits. For many
+ * reviews, run {@link ReviewWorkerApp} once and submit each review with
+ * {@link SubmitReviewApp} instead, which avoids paying JVM startup, Temporal
+ * connection setup and JIT warm-up on every review.
  *
  * Usage:
  * java com.utm.temporal.RunReview <input-json-path> <output-json-path>
@@ -72,61 +66,26 @@ public class WorkerApp {
 
             DatabaseClient dbClient = new DatabaseClient();
 
-            // Connect to Temporal server using configurable address
-            String temporalAddress = AppConfig.getTemporalAddress();
-            System.out.println("Connecting to Temporal server at " + temporalAddress + "...");
-            WorkflowServiceStubs service;
-            if (AppConfig.DEFAULT_TEMPORAL_ADDRESS.equals(temporalAddress)) {
-                service = WorkflowServiceStubs.newLocalServiceStubs();
-            } else {
-                service = WorkflowServiceStubs.newServiceStubs(
-                        WorkflowServiceStubsOptions.newBuilder()
-                                .setTarget(temporalAddress)
-                                .build());
-            }
-            WorkflowClient client = WorkflowClient.newInstance(service);
+            // Large diffs travel by hash so they stay out of workflow history
+            DiffStores.externalize(request, DiffStores.fromConfig(dbClient), AppConfig.getDiffStoreMinChars());
+
+            WorkflowServiceStubs service = TemporalBootstrap.connectToTemporal();
+            WorkflowClient client = TemporalBootstrap.newWorkflowClient(service);
 
             // Create and start worker in background
-            String taskQueue = AppConfig.getTaskQueue();
+            String taskQueue = AppConfig.getLaneTaskQueue(request.lane);
             System.out.println("Starting Temporal worker...");
             WorkerFactory factory = WorkerFactory.newInstance(client);
-            Worker worker = factory.newWorker(taskQueue);
-
-            // Register workflow implementation
-            worker.registerWorkflowImplementationTypes(PRReviewWorkflowImpl.class);
-
-            // Create agent instances for dependency injection
-            CodeQualityAgent codeQualityAgent = new CodeQualityAgent();
-            TestQualityAgent testQualityAgent = new TestQualityAgent();
-            SecurityAgent securityAgent = new SecurityAgent();
-            PriorityAgent priorityAgent = new PriorityAgent();
-            ComplexityAgent complexityAgent = new ComplexityAgent();
-
-            // Register activity implementations
-            worker.registerActivitiesImplementations(
-                    new CodeQualityActivityImpl(codeQualityAgent),
-                    new TestQualityActivityImpl(testQualityAgent),
-                    new SecurityQualityActivityImpl(securityAgent),
-                    new PriorityActivityImpl(priorityAgent),
-                    new ComplexityQualityActivityImpl(complexityAgent),
-                    new OutcomeRecordingActivityImpl(dbClient),
-                    new LoadInsightsActivityImpl(dbClient));
+            TemporalBootstrap.registerLaneWorkers(factory, dbClient);
 
             // Start worker in background
             factory.start();
 
-            // Create workflow stub and execute
+            // Start the review (or supersede the one running for this PR)
+            // and block until the latest run completes
             System.out.println("Starting workflow execution...");
-            String workflowId = taskQueue + "-" + UUID.randomUUID();
-            PRReviewWorkflow workflow = client.newWorkflowStub(
-                    PRReviewWorkflow.class,
-                    WorkflowOptions.newBuilder()
-                            .setTaskQueue(taskQueue)
-                            .setWorkflowId(workflowId)
-                            .build());
-
-            // Execute workflow (blocks until completion)
-            ReviewResponse response = workflow.review(request);
+            ReviewResponse response = TemporalBootstrap.submitReview(client, taskQueue, request)
+                    .getResult(ReviewResponse.class);
 
             // Write output JSON
             System.out.println("Writing output to: " + outputPath);
@@ -135,6 +94,7 @@ public class WorkerApp {
             Files.writeString(new File(outputPath).toPath(), outputJson);
 
             // Shutdown worker
+            TemporalBootstrap.printMetrics();
             factory.shutdown();
             service.shutdown();
 
@@ -0,0 +1,219 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.llm.LlmProgress;
+import com.utm.temporal.llm.PartialJsonObject;
+import com.utm.temporal.model.AgentProgress;
+import com.utm.temporal.model.AgentResult;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ManualActivityCompletionClient;
+import io.temporal.client.ActivityCompletionException;
+import io.temporal.failure.CanceledFailure;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Heartbeats an agent activity while its LLM call runs.
+ *
+ * <p>A heartbeat carrying the call's {@link LlmProgress} is sent every third
+ * of the heartbeat timeout; for a streamed response it includes the time to
+ * the first token and the verdict and number of findings generated so far.
+ * Once the response has started arriving and then stops for a whole
+ * heartbeat timeout, heartbeats stop too, so Temporal times the attempt out
+ * and retries it instead of waiting for the start-to-close timeout.
+ * Cancellation delivered through a heartbeat (for example when the
+ * workflow's latency budget runs out) interrupts the call.
+ *
+ * <p>Activities scheduled without a heartbeat timeout run the call unchanged.
+ * Either way the result carries the duration of the call as
+ * {@link AgentResult#latencyMs}, which feeds the adaptive activity timeouts.
+ * Results that used no tokens (cache hits, rule-based answers, dummy mode)
+ * say nothing about how long a real call takes and keep a latency of 0.
+ *
+ * <p>With {@code ASYNC_AGENT_ACTIVITIES} the activity method returns as soon
+ * as the call is sent and the activity is completed when the response
+ * arrives, so its thread serves other activities meanwhile. The activity
+ * still holds its execution slot until then.
+ */
+final class AgentHeartbeat {
+
+    private static final long MIN_INTERVAL_MS = 1000L;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "agent-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AgentHeartbeat() {
+        // utility class
+    }
+
+    static AgentResult run(Supplier<CompletableFuture<AgentResult>> call) {
+        if (AppConfig.isAsyncAgentActivities()) {
+            completeAsync(call);
+            // Ignored: the activity is completed by completeAsync
+            return null;
+        }
+        long startedMs = System.currentTimeMillis();
+        AgentResult result = heartbeatWhile(() -> await(call.get()));
+        stampLatency(result, startedMs);
+        return result;
+    }
+
+    /**
+     * Starts {@code call} and arranges for the current activity to be
+     * completed with its result. Heartbeats and stall detection work as in
+     * the blocking case; a cancellation cancels the call.
+     */
+    private static void completeAsync(Supplier<CompletableFuture<AgentResult>> call) {
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        long timeoutMs = context.getInfo().getHeartbeatTimeout().toMillis();
+        ManualActivityCompletionClient completion = context.useLocalManualCompletion();
+        long startedMs = System.currentTimeMillis();
+
+        LlmProgress progress;
+        CompletableFuture<AgentResult> future;
+        // The call picks up the tracker while it is installed on this thread
+        try (LlmProgress tracker = LlmProgress.track()) {
+            progress = tracker;
+            future = call.get();
+        } catch (RuntimeException e) {
+            completion.fail(e);
+            return;
+        }
+
+        AtomicReference<CanceledFailure> cancelled = new AtomicReference<>();
+        ScheduledFuture<?> heartbeats = null;
+        if (timeoutMs > 0) {
+            long intervalMs = Math.max(MIN_INTERVAL_MS, timeoutMs / 3);
+            heartbeats = SCHEDULER.scheduleAtFixedRate(() -> {
+                long nowMs = System.currentTimeMillis();
+                if (future.isDone() || progress.isStalled(nowMs, timeoutMs)) {
+                    return;
+                }
+                try {
+                    completion.recordHeartbeat(progressOf(progress, nowMs));
+                } catch (CanceledFailure e) {
+                    cancelled.set(e);
+                    future.cancel(true);
+                } catch (RuntimeException e) {
+                    // A failed heartbeat must not stop the schedule; the next one retries
+                }
+            }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        ScheduledFuture<?> stopHeartbeats = heartbeats;
+        future.whenComplete((result, error) -> {
+            if (stopHeartbeats != null) {
+                stopHeartbeats.cancel(false);
+            }
+            try {
+                if (cancelled.get() != null) {
+                    completion.reportCancellation(null);
+                } else if (error != null) {
+                    completion.fail(unwrap(error));
+                } else {
+                    stampLatency(result, startedMs);
+                    completion.complete(result);
+                }
+            } catch (RuntimeException e) {
+                // The attempt already timed out or was cancelled; Temporal has moved on
+            }
+        });
+    }
+
+    /** Heartbeat details for {@code progress}, including what a streamed response has said so far. */
+    static AgentProgress progressOf(LlmProgress progress, long nowMs) {
+        AgentProgress details = new AgentProgress(progress.getAttempt(), progress.getBytesReceived(),
+                nowMs - progress.getStartedMs());
+        if (progress.getFirstContentMs() > 0) {
+            details.firstTokenMs = progress.getFirstContentMs() - progress.getStartedMs();
+            PartialJsonObject content = progress.getContent();
+            details.riskLevel = content.getString("riskLevel");
+            details.recommendation = content.getString("recommendation");
+            details.findingsSoFar = content.getStrings("findings").size();
+        }
+        return details;
+    }
+
+    private static void stampLatency(AgentResult result, long startedMs) {
+        if (result != null && result.promptTokens + result.completionTokens > 0) {
+            result.latencyMs = System.currentTimeMillis() - startedMs;
+        }
+    }
+
+    /** Waits for {@code future}; an interrupt (cancellation) cancels it. */
+    private static AgentResult await(CompletableFuture<AgentResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the LLM", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static <T> T heartbeatWhile(Supplier<T> call) {
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        long timeoutMs = context.getInfo().getHeartbeatTimeout().toMillis();
+        if (timeoutMs <= 0) {
+            return call.get();
+        }
+        long intervalMs = Math.max(MIN_INTERVAL_MS, timeoutMs / 3);
+        Thread caller = Thread.currentThread();
+        AtomicReference<ActivityCompletionException> cancelled = new AtomicReference<>();
+
+        try (LlmProgress progress = LlmProgress.track()) {
+            ScheduledFuture<?> heartbeats = SCHEDULER.scheduleAtFixedRate(() -> {
+                long nowMs = System.currentTimeMillis();
+                if (cancelled.get() != null || progress.isStalled(nowMs, timeoutMs)) {
+                    return;
+                }
+                try {
+                    context.heartbeat(progressOf(progress, nowMs));
+                } catch (ActivityCompletionException e) {
+                    cancelled.set(e);
+                    caller.interrupt();
+                } catch (RuntimeException e) {
+                    // A failed heartbeat must not stop the schedule; the next one retries
+                }
+            }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (cancelled.get() != null) {
+                    throw cancelled.get();
+                }
+                throw e;
+            } finally {
+                heartbeats.cancel(false);
+                if (cancelled.get() != null) {
+                    // Clear the interrupt we raised so the worker thread is reusable
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package com.utm.temporal.activity;
 
 import com.utm.temporal.agent.CodeQualityAgent;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.diff.DiffStores;
 import com.utm.temporal.model.AgentResult;
 import com.utm.temporal.model.ReviewRequest;
 
 public class CodeQualityActivityImpl implements CodeQualityActivity {
     private final CodeQualityAgent codeQualityAgent;
+    private final DiffStore diffStore;
 
-    public CodeQualityActivityImpl(CodeQualityAgent codeQualityAgent) {
+    public CodeQualityActivityImpl(CodeQualityAgent codeQualityAgent, DiffStore diffStore) {
         this.codeQualityAgent = codeQualityAgent;
+        this.diffStore = diffStore;
     }
 
     @Override
     public AgentResult analyze(ReviewRequest pullRequest) {
-        return codeQualityAgent.analyze(pullRequest.prTitle,
-                pullRequest.prDescription, pullRequest.diff);
+        return AgentHeartbeat.run(() -> codeQualityAgent.analyzeAsync(pullRequest.prTitle,
+                pullRequest.prDescription, DiffStores.resolve(pullRequest, diffStore), null));
     }
 }
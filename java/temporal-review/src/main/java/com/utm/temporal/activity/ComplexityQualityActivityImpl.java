@@ -1,19 +1,23 @@
 package com.utm.temporal.activity;
 
 import com.utm.temporal.agent.ComplexityAgent;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.diff.DiffStores;
 import com.utm.temporal.model.AgentResult;
 import com.utm.temporal.model.ReviewRequest;
 
 public class ComplexityQualityActivityImpl implements ComplexityQualityActivity {
     private final ComplexityAgent complexityAgent;
+    private final DiffStore diffStore;
 
-    public ComplexityQualityActivityImpl(ComplexityAgent complexityAgent) {
+    public ComplexityQualityActivityImpl(ComplexityAgent complexityAgent, DiffStore diffStore) {
         this.complexityAgent = complexityAgent;
+        this.diffStore = diffStore;
     }
 
     @Override
     public AgentResult analyze(ReviewRequest pullRequest) {
-        return complexityAgent.analyze(pullRequest.prTitle,
-                pullRequest.prDescription, pullRequest.diff);
+        return AgentHeartbeat.run(() -> complexityAgent.analyzeAsync(pullRequest.prTitle,
+                pullRequest.prDescription, DiffStores.resolve(pullRequest, diffStore), null));
     }
 }
@@ -0,0 +1,25 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.model.DiffManifest;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diff processing for reviews whose diff is held in the DiffStore. The
+ * workflow only sees hashes, sizes and file paths; the text stays out of
+ * workflow history.
+ */
+@ActivityInterface
+public interface DiffStoreActivity {
+    @ActivityMethod(name = "DescribeDiff")
+    DiffManifest describeDiff(String diffHash);
+
+    @ActivityMethod(name = "StoreChangedHunks")
+    DiffManifest storeChangedHunks(String diffHash, Map<String, List<String>> previousHunkHashes);
+
+    @ActivityMethod(name = "StoreDiffShards")
+    List<DiffManifest> storeShards(String diffHash, int maxTokens);
+}
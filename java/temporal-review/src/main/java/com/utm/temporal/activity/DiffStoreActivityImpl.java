@@ -0,0 +1,56 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.diff.DiffFingerprint;
+import com.utm.temporal.diff.DiffSharder;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.model.DiffManifest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class DiffStoreActivityImpl implements DiffStoreActivity {
+    private final DiffStore diffStore;
+
+    public DiffStoreActivityImpl(DiffStore diffStore) {
+        this.diffStore = diffStore;
+    }
+
+    @Override
+    public DiffManifest describeDiff(String diffHash) {
+        String diff = store().get(diffHash);
+        DiffManifest manifest = manifest(diffHash, diff);
+        manifest.fileHunkHashes = DiffFingerprint.hunkHashes(diff);
+        return manifest;
+    }
+
+    @Override
+    public DiffManifest storeChangedHunks(String diffHash, Map<String, List<String>> previousHunkHashes) {
+        String changed = DiffFingerprint.changedHunks(store().get(diffHash), previousHunkHashes);
+        return manifest(store().put(changed), changed);
+    }
+
+    @Override
+    public List<DiffManifest> storeShards(String diffHash, int maxTokens) {
+        List<DiffManifest> shards = new ArrayList<>();
+        for (String shard : DiffSharder.split(store().get(diffHash), maxTokens)) {
+            shards.add(manifest(store().put(shard), shard));
+        }
+        return shards;
+    }
+
+    private DiffStore store() {
+        if (diffStore == null) {
+            throw new IllegalStateException("DIFF_STORE is none on this worker; cannot resolve diff references");
+        }
+        return diffStore;
+    }
+
+    private static DiffManifest manifest(String hash, String diff) {
+        DiffManifest manifest = new DiffManifest();
+        manifest.diffHash = hash;
+        manifest.sizeChars = diff.length();
+        manifest.filePaths = DiffFingerprint.filePaths(diff);
+        return manifest;
+    }
+}
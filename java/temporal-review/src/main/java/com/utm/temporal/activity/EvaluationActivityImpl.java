@@ -1,9 +1,7 @@
 package com.utm.temporal.activity;
 
 import com.utm.temporal.db.DatabaseClient;
-import com.utm.temporal.model.AgentAccuracy;
-
-import java.util.Map;
+import com.utm.temporal.model.EvaluationCounters;
 
 public class EvaluationActivityImpl implements EvaluationActivity {
     private final DatabaseClient databaseClient;
@@ -16,20 +14,15 @@ public class EvaluationActivityImpl implements EvaluationActivity {
     public void computeSnapshot(String repository) {
         try {
             int version = databaseClient.getCurrentLearningVersion(repository);
-            int totalReviews = databaseClient.countReviewsForRepo(repository);
-            int totalFindings = databaseClient.countFindingsForRepo(repository);
-            int mergedPRs = databaseClient.countMergedPRs(repository);
-            int buggyPRs = databaseClient.countMergedPRsWithBugs(repository);
-
-            Map<String, AgentAccuracy> accuracy = databaseClient.computeAgentAccuracy(repository);
-
-            // Aggregate across all agents
-            int totalAccepted = 0, totalDismissed = 0, totalWithOutcomes = 0;
-            for (AgentAccuracy a : accuracy.values()) {
-                totalAccepted += a.acceptedFindings;
-                totalDismissed += a.dismissedFindings;
-                totalWithOutcomes += a.totalFindings;
-            }
+            // Kept current as reviews and outcomes are recorded, so this is a single-row read
+            EvaluationCounters counters = databaseClient.loadEvaluationCounters(repository);
+            int totalReviews = counters.totalReviews;
+            int totalFindings = counters.totalFindings;
+            int mergedPRs = counters.mergedPRs;
+            int buggyPRs = counters.mergedPRsWithBugs;
+            int totalAccepted = counters.acceptedFindings;
+            int totalDismissed = counters.dismissedFindings;
+            int totalWithOutcomes = counters.findingsWithOutcome;
 
             double acceptedRate = totalWithOutcomes > 0 ? (double) totalAccepted / totalWithOutcomes : 0;
             double falsePositiveRate = totalWithOutcomes > 0 ? (double) totalDismissed / totalWithOutcomes : 0;
@@ -19,7 +19,8 @@ public class OutcomeRecordingActivityImpl implements OutcomeRecordingActivity {
             int reviewRunId = client.saveReviewRun(
                     prId, outcome.reviewId, outcome.learningVersion,
                     outcome.systemRecommendation, outcome.agentResults,
-                    outcome.tookMs, outcome.model);
+                    outcome.tookMs, outcome.model, outcome.headSha, outcome.fileHunkHashes,
+                    outcome.diffChars);
 
             client.saveFindings(reviewRunId, outcome.agentResults);
         } catch (Exception e) {
@@ -15,6 +15,6 @@ public class PriorityActivityImpl implements PriorityActivity {
 
     @Override
     public AgentResult prioritizeIssues(ReviewRequest request, List<AgentResult> agentResults) {
-        return this.priorityAgent.prioritize(request, agentResults);
+        return AgentHeartbeat.run(() -> this.priorityAgent.prioritizeAsync(request, agentResults));
     }
 }
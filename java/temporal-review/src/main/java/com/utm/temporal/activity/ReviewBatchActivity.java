@@ -0,0 +1,26 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.model.ReviewBatchPage;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+@ActivityInterface
+public interface ReviewBatchActivity {
+    /**
+     * Reads up to {@code limit} requests from a JSON Lines file, starting at
+     * 0-based line {@code fromLine}. Blank lines are skipped.
+     *
+     * <p>Scans the file from its first line; kept for batches recorded
+     * before {@link #readRequestsAt}.
+     */
+    @ActivityMethod(name = "ReadReviewRequests")
+    ReviewBatchPage readRequests(String inputPath, int fromLine, int limit);
+
+    /**
+     * Reads up to {@code limit} requests from a JSON Lines file, starting at
+     * byte {@code fromOffset}, which is the start of 0-based line
+     * {@code fromLine}. Blank lines are skipped.
+     */
+    @ActivityMethod(name = "ReadReviewRequestsAt")
+    ReviewBatchPage readRequestsAt(String inputPath, int fromLine, long fromOffset, int limit);
+}
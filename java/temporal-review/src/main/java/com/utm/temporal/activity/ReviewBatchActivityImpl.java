@@ -0,0 +1,98 @@
+package com.utm.temporal.activity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.diff.DiffStores;
+import com.utm.temporal.model.ReviewBatchPage;
+import com.utm.temporal.model.ReviewRequest;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class ReviewBatchActivityImpl implements ReviewBatchActivity {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DiffStore diffStore;
+
+    public ReviewBatchActivityImpl(DiffStore diffStore) {
+        this.diffStore = diffStore;
+    }
+
+    @Override
+    public ReviewBatchPage readRequests(String inputPath, int fromLine, int limit) {
+        return read(inputPath, fromLine, 0, 0, limit);
+    }
+
+    @Override
+    public ReviewBatchPage readRequestsAt(String inputPath, int fromLine, long fromOffset, int limit) {
+        return read(inputPath, fromLine, fromLine, fromOffset, limit);
+    }
+
+    /**
+     * Reads a page starting at byte {@code offset}, the start of 0-based line
+     * {@code lineNumber}, skipping lines before {@code fromLine}.
+     */
+    private ReviewBatchPage read(String inputPath, int fromLine, int lineNumber, long offset, int limit) {
+        ReviewBatchPage page = new ReviewBatchPage();
+        try (FileChannel channel = FileChannel.open(Paths.get(inputPath), StandardOpenOption.READ)) {
+            channel.position(offset);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            while (page.requests.size() < limit) {
+                long length = readLine(in, buffer);
+                if (length < 0) {
+                    break;
+                }
+                lineNumber++;
+                offset += length;
+                String line = buffer.toString(StandardCharsets.UTF_8);
+                if (lineNumber <= fromLine || line.isBlank()) {
+                    continue;
+                }
+                try {
+                    ReviewRequest request = objectMapper.readValue(line, ReviewRequest.class);
+                    // Keep large diffs out of the batch and child workflow histories
+                    DiffStores.externalize(request, diffStore, AppConfig.getDiffStoreMinChars());
+                    page.requests.add(request);
+                    page.lineNumbers.add(lineNumber);
+                } catch (Exception e) {
+                    // A malformed line is reported, not retried — retrying cannot fix it
+                    page.invalidLines.add(lineNumber);
+                }
+            }
+            page.nextLine = Math.max(lineNumber, fromLine);
+            page.nextOffset = offset;
+            page.endOfInput = page.requests.size() < limit;
+            return page;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read review requests from " + inputPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads one line into {@code buffer}, without its terminator, and returns
+     * the bytes consumed including the terminator; -1 at the end of input.
+     */
+    private static long readLine(InputStream in, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        long consumed = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            consumed++;
+            if (b == '\n') {
+                return consumed;
+            }
+            buffer.write(b);
+        }
+        return consumed == 0 ? -1 : consumed;
+    }
+}
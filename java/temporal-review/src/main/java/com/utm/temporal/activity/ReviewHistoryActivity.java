@@ -0,0 +1,11 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.model.PreviousReview;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+@ActivityInterface
+public interface ReviewHistoryActivity {
+    @ActivityMethod(name = "LoadLastReview")
+    PreviousReview loadLastReview(String repository, int prNumber);
+}
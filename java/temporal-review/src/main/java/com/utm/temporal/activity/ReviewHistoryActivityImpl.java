@@ -0,0 +1,22 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.model.PreviousReview;
+
+public class ReviewHistoryActivityImpl implements ReviewHistoryActivity {
+    private final DatabaseClient databaseClient;
+
+    public ReviewHistoryActivityImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public PreviousReview loadLastReview(String repository, int prNumber) {
+        try {
+            return databaseClient.loadLastReview(repository, prNumber);
+        } catch (Exception e) {
+            // Return null on failure — review falls back to a full review
+            return null;
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package com.utm.temporal.activity;
 
 import com.utm.temporal.agent.SecurityAgent;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.diff.DiffStores;
 import com.utm.temporal.model.AgentResult;
 import com.utm.temporal.model.ReviewRequest;
 
 public class SecurityQualityActivityImpl implements SecurityQualityActivity {
     private final SecurityAgent securityAgent;
+    private final DiffStore diffStore;
 
-    public SecurityQualityActivityImpl(SecurityAgent securityAgent) {
+    public SecurityQualityActivityImpl(SecurityAgent securityAgent, DiffStore diffStore) {
         this.securityAgent = securityAgent;
+        this.diffStore = diffStore;
     }
 
     @Override
     public AgentResult analyze(ReviewRequest pullRequest) {
-        return securityAgent.analyze(pullRequest.prTitle,
-                pullRequest.prDescription, pullRequest.diff);
+        return AgentHeartbeat.run(() -> securityAgent.analyzeAsync(pullRequest.prTitle,
+                pullRequest.prDescription, DiffStores.resolve(pullRequest, diffStore), null));
     }
 }
@@ -1,20 +1,24 @@
 package com.utm.temporal.activity;
 
 import com.utm.temporal.agent.TestQualityAgent;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.diff.DiffStores;
 import com.utm.temporal.model.AgentResult;
 import com.utm.temporal.model.ReviewRequest;
 
 public class TestQualityActivityImpl implements TestQualityActivity {
     private final TestQualityAgent testQualityAgent;
+    private final DiffStore diffStore;
 
-    public TestQualityActivityImpl(TestQualityAgent testQualityAgent) {
+    public TestQualityActivityImpl(TestQualityAgent testQualityAgent, DiffStore diffStore) {
         this.testQualityAgent = testQualityAgent;
+        this.diffStore = diffStore;
     }
 
     @Override
     public AgentResult analyze(ReviewRequest pullRequest) {
-        return testQualityAgent.analyze(pullRequest.prTitle,
-                pullRequest.prDescription, pullRequest.diff,
-                pullRequest.testSummary);
+        return AgentHeartbeat.run(() -> testQualityAgent.analyzeAsync(pullRequest.prTitle,
+                pullRequest.prDescription, DiffStores.resolve(pullRequest, diffStore),
+                pullRequest.testSummary, null));
     }
 }
@@ -0,0 +1,78 @@
+package com.utm.temporal.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmOptions;
+import com.utm.temporal.llm.LlmResponse;
+import com.utm.temporal.llm.Message;
+import com.utm.temporal.model.AgentResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shared plumbing of the review agents, whose LLM answers with an
+ * {@link AgentResult} as JSON.
+ */
+final class AgentResponses {
+
+    private AgentResponses() {
+        // utility class
+    }
+
+    /**
+     * Asks the LLM and parses the response once it arrives, with the call's
+     * token usage. Any failure is reported as "{@code agentLabel} failed: ...";
+     * an answer that cannot be parsed is also invalidated in the client, so a
+     * retried activity does not get it back from a cache.
+     */
+    static CompletableFuture<AgentResult> toAgentResult(LlmClient llmClient, List<Message> messages,
+                                                        LlmOptions options, ObjectMapper objectMapper,
+                                                        String agentLabel) {
+        return llmClient.completeAsync(messages, options).handle((llmResponse, error) -> {
+            if (error != null) {
+                throw failed(agentLabel, unwrap(error));
+            }
+            try {
+                AgentResult result = objectMapper.readValue(llmResponse.content, AgentResult.class);
+                result.promptTokens = llmResponse.promptTokens;
+                result.completionTokens = llmResponse.completionTokens;
+                return result;
+            } catch (Exception e) {
+                llmClient.invalidate(messages, options);
+                throw failed(agentLabel, e);
+            }
+        });
+    }
+
+    static RuntimeException failed(String agentLabel, Throwable cause) {
+        return new RuntimeException(agentLabel + " failed: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Waits for {@code future} on the calling thread. An interrupt (the
+     * activity being cancelled) cancels the call.
+     */
+    static AgentResult await(CompletableFuture<AgentResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the LLM", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
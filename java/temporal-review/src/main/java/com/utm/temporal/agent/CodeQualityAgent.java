@@ -2,6 +2,7 @@ package com.utm.temporal.agent;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmClients;
 import com.utm.temporal.llm.LlmOptions;
 import com.utm.temporal.llm.Message;
 import com.utm.temporal.llm.OpenAiLlmClient;
@@ -10,6 +11,7 @@ import com.utm.temporal.util.PromptLoader;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Code Quality Agent - evaluates code quality against predefined criteria.
@@ -26,11 +28,11 @@ public class CodeQualityAgent {
     }
 
     public CodeQualityAgent() {
-        this.llmClient = new OpenAiLlmClient();
+        this.llmClient = LlmClients.shared();
         this.objectMapper = new ObjectMapper();
     }
 
-    public AgentResult analyze(String prTitle, String prDescription, String diff, String learningContext) {
+    public CompletableFuture<AgentResult> analyzeAsync(String prTitle, String prDescription, String diff, String learningContext) {
         try {
             // Build system prompt with criteria + optional learning context
             String systemPrompt = buildSystemPrompt() + (learningContext != null ? learningContext : "");
@@ -55,20 +57,19 @@ public class CodeQualityAgent {
                 "json_object"
             );
 
-            String response = llmClient.chat(messages, options);
-
-            // Parse JSON response into AgentResult
-            AgentResult result = objectMapper.readValue(response, AgentResult.class);
-            result.promptTokens = llmClient.getLastPromptTokens();
-            result.completionTokens = llmClient.getLastCompletionTokens();
-            return result;
+            // Parse JSON response into AgentResult once it arrives
+            return AgentResponses.toAgentResult(llmClient, messages, options, objectMapper, "Code Quality Agent");
 
         } catch (Exception e) {
             // Fail fast - no retry logic!
-            throw new RuntimeException("Code Quality Agent failed: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(AgentResponses.failed("Code Quality Agent", e));
         }
     }
 
+    public AgentResult analyze(String prTitle, String prDescription, String diff, String learningContext) {
+        return AgentResponses.await(analyzeAsync(prTitle, prDescription, diff, learningContext));
+    }
+
     public AgentResult analyze(String prTitle, String prDescription, String diff) {
         return analyze(prTitle, prDescription, diff, null);
     }
@@ -2,6 +2,7 @@ package com.utm.temporal.agent;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmClients;
 import com.utm.temporal.llm.LlmOptions;
 import com.utm.temporal.llm.Message;
 import com.utm.temporal.llm.OpenAiLlmClient;
@@ -10,6 +11,7 @@ import com.utm.temporal.util.PromptLoader;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Complexity Agent - estimates cyclomatic and cognitive complexity in diffs.
@@ -25,11 +27,11 @@ public class ComplexityAgent {
     }
 
     public ComplexityAgent() {
-        this.llmClient = new OpenAiLlmClient();
+        this.llmClient = LlmClients.shared();
         this.objectMapper = new ObjectMapper();
     }
 
-    public AgentResult analyze(String prTitle, String prDescription, String diff, String learningContext) {
+    public CompletableFuture<AgentResult> analyzeAsync(String prTitle, String prDescription, String diff, String learningContext) {
         try {
             String systemPrompt = buildSystemPrompt() + (learningContext != null ? learningContext : "");
 
@@ -51,18 +53,17 @@ public class ComplexityAgent {
                 "json_object"
             );
 
-            String response = llmClient.chat(messages, options);
-
-            AgentResult result = objectMapper.readValue(response, AgentResult.class);
-            result.promptTokens = llmClient.getLastPromptTokens();
-            result.completionTokens = llmClient.getLastCompletionTokens();
-            return result;
+            return AgentResponses.toAgentResult(llmClient, messages, options, objectMapper, "Complexity Agent");
 
         } catch (Exception e) {
-            throw new RuntimeException("Complexity Agent failed: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(AgentResponses.failed("Complexity Agent", e));
         }
     }
 
+    public AgentResult analyze(String prTitle, String prDescription, String diff, String learningContext) {
+        return AgentResponses.await(analyzeAsync(prTitle, prDescription, diff, learningContext));
+    }
+
     public AgentResult analyze(String prTitle, String prDescription, String diff) {
         return analyze(prTitle, prDescription, diff, null);
     }
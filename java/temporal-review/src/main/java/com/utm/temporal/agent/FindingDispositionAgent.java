@@ -3,6 +3,7 @@ package com.utm.temporal.agent;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmClients;
 import com.utm.temporal.llm.LlmOptions;
 import com.utm.temporal.llm.Message;
 import com.utm.temporal.llm.OpenAiLlmClient;
@@ -33,7 +34,7 @@ public class FindingDispositionAgent {
     }
 
     public FindingDispositionAgent() {
-        this.llmClient = new OpenAiLlmClient();
+        this.llmClient = LlmClients.shared();
         this.objectMapper = new ObjectMapper();
     }
 
@@ -3,6 +3,7 @@ package com.utm.temporal.agent;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmClients;
 import com.utm.temporal.llm.LlmOptions;
 import com.utm.temporal.llm.Message;
 import com.utm.temporal.llm.OpenAiLlmClient;
@@ -25,7 +26,7 @@ public class LearningAgent {
     }
 
     public LearningAgent() {
-        this.llmClient = new OpenAiLlmClient();
+        this.llmClient = LlmClients.shared();
         this.objectMapper = new ObjectMapper();
     }
 
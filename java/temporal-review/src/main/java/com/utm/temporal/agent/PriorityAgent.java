@@ -2,6 +2,7 @@ package com.utm.temporal.agent;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmClients;
 import com.utm.temporal.llm.LlmOptions;
 import com.utm.temporal.llm.Message;
 import com.utm.temporal.llm.OpenAiLlmClient;
@@ -11,6 +12,7 @@ import com.utm.temporal.util.PromptLoader;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Priority Agent - consolidates findings from other agents and ranks by severity.
@@ -27,11 +29,11 @@ public class PriorityAgent {
     }
 
     public PriorityAgent() {
-        this.llmClient = new OpenAiLlmClient();
+        this.llmClient = LlmClients.shared();
         this.objectMapper = new ObjectMapper();
     }
 
-    public AgentResult prioritize(ReviewRequest request, List<AgentResult> agentResults) {
+    public CompletableFuture<AgentResult> prioritizeAsync(ReviewRequest request, List<AgentResult> agentResults) {
         try {
             // Build system prompt
             String systemPrompt = buildSystemPrompt();
@@ -57,19 +59,18 @@ public class PriorityAgent {
                 "json_object"
             );
 
-            String response = llmClient.chat(messages, options);
-
-            // Parse JSON response into AgentResult
-            AgentResult result = objectMapper.readValue(response, AgentResult.class);
-            result.promptTokens = llmClient.getLastPromptTokens();
-            result.completionTokens = llmClient.getLastCompletionTokens();
-            return result;
+            // Parse JSON response into AgentResult once it arrives
+            return AgentResponses.toAgentResult(llmClient, messages, options, objectMapper, "Priority Agent");
 
         } catch (Exception e) {
-            throw new RuntimeException("Priority Agent failed: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(AgentResponses.failed("Priority Agent", e));
         }
     }
 
+    public AgentResult prioritize(ReviewRequest request, List<AgentResult> agentResults) {
+        return AgentResponses.await(prioritizeAsync(request, agentResults));
+    }
+
     private String formatAgentFindings(List<AgentResult> agentResults) {
         if (agentResults == null || agentResults.isEmpty()) {
             return "No findings from other agents.";
@@ -2,6 +2,7 @@ package com.utm.temporal.agent;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmClients;
 import com.utm.temporal.llm.LlmOptions;
 import com.utm.temporal.llm.Message;
 import com.utm.temporal.llm.OpenAiLlmClient;
@@ -11,6 +12,7 @@ import com.utm.temporal.util.PromptLoader;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Test Quality Agent - assesses whether the PR is adequately tested.
@@ -27,11 +29,11 @@ public class TestQualityAgent {
     }
 
     public TestQualityAgent() {
-        this.llmClient = new OpenAiLlmClient();
+        this.llmClient = LlmClients.shared();
         this.objectMapper = new ObjectMapper();
     }
 
-    public AgentResult analyze(String prTitle, String prDescription, String diff, TestSummary testSummary, String learningContext) {
+    public CompletableFuture<AgentResult> analyzeAsync(String prTitle, String prDescription, String diff, TestSummary testSummary, String learningContext) {
         try {
             // If testSummary is null, create a default one
             if (testSummary == null) {
@@ -40,7 +42,7 @@ public class TestQualityAgent {
 
             // Rule 1: If tests failed, BLOCK immediately
             if (!testSummary.passed) {
-                return new AgentResult(
+                return CompletableFuture.completedFuture(new AgentResult(
                     "Test Quality",
                     "HIGH",
                     "BLOCK",
@@ -49,7 +51,7 @@ public class TestQualityAgent {
                         "All tests must pass before the PR can be approved",
                         "Fix the failing tests and ensure the build is green"
                     )
-                );
+                ));
             }
 
             // Build system prompt with rules + optional learning context
@@ -79,20 +81,19 @@ public class TestQualityAgent {
                 "json_object"
             );
 
-            String response = llmClient.chat(messages, options);
-
-            // Parse JSON response into AgentResult
-            AgentResult result = objectMapper.readValue(response, AgentResult.class);
-            result.promptTokens = llmClient.getLastPromptTokens();
-            result.completionTokens = llmClient.getLastCompletionTokens();
-            return result;
+            // Parse JSON response into AgentResult once it arrives
+            return AgentResponses.toAgentResult(llmClient, messages, options, objectMapper, "Test Quality Agent");
 
         } catch (Exception e) {
             // Fail fast - no retry logic!
-            throw new RuntimeException("Test Quality Agent failed: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(AgentResponses.failed("Test Quality Agent", e));
         }
     }
 
+    public AgentResult analyze(String prTitle, String prDescription, String diff, TestSummary testSummary, String learningContext) {
+        return AgentResponses.await(analyzeAsync(prTitle, prDescription, diff, testSummary, learningContext));
+    }
+
     public AgentResult analyze(String prTitle, String prDescription, String diff, TestSummary testSummary) {
         return analyze(prTitle, prDescription, diff, testSummary, null);
     }
@@ -0,0 +1,141 @@
+package com.utm.temporal.codec;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link PayloadCodec} that gzips payloads of at least {@code minBytes}.
+ *
+ * <p>Review payloads are mostly JSON text (diffs, findings, prompts) and
+ * compress well, which shrinks gRPC traffic, stored history and replay
+ * time. A compressed payload is the gzipped bytes of the whole original
+ * payload under the {@value #ENCODING} encoding; every other payload passes
+ * through unchanged, so histories written without this codec still decode.
+ * Payloads that would not get smaller are left as they are.
+ *
+ * <p>The codec counts bytes in and out and the time spent encoding and
+ * decoding; see {@link #metricsSummary()}.
+ */
+public class CompressingPayloadCodec implements PayloadCodec {
+
+    public static final String ENCODING = "binary/gzip";
+
+    private static final String METADATA_ENCODING_KEY = "encoding";
+    private static final ByteString ENCODING_BYTES = ByteString.copyFrom(ENCODING, StandardCharsets.UTF_8);
+
+    private final int minBytes;
+
+    private final AtomicLong payloadsEncoded = new AtomicLong();
+    private final AtomicLong payloadsCompressed = new AtomicLong();
+    private final AtomicLong bytesBeforeCompression = new AtomicLong();
+    private final AtomicLong bytesAfterCompression = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong payloadsDecompressed = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    public CompressingPayloadCodec(int minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        long start = System.nanoTime();
+        List<Payload> encoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            encoded.add(encode(payload));
+        }
+        encodeNanos.addAndGet(System.nanoTime() - start);
+        return encoded;
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        long start = System.nanoTime();
+        List<Payload> decoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            decoded.add(decode(payload));
+        }
+        decodeNanos.addAndGet(System.nanoTime() - start);
+        return decoded;
+    }
+
+    private Payload encode(Payload payload) {
+        payloadsEncoded.incrementAndGet();
+        byte[] original = payload.toByteArray();
+        if (original.length < minBytes) {
+            return payload;
+        }
+        byte[] compressed = gzip(original);
+        if (compressed.length >= original.length) {
+            return payload;
+        }
+        payloadsCompressed.incrementAndGet();
+        bytesBeforeCompression.addAndGet(original.length);
+        bytesAfterCompression.addAndGet(compressed.length);
+        return Payload.newBuilder()
+                .putMetadata(METADATA_ENCODING_KEY, ENCODING_BYTES)
+                .setData(ByteString.copyFrom(compressed))
+                .build();
+    }
+
+    private Payload decode(Payload payload) {
+        if (!ENCODING_BYTES.equals(payload.getMetadataOrDefault(METADATA_ENCODING_KEY, null))) {
+            return payload;
+        }
+        try {
+            Payload original = Payload.parseFrom(gunzip(payload.getData().toByteArray()));
+            payloadsDecompressed.incrementAndGet();
+            return original;
+        } catch (InvalidProtocolBufferException | UncheckedIOException e) {
+            throw new PayloadCodecException(e);
+        }
+    }
+
+    /** Fraction of bytes saved across all compressed payloads so far, 0 when none were compressed. */
+    public double compressionRatio() {
+        long before = bytesBeforeCompression.get();
+        return before == 0 ? 0 : 1.0 - (double) bytesAfterCompression.get() / before;
+    }
+
+    /** One-line summary of the codec counters, for logging. */
+    public String metricsSummary() {
+        return String.format(
+                "payload codec: %d/%d payloads compressed, %d -> %d bytes (%.0f%% saved), "
+                        + "encode %d ms, decode %d ms (%d decompressed)",
+                payloadsCompressed.get(), payloadsEncoded.get(),
+                bytesBeforeCompression.get(), bytesAfterCompression.get(), compressionRatio() * 100,
+                encodeNanos.get() / 1_000_000, decodeNanos.get() / 1_000_000, payloadsDecompressed.get());
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.utm.temporal.config;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -22,7 +23,46 @@ import java.util.List;
  *   <li>{@code TASK_QUEUE} — optional, defaults to {@value DEFAULT_TASK_QUEUE}</li>
  *   <li>{@code ACTIVITY_TIMEOUT_SECONDS} — optional, defaults to {@value DEFAULT_ACTIVITY_TIMEOUT_SECONDS}</li>
  *   <li>{@code ACTIVITY_RETRY_INTERVAL_SECONDS} — optional, defaults to {@value DEFAULT_RETRY_INTERVAL_SECONDS}</li>
+ *   <li>{@code LOCAL_ACTIVITY_TIMEOUT_SECONDS} — optional, timeout of the database lookups run as local activities, defaults to {@value DEFAULT_LOCAL_ACTIVITY_TIMEOUT_SECONDS}</li>
+ *   <li>{@code AGENT_HEARTBEAT_TIMEOUT_SECONDS} — optional, heartbeat timeout of the LLM agent activities, defaults to {@value DEFAULT_AGENT_HEARTBEAT_TIMEOUT_SECONDS}</li>
+ *   <li>{@code REVIEW_LATENCY_BUDGET_SECONDS} — optional, time after which a review returns the agents that finished, defaults to {@value DEFAULT_REVIEW_LATENCY_BUDGET_SECONDS}</li>
+ *   <li>{@code ADAPTIVE_TIMEOUTS} — optional, set to {@code false} to give every agent activity {@code ACTIVITY_TIMEOUT_SECONDS} instead of a timeout fitted to its observed latency, defaults to {@value DEFAULT_ADAPTIVE_TIMEOUTS}</li>
+ *   <li>{@code ADAPTIVE_TIMEOUT_MIN_SECONDS} — optional, lower bound of a fitted agent timeout, defaults to {@value DEFAULT_ADAPTIVE_TIMEOUT_MIN_SECONDS}</li>
+ *   <li>{@code ADAPTIVE_TIMEOUT_MAX_SECONDS} — optional, upper bound of a fitted agent timeout, defaults to {@value DEFAULT_ADAPTIVE_TIMEOUT_MAX_SECONDS}</li>
+ *   <li>{@code RESULT_CACHE_TTL_SECONDS} — optional, how long a completed review is reused for identical submissions, defaults to {@value DEFAULT_RESULT_CACHE_TTL_SECONDS}</li>
+ *   <li>{@code ASYNC_AGENT_ACTIVITIES} — optional, set to {@code false} to hold an activity thread for the whole LLM call of an agent activity instead of completing it asynchronously, defaults to {@value DEFAULT_ASYNC_AGENT_ACTIVITIES}</li>
+ *   <li>{@code LLM_MAX_CONCURRENT_REQUESTS} — optional, LLM requests a worker process has in flight at once, defaults to {@value DEFAULT_LLM_MAX_CONCURRENT_REQUESTS}</li>
+ *   <li>{@code LLM_STREAMING} — optional, set to {@code false} to read each LLM response whole instead of as a stream of server-sent events, defaults to {@value DEFAULT_LLM_STREAMING}</li>
+ *   <li>{@code LLM_RATE_LIMITER} — optional, set to {@code false} to send LLM requests without first waiting for the rate limits learned from the API's headers, defaults to {@value DEFAULT_LLM_RATE_LIMITER}</li>
+ *   <li>{@code LLM_CACHE} — optional, set to {@code false} to send every LLM request to the API instead of answering repeats from the response cache, defaults to {@value DEFAULT_LLM_CACHE}</li>
+ *   <li>{@code LLM_CACHE_MEMORY_ENTRIES} — optional, LLM responses kept in memory per process, defaults to {@value DEFAULT_LLM_CACHE_MEMORY_ENTRIES}</li>
+ *   <li>{@code LLM_CACHE_STORE} — optional, {@code none}, {@code filesystem} or {@code postgres}; where cached LLM responses are kept beyond memory, defaults to {@value DEFAULT_LLM_CACHE_STORE}</li>
+ *   <li>{@code LLM_CACHE_DIR} — optional, directory of the {@code filesystem} LLM response cache, defaults to {@code <java.io.tmpdir>/pr-review-llm-cache}</li>
+ *   <li>{@code LLM_CACHE_LOCK_SECONDS} — optional, how long other workers wait on a {@code postgres}-cached LLM request another worker is answering before calling the LLM themselves, defaults to {@value DEFAULT_LLM_CACHE_LOCK_SECONDS}</li>
+ *   <li>{@code LLM_CACHE_TTL_SECONDS} — optional, how long a cached LLM response is reused, defaults to {@value DEFAULT_LLM_CACHE_TTL_SECONDS}</li>
+ *   <li>{@code LLM_CACHE_MAX_MB} — optional, size of the stored LLM response cache before the least recently used entries are evicted, defaults to {@value DEFAULT_LLM_CACHE_MAX_MB}</li>
  *   <li>{@code DUMMY_MODE} — optional, set to {@code true} to skip real LLM calls</li>
+ *   <li>{@code SHARD_MAX_TOKENS} — optional, estimated tokens per diff shard before a review is split, defaults to {@value DEFAULT_SHARD_MAX_TOKENS}</li>
+ *   <li>{@code MAX_CONCURRENT_SHARDS} — optional, shard child workflows running at once, defaults to {@value DEFAULT_MAX_CONCURRENT_SHARDS}</li>
+ *   <li>{@code BATCH_PARALLELISM} — optional, reviews running at once in a batch, defaults to {@value DEFAULT_BATCH_PARALLELISM}</li>
+ *   <li>{@code INTERACTIVE_MAX_CONCURRENT_ACTIVITIES} — optional, activities a worker runs at once for the interactive lane, defaults to {@value DEFAULT_INTERACTIVE_MAX_CONCURRENT_ACTIVITIES}</li>
+ *   <li>{@code BULK_MAX_CONCURRENT_ACTIVITIES} — optional, activities a worker runs at once for the bulk lane, defaults to {@value DEFAULT_BULK_MAX_CONCURRENT_ACTIVITIES}</li>
+ *   <li>{@code LEARNING_MAX_CONCURRENT_ACTIVITIES} — optional, learning activities (across all repositories) a learning worker runs at once, defaults to {@value DEFAULT_LEARNING_MAX_CONCURRENT_ACTIVITIES}</li>
+ *   <li>{@code SEPARATE_ACTIVITY_QUEUES} — optional, set to {@code false} to run agent and storage activities on the workflow's own task queue (default {@code true})</li>
+ *   <li>{@code WORKER_POOLS} — optional, comma-separated pools this process serves: {@code workflows}, {@code agents}, {@code storage}; defaults to {@value DEFAULT_WORKER_POOLS}</li>
+ *   <li>{@code AGENT_ACTIVITY_POLLERS} — optional, pollers per agent activity queue, defaults to {@value DEFAULT_AGENT_ACTIVITY_POLLERS}</li>
+ *   <li>{@code AGENT_ACTIVITIES_PER_SECOND} — optional, per-worker rate limit of agent activities, unlimited when unset</li>
+ *   <li>{@code STORAGE_MAX_CONCURRENT_ACTIVITIES} — optional, storage activities a worker runs at once, defaults to {@value DEFAULT_STORAGE_MAX_CONCURRENT_ACTIVITIES}</li>
+ *   <li>{@code STORAGE_ACTIVITY_POLLERS} — optional, pollers per storage activity queue, defaults to {@value DEFAULT_STORAGE_ACTIVITY_POLLERS}</li>
+ *   <li>{@code STORAGE_ACTIVITIES_PER_SECOND} — optional, per-worker rate limit of storage activities, unlimited when unset</li>
+ *   <li>{@code PARALLEL_AGENTS} — optional, set to {@code false} to run the analysis agents one after another (default {@code true})</li>
+ *   <li>{@code DIFF_STORE} — optional, {@code none}, {@code filesystem} or {@code postgres}; where large diffs are kept out of workflow history, defaults to {@value DEFAULT_DIFF_STORE}</li>
+ *   <li>{@code DIFF_STORE_DIR} — optional, directory of the {@code filesystem} diff store, defaults to {@code <java.io.tmpdir>/pr-review-diffs}</li>
+ *   <li>{@code PAYLOAD_COMPRESSION} — optional, set to {@code false} to store Temporal payloads uncompressed (default {@code true})</li>
+ *   <li>{@code PAYLOAD_COMPRESSION_MIN_BYTES} — optional, Temporal payloads at least this large are gzipped, defaults to {@value DEFAULT_PAYLOAD_COMPRESSION_MIN_BYTES}</li>
+ *   <li>{@code DIFF_STORE_MIN_CHARS} — optional, diffs at least this long are stored by reference, defaults to {@value DEFAULT_DIFF_STORE_MIN_CHARS}</li>
+ *   <li>{@code DIFF_STORE_TTL_SECONDS} — optional, how long a stored diff is kept after it was last used, defaults to {@value DEFAULT_DIFF_STORE_TTL_SECONDS}</li>
+ *   <li>{@code DIFF_STORE_MAX_MB} — optional, size of the diff store before the least recently used diffs are evicted, defaults to {@value DEFAULT_DIFF_STORE_MAX_MB}</li>
  * </ul>
  */
 public class AppConfig {
@@ -32,6 +72,52 @@ public class AppConfig {
     public static final String DEFAULT_OPENAI_MODEL = "gpt-5.4-mini";
     public static final int DEFAULT_ACTIVITY_TIMEOUT_SECONDS = 60;
     public static final int DEFAULT_RETRY_INTERVAL_SECONDS = 5;
+    public static final int DEFAULT_LOCAL_ACTIVITY_TIMEOUT_SECONDS = 10;
+    public static final int DEFAULT_AGENT_HEARTBEAT_TIMEOUT_SECONDS = 15;
+    public static final int DEFAULT_REVIEW_LATENCY_BUDGET_SECONDS = 300;
+    public static final int DEFAULT_RESULT_CACHE_TTL_SECONDS = 600;
+    public static final boolean DEFAULT_ADAPTIVE_TIMEOUTS = true;
+    public static final int DEFAULT_ADAPTIVE_TIMEOUT_MIN_SECONDS = 30;
+    public static final int DEFAULT_ADAPTIVE_TIMEOUT_MAX_SECONDS = 300;
+    public static final boolean DEFAULT_ASYNC_AGENT_ACTIVITIES = true;
+    public static final int DEFAULT_LLM_MAX_CONCURRENT_REQUESTS = 256;
+    public static final boolean DEFAULT_LLM_STREAMING = true;
+    public static final boolean DEFAULT_LLM_RATE_LIMITER = true;
+    public static final boolean DEFAULT_LLM_CACHE = true;
+    public static final int DEFAULT_LLM_CACHE_MEMORY_ENTRIES = 512;
+    public static final int DEFAULT_LLM_CACHE_TTL_SECONDS = 7 * 24 * 3600;
+    public static final int DEFAULT_LLM_CACHE_MAX_MB = 512;
+    public static final String DEFAULT_LLM_CACHE_STORE = "filesystem";
+    public static final int DEFAULT_LLM_CACHE_LOCK_SECONDS = 120;
+    public static final boolean DEFAULT_PARALLEL_AGENTS = true;
+    // ~80k characters, comfortably under OpenAiLlmClient.DEFAULT_MAX_DIFF_CHARS once the prompt is added
+    public static final int DEFAULT_SHARD_MAX_TOKENS = 20_000;
+    public static final int DEFAULT_MAX_CONCURRENT_SHARDS = 4;
+    public static final int DEFAULT_BATCH_PARALLELISM = 5;
+    public static final int DEFAULT_INTERACTIVE_MAX_CONCURRENT_ACTIVITIES = 20;
+    public static final int DEFAULT_BULK_MAX_CONCURRENT_ACTIVITIES = 4;
+    public static final int DEFAULT_LEARNING_MAX_CONCURRENT_ACTIVITIES = 4;
+
+    // Review lanes, each served on its own task queue (see getLaneTaskQueue)
+    public static final String LANE_INTERACTIVE = "interactive";
+    public static final String LANE_BULK = "bulk";
+
+    // Worker pools: review workflows, LLM-bound agent activities and
+    // DB-bound storage activities (see activityTaskQueue)
+    public static final String POOL_WORKFLOWS = "workflows";
+    public static final String POOL_AGENTS = "agents";
+    public static final String POOL_STORAGE = "storage";
+    public static final boolean DEFAULT_SEPARATE_ACTIVITY_QUEUES = true;
+    public static final String DEFAULT_WORKER_POOLS = "workflows,agents,storage";
+    public static final int DEFAULT_AGENT_ACTIVITY_POLLERS = 5;
+    public static final int DEFAULT_STORAGE_MAX_CONCURRENT_ACTIVITIES = 50;
+    public static final int DEFAULT_STORAGE_ACTIVITY_POLLERS = 2;
+    public static final String DEFAULT_DIFF_STORE = "none";
+    public static final int DEFAULT_DIFF_STORE_MIN_CHARS = 32_768;
+    public static final int DEFAULT_DIFF_STORE_TTL_SECONDS = 7 * 24 * 3600;
+    public static final int DEFAULT_DIFF_STORE_MAX_MB = 1024;
+    public static final boolean DEFAULT_PAYLOAD_COMPRESSION = true;
+    public static final int DEFAULT_PAYLOAD_COMPRESSION_MIN_BYTES = 4_096;
 
     // Cached values resolved once at startup via validate().
     // Temporal workflows must be deterministic — they must never read
@@ -44,6 +130,45 @@ public class AppConfig {
     private static volatile boolean dummyMode;
     private static volatile int activityTimeoutSeconds;
     private static volatile int retryIntervalSeconds;
+    private static volatile int localActivityTimeoutSeconds;
+    private static volatile int agentHeartbeatTimeoutSeconds;
+    private static volatile int reviewLatencyBudgetSeconds;
+    private static volatile int resultCacheTtlSeconds;
+    private static volatile boolean adaptiveTimeouts;
+    private static volatile int adaptiveTimeoutMinSeconds;
+    private static volatile int adaptiveTimeoutMaxSeconds;
+    private static volatile boolean asyncAgentActivities;
+    private static volatile int llmMaxConcurrentRequests;
+    private static volatile boolean llmStreaming;
+    private static volatile boolean llmRateLimiter;
+    private static volatile boolean llmCache;
+    private static volatile int llmCacheMemoryEntries;
+    private static volatile String llmCacheStore;
+    private static volatile String llmCacheDir;
+    private static volatile int llmCacheLockSeconds;
+    private static volatile int llmCacheTtlSeconds;
+    private static volatile int llmCacheMaxMb;
+    private static volatile boolean parallelAgents;
+    private static volatile int shardMaxTokens;
+    private static volatile int maxConcurrentShards;
+    private static volatile int batchParallelism;
+    private static volatile int interactiveMaxConcurrentActivities;
+    private static volatile int bulkMaxConcurrentActivities;
+    private static volatile int learningMaxConcurrentActivities;
+    private static volatile boolean separateActivityQueues;
+    private static volatile List<String> workerPools;
+    private static volatile int agentActivityPollers;
+    private static volatile int agentActivitiesPerSecond;
+    private static volatile int storageMaxConcurrentActivities;
+    private static volatile int storageActivityPollers;
+    private static volatile int storageActivitiesPerSecond;
+    private static volatile String diffStore;
+    private static volatile String diffStoreDir;
+    private static volatile int diffStoreMinChars;
+    private static volatile int diffStoreTtlSeconds;
+    private static volatile int diffStoreMaxMb;
+    private static volatile boolean payloadCompression;
+    private static volatile int payloadCompressionMinBytes;
     private static volatile boolean validated = false;
 
     private AppConfig() {
@@ -104,6 +229,395 @@ public class AppConfig {
         return retryIntervalSeconds;
     }
 
+    /**
+     * Returns the cached start-to-close timeout, in seconds, of local activities.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLocalActivityTimeoutSeconds() {
+        ensureValidated();
+        return localActivityTimeoutSeconds;
+    }
+
+    /**
+     * Returns the cached heartbeat timeout, in seconds, of the agent activities.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getAgentHeartbeatTimeoutSeconds() {
+        ensureValidated();
+        return agentHeartbeatTimeoutSeconds;
+    }
+
+    /**
+     * Returns the cached default latency budget of a review, in seconds.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getReviewLatencyBudgetSeconds() {
+        ensureValidated();
+        return reviewLatencyBudgetSeconds;
+    }
+
+    /**
+     * Returns the cached time, in seconds, a completed review is reused for identical submissions.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getResultCacheTtlSeconds() {
+        ensureValidated();
+        return resultCacheTtlSeconds;
+    }
+
+    /**
+     * Returns whether agent activity timeouts are fitted to observed latency.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isAdaptiveTimeouts() {
+        ensureValidated();
+        return adaptiveTimeouts;
+    }
+
+    /**
+     * Returns whether agent activities complete asynchronously, releasing their thread during the LLM call.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isAsyncAgentActivities() {
+        ensureValidated();
+        return asyncAgentActivities;
+    }
+
+    /**
+     * Returns the cached number of LLM requests a worker process has in flight at once.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLlmMaxConcurrentRequests() {
+        ensureValidated();
+        return llmMaxConcurrentRequests;
+    }
+
+    /**
+     * Returns whether LLM responses are streamed as server-sent events.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isLlmStreaming() {
+        ensureValidated();
+        return llmStreaming;
+    }
+
+    /**
+     * Returns whether LLM requests wait on the client-side rate limiter before they are sent.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isLlmRateLimiter() {
+        ensureValidated();
+        return llmRateLimiter;
+    }
+
+    /**
+     * Returns whether repeated LLM requests are answered from the response cache.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isLlmCache() {
+        ensureValidated();
+        return llmCache;
+    }
+
+    /**
+     * Returns the cached number of LLM responses kept in memory per process.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLlmCacheMemoryEntries() {
+        ensureValidated();
+        return llmCacheMemoryEntries;
+    }
+
+    /**
+     * Returns the cached LLM response store: {@code none}, {@code filesystem} or {@code postgres}.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static String getLlmCacheStore() {
+        ensureValidated();
+        return llmCacheStore;
+    }
+
+    /**
+     * Returns the cached directory of the filesystem LLM response cache.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static String getLlmCacheDir() {
+        ensureValidated();
+        return llmCacheDir;
+    }
+
+    /**
+     * Returns the cached time, in seconds, a claim on a postgres-cached LLM request lasts.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLlmCacheLockSeconds() {
+        ensureValidated();
+        return llmCacheLockSeconds;
+    }
+
+    /**
+     * Returns the cached time, in seconds, a cached LLM response is reused.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLlmCacheTtlSeconds() {
+        ensureValidated();
+        return llmCacheTtlSeconds;
+    }
+
+    /**
+     * Returns the cached size limit, in megabytes, of the stored LLM response cache.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLlmCacheMaxMb() {
+        ensureValidated();
+        return llmCacheMaxMb;
+    }
+
+    /**
+     * Returns the cached lower bound, in seconds, of a fitted agent timeout.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getAdaptiveTimeoutMinSeconds() {
+        ensureValidated();
+        return adaptiveTimeoutMinSeconds;
+    }
+
+    /**
+     * Returns the cached upper bound, in seconds, of a fitted agent timeout.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getAdaptiveTimeoutMaxSeconds() {
+        ensureValidated();
+        return adaptiveTimeoutMaxSeconds;
+    }
+
+    /**
+     * Returns whether the analysis agents fan out in parallel (cached).
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isParallelAgents() {
+        ensureValidated();
+        return parallelAgents;
+    }
+
+    /**
+     * Returns the cached shard size, in estimated tokens, above which a diff
+     * is reviewed as several shards.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getShardMaxTokens() {
+        ensureValidated();
+        return shardMaxTokens;
+    }
+
+    /**
+     * Returns the cached maximum number of shard child workflows running at once.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getMaxConcurrentShards() {
+        ensureValidated();
+        return maxConcurrentShards;
+    }
+
+    /**
+     * Returns the cached default number of reviews running at once in a batch.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getBatchParallelism() {
+        ensureValidated();
+        return batchParallelism;
+    }
+
+    /**
+     * Returns the cached number of activities a worker runs at once for the interactive lane.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getInteractiveMaxConcurrentActivities() {
+        ensureValidated();
+        return interactiveMaxConcurrentActivities;
+    }
+
+    /**
+     * Returns the cached number of activities a worker runs at once for the bulk lane.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getBulkMaxConcurrentActivities() {
+        ensureValidated();
+        return bulkMaxConcurrentActivities;
+    }
+
+    /**
+     * Returns the cached number of learning activities a learning worker runs at once.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getLearningMaxConcurrentActivities() {
+        ensureValidated();
+        return learningMaxConcurrentActivities;
+    }
+
+    /**
+     * Returns the task queue of a review lane, derived from the cached task queue.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static String getLaneTaskQueue(String lane) {
+        ensureValidated();
+        return laneTaskQueue(taskQueue, lane);
+    }
+
+    /**
+     * Task queue of {@code lane} under {@code baseQueue}: {@code <base>-bulk}
+     * for the bulk lane and {@code <base>-interactive} otherwise, so requests
+     * without a lane are treated as interactive.
+     *
+     * @throws IllegalArgumentException if {@code lane} is not a known lane
+     */
+    public static String laneTaskQueue(String baseQueue, String lane) {
+        if (lane == null || lane.isBlank() || LANE_INTERACTIVE.equalsIgnoreCase(lane.trim())) {
+            return baseQueue + "-" + LANE_INTERACTIVE;
+        }
+        if (LANE_BULK.equalsIgnoreCase(lane.trim())) {
+            return baseQueue + "-" + LANE_BULK;
+        }
+        throw new IllegalArgumentException(
+                "Unknown review lane: " + lane + " (expected " + LANE_INTERACTIVE + " or " + LANE_BULK + ")");
+    }
+
+    /**
+     * Returns whether agent and storage activities run on their own task queues (cached).
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isSeparateActivityQueues() {
+        ensureValidated();
+        return separateActivityQueues;
+    }
+
+    /**
+     * Returns the cached worker pools this process serves.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static List<String> getWorkerPools() {
+        ensureValidated();
+        return workerPools;
+    }
+
+    /**
+     * Returns the cached number of pollers per agent activity queue.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getAgentActivityPollers() {
+        ensureValidated();
+        return agentActivityPollers;
+    }
+
+    /**
+     * Returns the cached per-worker rate limit of agent activities; 0 means unlimited.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getAgentActivitiesPerSecond() {
+        ensureValidated();
+        return agentActivitiesPerSecond;
+    }
+
+    /**
+     * Returns the cached number of storage activities a worker runs at once.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getStorageMaxConcurrentActivities() {
+        ensureValidated();
+        return storageMaxConcurrentActivities;
+    }
+
+    /**
+     * Returns the cached number of pollers per storage activity queue.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getStorageActivityPollers() {
+        ensureValidated();
+        return storageActivityPollers;
+    }
+
+    /**
+     * Returns the cached per-worker rate limit of storage activities; 0 means unlimited.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getStorageActivitiesPerSecond() {
+        ensureValidated();
+        return storageActivitiesPerSecond;
+    }
+
+    /**
+     * Task queue of an activity pool for workflows running on
+     * {@code workflowQueue}, e.g. {@code pr-review-interactive-agents}. Keying
+     * it on the workflow's queue keeps each lane's activities apart.
+     */
+    public static String activityTaskQueue(String workflowQueue, String pool) {
+        return workflowQueue + "-" + pool;
+    }
+
+    /**
+     * Returns the cached diff store type: {@code none}, {@code filesystem} or {@code postgres}.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static String getDiffStore() {
+        ensureValidated();
+        return diffStore;
+    }
+
+    /**
+     * Returns the cached directory of the filesystem diff store.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static String getDiffStoreDir() {
+        ensureValidated();
+        return diffStoreDir;
+    }
+
+    /**
+     * Returns the cached diff length, in characters, from which diffs are
+     * passed by reference instead of inline.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getDiffStoreMinChars() {
+        ensureValidated();
+        return diffStoreMinChars;
+    }
+
+    /**
+     * Returns the cached time, in seconds, a stored diff is kept after its last use.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getDiffStoreTtlSeconds() {
+        ensureValidated();
+        return diffStoreTtlSeconds;
+    }
+
+    /**
+     * Returns the cached size limit, in megabytes, of the diff store.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getDiffStoreMaxMb() {
+        ensureValidated();
+        return diffStoreMaxMb;
+    }
+
+    /**
+     * Returns whether large Temporal payloads are compressed (cached).
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static boolean isPayloadCompression() {
+        ensureValidated();
+        return payloadCompression;
+    }
+
+    /**
+     * Returns the cached payload size, in bytes, from which Temporal payloads are compressed.
+     * Must call {@link #validate()} once before using this method.
+     */
+    public static int getPayloadCompressionMinBytes() {
+        ensureValidated();
+        return payloadCompressionMinBytes;
+    }
+
     /**
      * Resolves all environment variables, validates them, and caches the
      * results.  Must be called exactly once at worker startup (in
@@ -117,6 +631,21 @@ public class AppConfig {
      * @throws IllegalStateException if any required variable is missing or any value is invalid
      */
     public static void validate() {
+        validate(true);
+    }
+
+    /**
+     * Same as {@link #validate()} for processes that only submit workflows
+     * (such as {@code SubmitReviewApp}) and never call the LLM themselves, so
+     * {@code OPENAI_API_KEY} is not required.
+     *
+     * @throws IllegalStateException if any value is invalid
+     */
+    public static void validateForClient() {
+        validate(false);
+    }
+
+    private static void validate(boolean requireLlmCredentials) {
         List<String> errors = new ArrayList<>();
 
         // Resolve all values from the environment once
@@ -124,7 +653,7 @@ public class AppConfig {
                 System.getenv().getOrDefault("DUMMY_MODE", "false"));
 
         // OPENAI_API_KEY is required unless DUMMY_MODE is enabled
-        if (!resolvedDummyMode) {
+        if (requireLlmCredentials && !resolvedDummyMode) {
             String apiKey = System.getenv("OPENAI_API_KEY");
             if (apiKey == null || apiKey.isBlank()) {
                 errors.add("OPENAI_API_KEY is required when DUMMY_MODE is not enabled");
@@ -146,6 +675,277 @@ public class AppConfig {
             errors.add(e.getMessage());
         }
 
+        int resolvedLocalTimeout = DEFAULT_LOCAL_ACTIVITY_TIMEOUT_SECONDS;
+        try {
+            resolvedLocalTimeout = parseIntEnv("LOCAL_ACTIVITY_TIMEOUT_SECONDS", DEFAULT_LOCAL_ACTIVITY_TIMEOUT_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedHeartbeatTimeout = DEFAULT_AGENT_HEARTBEAT_TIMEOUT_SECONDS;
+        try {
+            resolvedHeartbeatTimeout = parseIntEnv("AGENT_HEARTBEAT_TIMEOUT_SECONDS", DEFAULT_AGENT_HEARTBEAT_TIMEOUT_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedLatencyBudget = DEFAULT_REVIEW_LATENCY_BUDGET_SECONDS;
+        try {
+            resolvedLatencyBudget = parseIntEnv("REVIEW_LATENCY_BUDGET_SECONDS", DEFAULT_REVIEW_LATENCY_BUDGET_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedResultCacheTtl = DEFAULT_RESULT_CACHE_TTL_SECONDS;
+        try {
+            resolvedResultCacheTtl = parseIntEnv("RESULT_CACHE_TTL_SECONDS", DEFAULT_RESULT_CACHE_TTL_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedAdaptiveTimeouts = DEFAULT_ADAPTIVE_TIMEOUTS;
+        try {
+            resolvedAdaptiveTimeouts = parseBooleanEnv("ADAPTIVE_TIMEOUTS", DEFAULT_ADAPTIVE_TIMEOUTS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedAsyncAgentActivities = DEFAULT_ASYNC_AGENT_ACTIVITIES;
+        try {
+            resolvedAsyncAgentActivities = parseBooleanEnv("ASYNC_AGENT_ACTIVITIES", DEFAULT_ASYNC_AGENT_ACTIVITIES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedLlmMaxRequests = DEFAULT_LLM_MAX_CONCURRENT_REQUESTS;
+        try {
+            resolvedLlmMaxRequests = parseIntEnv("LLM_MAX_CONCURRENT_REQUESTS", DEFAULT_LLM_MAX_CONCURRENT_REQUESTS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedLlmStreaming = DEFAULT_LLM_STREAMING;
+        try {
+            resolvedLlmStreaming = parseBooleanEnv("LLM_STREAMING", DEFAULT_LLM_STREAMING);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedLlmRateLimiter = DEFAULT_LLM_RATE_LIMITER;
+        try {
+            resolvedLlmRateLimiter = parseBooleanEnv("LLM_RATE_LIMITER", DEFAULT_LLM_RATE_LIMITER);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedLlmCache = DEFAULT_LLM_CACHE;
+        try {
+            resolvedLlmCache = parseBooleanEnv("LLM_CACHE", DEFAULT_LLM_CACHE);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedLlmCacheEntries = DEFAULT_LLM_CACHE_MEMORY_ENTRIES;
+        try {
+            resolvedLlmCacheEntries = parseIntEnv("LLM_CACHE_MEMORY_ENTRIES", DEFAULT_LLM_CACHE_MEMORY_ENTRIES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedLlmCacheTtl = DEFAULT_LLM_CACHE_TTL_SECONDS;
+        try {
+            resolvedLlmCacheTtl = parseIntEnv("LLM_CACHE_TTL_SECONDS", DEFAULT_LLM_CACHE_TTL_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedLlmCacheMaxMb = DEFAULT_LLM_CACHE_MAX_MB;
+        try {
+            resolvedLlmCacheMaxMb = parseIntEnv("LLM_CACHE_MAX_MB", DEFAULT_LLM_CACHE_MAX_MB);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        String resolvedLlmCacheStore = getTrimmedEnvOrDefault("LLM_CACHE_STORE", DEFAULT_LLM_CACHE_STORE).toLowerCase();
+        if (!List.of("none", "filesystem", "postgres").contains(resolvedLlmCacheStore)) {
+            errors.add("LLM_CACHE_STORE must be none, filesystem or postgres, got: " + System.getenv("LLM_CACHE_STORE"));
+        } else if (resolvedLlmCache && "postgres".equals(resolvedLlmCacheStore)
+                && (System.getenv("POSTGRES_URL") == null || System.getenv("POSTGRES_URL").isBlank())) {
+            errors.add("POSTGRES_URL is required when LLM_CACHE_STORE=postgres");
+        }
+
+        int resolvedLlmCacheLock = DEFAULT_LLM_CACHE_LOCK_SECONDS;
+        try {
+            resolvedLlmCacheLock = parseIntEnv("LLM_CACHE_LOCK_SECONDS", DEFAULT_LLM_CACHE_LOCK_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedAdaptiveTimeoutMin = DEFAULT_ADAPTIVE_TIMEOUT_MIN_SECONDS;
+        try {
+            resolvedAdaptiveTimeoutMin = parseIntEnv("ADAPTIVE_TIMEOUT_MIN_SECONDS", DEFAULT_ADAPTIVE_TIMEOUT_MIN_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedAdaptiveTimeoutMax = DEFAULT_ADAPTIVE_TIMEOUT_MAX_SECONDS;
+        try {
+            resolvedAdaptiveTimeoutMax = parseIntEnv("ADAPTIVE_TIMEOUT_MAX_SECONDS", DEFAULT_ADAPTIVE_TIMEOUT_MAX_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        if (resolvedAdaptiveTimeoutMin > resolvedAdaptiveTimeoutMax) {
+            errors.add("ADAPTIVE_TIMEOUT_MIN_SECONDS must not exceed ADAPTIVE_TIMEOUT_MAX_SECONDS");
+        }
+
+        int resolvedShardMaxTokens = DEFAULT_SHARD_MAX_TOKENS;
+        try {
+            resolvedShardMaxTokens = parseIntEnv("SHARD_MAX_TOKENS", DEFAULT_SHARD_MAX_TOKENS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedMaxConcurrentShards = DEFAULT_MAX_CONCURRENT_SHARDS;
+        try {
+            resolvedMaxConcurrentShards = parseIntEnv("MAX_CONCURRENT_SHARDS", DEFAULT_MAX_CONCURRENT_SHARDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedBatchParallelism = DEFAULT_BATCH_PARALLELISM;
+        try {
+            resolvedBatchParallelism = parseIntEnv("BATCH_PARALLELISM", DEFAULT_BATCH_PARALLELISM);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedInteractiveActivities = DEFAULT_INTERACTIVE_MAX_CONCURRENT_ACTIVITIES;
+        try {
+            resolvedInteractiveActivities = parseIntEnv("INTERACTIVE_MAX_CONCURRENT_ACTIVITIES",
+                    DEFAULT_INTERACTIVE_MAX_CONCURRENT_ACTIVITIES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedBulkActivities = DEFAULT_BULK_MAX_CONCURRENT_ACTIVITIES;
+        try {
+            resolvedBulkActivities = parseIntEnv("BULK_MAX_CONCURRENT_ACTIVITIES",
+                    DEFAULT_BULK_MAX_CONCURRENT_ACTIVITIES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedLearningActivities = DEFAULT_LEARNING_MAX_CONCURRENT_ACTIVITIES;
+        try {
+            resolvedLearningActivities = parseIntEnv("LEARNING_MAX_CONCURRENT_ACTIVITIES",
+                    DEFAULT_LEARNING_MAX_CONCURRENT_ACTIVITIES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedSeparateQueues = DEFAULT_SEPARATE_ACTIVITY_QUEUES;
+        try {
+            resolvedSeparateQueues = parseBooleanEnv("SEPARATE_ACTIVITY_QUEUES", DEFAULT_SEPARATE_ACTIVITY_QUEUES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        List<String> resolvedPools = new ArrayList<>();
+        for (String pool : getTrimmedEnvOrDefault("WORKER_POOLS", DEFAULT_WORKER_POOLS).toLowerCase().split(",")) {
+            if (pool.isBlank()) continue;
+            if (!List.of(POOL_WORKFLOWS, POOL_AGENTS, POOL_STORAGE).contains(pool.trim())) {
+                errors.add("WORKER_POOLS entries must be workflows, agents or storage, got: " + pool.trim());
+            } else if (!resolvedPools.contains(pool.trim())) {
+                resolvedPools.add(pool.trim());
+            }
+        }
+        if (resolvedPools.isEmpty()) {
+            errors.add("WORKER_POOLS must name at least one pool");
+        }
+
+        int resolvedAgentPollers = DEFAULT_AGENT_ACTIVITY_POLLERS;
+        int resolvedAgentRate = 0;
+        int resolvedStorageActivities = DEFAULT_STORAGE_MAX_CONCURRENT_ACTIVITIES;
+        int resolvedStoragePollers = DEFAULT_STORAGE_ACTIVITY_POLLERS;
+        int resolvedStorageRate = 0;
+        try {
+            resolvedAgentPollers = parseIntEnv("AGENT_ACTIVITY_POLLERS", DEFAULT_AGENT_ACTIVITY_POLLERS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        try {
+            resolvedAgentRate = parseIntEnv("AGENT_ACTIVITIES_PER_SECOND", 0);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        try {
+            resolvedStorageActivities = parseIntEnv("STORAGE_MAX_CONCURRENT_ACTIVITIES",
+                    DEFAULT_STORAGE_MAX_CONCURRENT_ACTIVITIES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        try {
+            resolvedStoragePollers = parseIntEnv("STORAGE_ACTIVITY_POLLERS", DEFAULT_STORAGE_ACTIVITY_POLLERS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        try {
+            resolvedStorageRate = parseIntEnv("STORAGE_ACTIVITIES_PER_SECOND", 0);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedParallelAgents = DEFAULT_PARALLEL_AGENTS;
+        try {
+            resolvedParallelAgents = parseBooleanEnv("PARALLEL_AGENTS", DEFAULT_PARALLEL_AGENTS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        String resolvedDiffStore = getTrimmedEnvOrDefault("DIFF_STORE", DEFAULT_DIFF_STORE).toLowerCase();
+        if (!List.of("none", "filesystem", "postgres").contains(resolvedDiffStore)) {
+            errors.add("DIFF_STORE must be none, filesystem or postgres, got: " + System.getenv("DIFF_STORE"));
+        } else if ("postgres".equals(resolvedDiffStore)
+                && (System.getenv("POSTGRES_URL") == null || System.getenv("POSTGRES_URL").isBlank())) {
+            errors.add("POSTGRES_URL is required when DIFF_STORE=postgres");
+        }
+
+        int resolvedDiffStoreMinChars = DEFAULT_DIFF_STORE_MIN_CHARS;
+        try {
+            resolvedDiffStoreMinChars = parseIntEnv("DIFF_STORE_MIN_CHARS", DEFAULT_DIFF_STORE_MIN_CHARS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedDiffStoreTtl = DEFAULT_DIFF_STORE_TTL_SECONDS;
+        try {
+            resolvedDiffStoreTtl = parseIntEnv("DIFF_STORE_TTL_SECONDS", DEFAULT_DIFF_STORE_TTL_SECONDS);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedDiffStoreMaxMb = DEFAULT_DIFF_STORE_MAX_MB;
+        try {
+            resolvedDiffStoreMaxMb = parseIntEnv("DIFF_STORE_MAX_MB", DEFAULT_DIFF_STORE_MAX_MB);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        boolean resolvedPayloadCompression = DEFAULT_PAYLOAD_COMPRESSION;
+        try {
+            resolvedPayloadCompression = parseBooleanEnv("PAYLOAD_COMPRESSION", DEFAULT_PAYLOAD_COMPRESSION);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        int resolvedPayloadCompressionMinBytes = DEFAULT_PAYLOAD_COMPRESSION_MIN_BYTES;
+        try {
+            resolvedPayloadCompressionMinBytes = parseIntEnv("PAYLOAD_COMPRESSION_MIN_BYTES",
+                    DEFAULT_PAYLOAD_COMPRESSION_MIN_BYTES);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
         if (!errors.isEmpty()) {
             System.err.println("Configuration errors found at startup:");
             errors.forEach(msg -> System.err.println("  - " + msg));
@@ -161,6 +961,47 @@ public class AppConfig {
         dummyMode = resolvedDummyMode;
         activityTimeoutSeconds = resolvedTimeout;
         retryIntervalSeconds = resolvedRetry;
+        localActivityTimeoutSeconds = resolvedLocalTimeout;
+        agentHeartbeatTimeoutSeconds = resolvedHeartbeatTimeout;
+        reviewLatencyBudgetSeconds = resolvedLatencyBudget;
+        resultCacheTtlSeconds = resolvedResultCacheTtl;
+        adaptiveTimeouts = resolvedAdaptiveTimeouts;
+        adaptiveTimeoutMinSeconds = resolvedAdaptiveTimeoutMin;
+        adaptiveTimeoutMaxSeconds = resolvedAdaptiveTimeoutMax;
+        asyncAgentActivities = resolvedAsyncAgentActivities;
+        llmMaxConcurrentRequests = resolvedLlmMaxRequests;
+        llmStreaming = resolvedLlmStreaming;
+        llmRateLimiter = resolvedLlmRateLimiter;
+        llmCache = resolvedLlmCache;
+        llmCacheMemoryEntries = resolvedLlmCacheEntries;
+        llmCacheStore = resolvedLlmCacheStore;
+        llmCacheDir = getTrimmedEnvOrDefault("LLM_CACHE_DIR",
+                System.getProperty("java.io.tmpdir") + "/pr-review-llm-cache");
+        llmCacheLockSeconds = resolvedLlmCacheLock;
+        llmCacheTtlSeconds = resolvedLlmCacheTtl;
+        llmCacheMaxMb = resolvedLlmCacheMaxMb;
+        parallelAgents = resolvedParallelAgents;
+        shardMaxTokens = resolvedShardMaxTokens;
+        maxConcurrentShards = resolvedMaxConcurrentShards;
+        batchParallelism = resolvedBatchParallelism;
+        interactiveMaxConcurrentActivities = resolvedInteractiveActivities;
+        bulkMaxConcurrentActivities = resolvedBulkActivities;
+        learningMaxConcurrentActivities = resolvedLearningActivities;
+        separateActivityQueues = resolvedSeparateQueues;
+        workerPools = Collections.unmodifiableList(resolvedPools);
+        agentActivityPollers = resolvedAgentPollers;
+        agentActivitiesPerSecond = resolvedAgentRate;
+        storageMaxConcurrentActivities = resolvedStorageActivities;
+        storageActivityPollers = resolvedStoragePollers;
+        storageActivitiesPerSecond = resolvedStorageRate;
+        diffStore = resolvedDiffStore;
+        diffStoreDir = getTrimmedEnvOrDefault("DIFF_STORE_DIR",
+                System.getProperty("java.io.tmpdir") + "/pr-review-diffs");
+        diffStoreMinChars = resolvedDiffStoreMinChars;
+        diffStoreTtlSeconds = resolvedDiffStoreTtl;
+        diffStoreMaxMb = resolvedDiffStoreMaxMb;
+        payloadCompression = resolvedPayloadCompression;
+        payloadCompressionMinBytes = resolvedPayloadCompressionMinBytes;
         validated = true;
 
         // Log resolved configuration
@@ -169,7 +1010,42 @@ public class AppConfig {
         System.out.println("  TASK_QUEUE                    : " + taskQueue);
         System.out.println("  ACTIVITY_TIMEOUT_SECONDS      : " + activityTimeoutSeconds);
         System.out.println("  ACTIVITY_RETRY_INTERVAL_SECONDS: " + retryIntervalSeconds);
+        System.out.println("  LOCAL_ACTIVITY_TIMEOUT_SECONDS: " + localActivityTimeoutSeconds);
+        System.out.println("  AGENT_HEARTBEAT_TIMEOUT_SECONDS: " + agentHeartbeatTimeoutSeconds);
+        System.out.println("  REVIEW_LATENCY_BUDGET_SECONDS : " + reviewLatencyBudgetSeconds);
+        System.out.println("  RESULT_CACHE_TTL_SECONDS      : " + resultCacheTtlSeconds);
+        System.out.println("  ADAPTIVE_TIMEOUTS             : " + adaptiveTimeouts
+                + " (" + adaptiveTimeoutMinSeconds + "-" + adaptiveTimeoutMaxSeconds + "s)");
         System.out.println("  OPENAI_MODEL                  : " + openAiModel);
+        System.out.println("  LLM_MAX_CONCURRENT_REQUESTS   : " + llmMaxConcurrentRequests
+                + (asyncAgentActivities ? " (async agent activities)" : " (blocking agent activities)"));
+        System.out.println("  LLM_STREAMING                 : " + llmStreaming);
+        System.out.println("  LLM_RATE_LIMITER              : " + llmRateLimiter);
+        System.out.println("  LLM_CACHE                     : " + llmCache
+                + (llmCache ? " (" + llmCacheMemoryEntries + " in memory, " + llmCacheMaxMb + " MB in "
+                        + ("filesystem".equals(llmCacheStore) ? llmCacheDir : llmCacheStore)
+                        + ", TTL " + llmCacheTtlSeconds + "s)" : ""));
+        System.out.println("  PARALLEL_AGENTS               : " + parallelAgents);
+        System.out.println("  SHARD_MAX_TOKENS              : " + shardMaxTokens);
+        System.out.println("  MAX_CONCURRENT_SHARDS         : " + maxConcurrentShards);
+        System.out.println("  BATCH_PARALLELISM             : " + batchParallelism);
+        System.out.println("  LANE CONCURRENCY              : " + interactiveMaxConcurrentActivities
+                + " interactive, " + bulkMaxConcurrentActivities + " bulk");
+        System.out.println("  LEARNING_MAX_CONCURRENT_ACTIVITIES: " + learningMaxConcurrentActivities);
+        System.out.println("  WORKER_POOLS                  : " + String.join(",", workerPools)
+                + (separateActivityQueues ? " (separate activity queues)" : " (shared task queue)"));
+        System.out.println("  AGENT ACTIVITIES              : " + agentActivityPollers + " pollers, "
+                + (agentActivitiesPerSecond > 0 ? agentActivitiesPerSecond + "/s" : "no rate limit"));
+        System.out.println("  STORAGE ACTIVITIES            : " + storageMaxConcurrentActivities + " concurrent, "
+                + storageActivityPollers + " pollers, "
+                + (storageActivitiesPerSecond > 0 ? storageActivitiesPerSecond + "/s" : "no rate limit"));
+        System.out.println("  DIFF_STORE                    : " + diffStore
+                + ("filesystem".equals(diffStore) ? " (" + diffStoreDir + ")" : "")
+                + ("none".equals(diffStore) ? ""
+                        : " (" + diffStoreMaxMb + " MB, TTL " + diffStoreTtlSeconds + "s since last use)"));
+        System.out.println("  DIFF_STORE_MIN_CHARS          : " + diffStoreMinChars);
+        System.out.println("  PAYLOAD_COMPRESSION           : " + payloadCompression
+                + (payloadCompression ? " (>= " + payloadCompressionMinBytes + " bytes)" : ""));
     }
 
     private static void ensureValidated() {
@@ -212,4 +1088,20 @@ public class AppConfig {
                     name + " must be a valid integer, got: " + raw);
         }
     }
+
+    private static boolean parseBooleanEnv(String name, boolean defaultValue) {
+        String raw = System.getenv(name);
+        if (raw == null || raw.isBlank()) {
+            return defaultValue;
+        }
+        String value = raw.trim();
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException(
+                name + " must be true or false, got: " + raw);
+    }
 }
@@ -1,9 +1,11 @@
 package com.utm.temporal.db;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.model.*;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -59,6 +61,11 @@ public class DatabaseClient {
         }
     }
 
+    /** Whether a database is configured (POSTGRES_URL was set). */
+    public boolean isConfigured() {
+        return jdbcUrl != null;
+    }
+
     private Connection getConnection() throws SQLException {
         return DriverManager.getConnection(jdbcUrl, connectionProps);
     }
@@ -89,21 +96,25 @@ public class DatabaseClient {
 
     public int saveReviewRun(int pullRequestId, String reviewId, int learningVersion,
                               String overallRecommendation, List<AgentResult> agentResults,
-                              long tookMs, String model) throws SQLException {
+                              long tookMs, String model, String headSha,
+                              Map<String, List<String>> fileHunkHashes, Integer diffChars) throws SQLException {
         String agentResultsJson;
+        String fileHunkHashesJson;
         try {
             agentResultsJson = objectMapper.writeValueAsString(agentResults);
+            fileHunkHashesJson = fileHunkHashes != null ? objectMapper.writeValueAsString(fileHunkHashes) : null;
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize agent results", e);
         }
 
         String sql = "INSERT INTO review_runs (pull_request_id, review_id, learning_version, " +
-                     "overall_recommendation, agent_results_json, took_ms, model) " +
-                     "VALUES (?, ?, ?, ?, ?::jsonb, ?, ?) " +
+                     "overall_recommendation, agent_results_json, took_ms, model, head_sha, file_hunk_hashes, diff_chars) " +
+                     "VALUES (?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?::jsonb, ?) " +
                      "ON CONFLICT (review_id) DO UPDATE SET pull_request_id = review_runs.pull_request_id " +
-                     "RETURNING id";
+                     "RETURNING id, (xmax = 0) AS inserted";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
             stmt.setInt(1, pullRequestId);
             stmt.setString(2, reviewId);
             stmt.setInt(3, learningVersion);
@@ -111,9 +122,261 @@ public class DatabaseClient {
             stmt.setString(5, agentResultsJson);
             stmt.setLong(6, tookMs);
             stmt.setString(7, model);
+            stmt.setString(8, headSha);
+            stmt.setString(9, fileHunkHashesJson);
+            if (diffChars != null) {
+                stmt.setInt(10, diffChars);
+            } else {
+                stmt.setNull(10, Types.INTEGER);
+            }
             ResultSet rs = stmt.executeQuery();
             rs.next();
-            return rs.getInt(1);
+            int reviewRunId = rs.getInt(1);
+            // A retried recording finds its row already there and is not counted again
+            if (rs.getBoolean("inserted")) {
+                EvaluationCounters delta = new EvaluationCounters();
+                delta.totalReviews = 1;
+                addToEvaluationCounters(conn, repositoryOf(conn, REPOSITORY_OF_PULL_REQUEST, pullRequestId), delta);
+            }
+            conn.commit();
+            return reviewRunId;
+        }
+    }
+
+    /** Stores a diff by its hash; storing one already there only marks it used. */
+    public void saveDiff(String hash, String diff) throws SQLException {
+        String sql = "INSERT INTO diff_blobs (hash, size_chars, diff) VALUES (?, ?, ?) " +
+                     "ON CONFLICT (hash) DO UPDATE SET last_used_at = NOW()";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            stmt.setInt(2, diff.length());
+            stmt.setString(3, diff);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** Loads the diff stored under {@code hash}, marking it used; null if there is none. */
+    public String loadDiff(String hash) throws SQLException {
+        String sql = "UPDATE diff_blobs SET last_used_at = NOW() WHERE hash = ? RETURNING diff";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    /** Marks the diff stored under {@code hash} used, without reading it. */
+    public void touchDiff(String hash) throws SQLException {
+        String sql = "UPDATE diff_blobs SET last_used_at = NOW() WHERE hash = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes diffs unused for {@code ttlSeconds}, then, if the remaining
+     * diffs exceed {@code maxChars}, the least recently used ones until
+     * {@code targetChars} remain. Returns the rows deleted.
+     */
+    public int evictDiffs(int ttlSeconds, long maxChars, long targetChars) throws SQLException {
+        String expireSql = "DELETE FROM diff_blobs WHERE last_used_at <= NOW() - ? * INTERVAL '1 second'";
+        String trimSql = "DELETE FROM diff_blobs WHERE hash IN (" +
+                         "SELECT hash FROM (" +
+                         "SELECT hash, SUM(size_chars) OVER (ORDER BY last_used_at DESC, hash) AS kept_chars " +
+                         "FROM diff_blobs) ranked " +
+                         "WHERE kept_chars > ?) " +
+                         "AND (SELECT COALESCE(SUM(size_chars), 0) FROM diff_blobs) > ?";
+        try (Connection conn = getConnection();
+             PreparedStatement expire = conn.prepareStatement(expireSql);
+             PreparedStatement trim = conn.prepareStatement(trimSql)) {
+            expire.setInt(1, ttlSeconds);
+            int deleted = expire.executeUpdate();
+            trim.setLong(1, targetChars);
+            trim.setLong(2, maxChars);
+            return deleted + trim.executeUpdate();
+        }
+    }
+
+    // ============================================================
+    // Shared LLM response cache (LLM_CACHE_STORE=postgres)
+    // ============================================================
+
+    /**
+     * Loads the answer cached under {@code key} if it is younger than
+     * {@code ttlSeconds}, marking it used; null on a miss or while the key is
+     * only claimed.
+     */
+    public CachedLlmResponse loadLlmResponse(String key, int ttlSeconds) throws SQLException {
+        String sql = "UPDATE llm_responses SET last_used_at = NOW() " +
+                     "WHERE cache_key = ? AND response IS NOT NULL " +
+                     "AND created_at > NOW() - ? * INTERVAL '1 second' " +
+                     "RETURNING response, prompt_tokens, completion_tokens, created_at";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setInt(2, ttlSeconds);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            return new CachedLlmResponse(rs.getString("response"), rs.getInt("prompt_tokens"),
+                    rs.getInt("completion_tokens"), rs.getTimestamp("created_at").getTime());
+        }
+    }
+
+    /**
+     * Claims {@code key} for {@code lockSeconds} so that only the caller asks
+     * the LLM for it. Succeeds when the key is absent, its answer is older
+     * than {@code ttlSeconds}, or an earlier claim has lapsed.
+     */
+    public boolean claimLlmResponse(String key, String model, int lockSeconds, int ttlSeconds) throws SQLException {
+        String sql = "INSERT INTO llm_responses (cache_key, model, claimed_until) " +
+                     "VALUES (?, ?, NOW() + ? * INTERVAL '1 second') " +
+                     "ON CONFLICT (cache_key) DO UPDATE SET model = EXCLUDED.model, " +
+                     "claimed_until = EXCLUDED.claimed_until, response = NULL, prompt_tokens = NULL, " +
+                     "completion_tokens = NULL, size_bytes = 0, created_at = NOW(), last_used_at = NOW() " +
+                     "WHERE (llm_responses.response IS NULL AND llm_responses.claimed_until < NOW()) " +
+                     "OR (llm_responses.response IS NOT NULL " +
+                     "AND llm_responses.created_at <= NOW() - ? * INTERVAL '1 second') " +
+                     "RETURNING cache_key";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setString(2, model);
+            stmt.setInt(3, lockSeconds);
+            stmt.setInt(4, ttlSeconds);
+            return stmt.executeQuery().next();
+        }
+    }
+
+    /** Stores the answer for {@code key}, replacing any claim or older answer. */
+    public void saveLlmResponse(String key, String model, CachedLlmResponse response) throws SQLException {
+        String sql = "INSERT INTO llm_responses (cache_key, model, response, prompt_tokens, completion_tokens, " +
+                     "size_bytes, created_at, last_used_at, claimed_until) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW(), NULL) " +
+                     "ON CONFLICT (cache_key) DO UPDATE SET model = EXCLUDED.model, response = EXCLUDED.response, " +
+                     "prompt_tokens = EXCLUDED.prompt_tokens, completion_tokens = EXCLUDED.completion_tokens, " +
+                     "size_bytes = EXCLUDED.size_bytes, created_at = NOW(), last_used_at = NOW(), " +
+                     "claimed_until = NULL";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setString(2, model);
+            stmt.setString(3, response.content);
+            stmt.setInt(4, response.promptTokens);
+            stmt.setInt(5, response.completionTokens);
+            stmt.setInt(6, response.content == null ? 0
+                    : response.content.getBytes(StandardCharsets.UTF_8).length);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** Deletes the answer or claim stored under {@code key}. */
+    public void deleteLlmResponse(String key) throws SQLException {
+        String sql = "DELETE FROM llm_responses WHERE cache_key = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** Drops the claim on {@code key}, leaving a stored answer alone. */
+    public void releaseLlmResponseClaim(String key) throws SQLException {
+        String sql = "DELETE FROM llm_responses WHERE cache_key = ? AND response IS NULL";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes answers older than {@code ttlSeconds} and lapsed claims, then,
+     * if the remaining answers exceed {@code maxBytes}, the least recently
+     * used ones until {@code targetBytes} remain. Returns the rows deleted.
+     */
+    public int evictLlmResponses(int ttlSeconds, long maxBytes, long targetBytes) throws SQLException {
+        String expireSql = "DELETE FROM llm_responses " +
+                           "WHERE (response IS NOT NULL AND created_at <= NOW() - ? * INTERVAL '1 second') " +
+                           "OR (response IS NULL AND claimed_until < NOW())";
+        String trimSql = "DELETE FROM llm_responses WHERE cache_key IN (" +
+                         "SELECT cache_key FROM (" +
+                         "SELECT cache_key, SUM(size_bytes) OVER (ORDER BY last_used_at DESC, cache_key) AS kept_bytes " +
+                         "FROM llm_responses WHERE response IS NOT NULL) ranked " +
+                         "WHERE kept_bytes > ?) " +
+                         "AND (SELECT COALESCE(SUM(size_bytes), 0) FROM llm_responses) > ?";
+        try (Connection conn = getConnection();
+             PreparedStatement expire = conn.prepareStatement(expireSql);
+             PreparedStatement trim = conn.prepareStatement(trimSql)) {
+            expire.setInt(1, ttlSeconds);
+            int deleted = expire.executeUpdate();
+            trim.setLong(1, targetBytes);
+            trim.setLong(2, maxBytes);
+            return deleted + trim.executeUpdate();
+        }
+    }
+
+    /**
+     * Loads the most recent review of a PR, or null if it has never been reviewed.
+     */
+    public PreviousReview loadLastReview(String repository, int prNumber) throws SQLException {
+        String sql = "SELECT rr.review_id, rr.head_sha, rr.file_hunk_hashes, rr.agent_results_json " +
+                     "FROM review_runs rr " +
+                     "JOIN pull_requests pr ON rr.pull_request_id = pr.id " +
+                     "WHERE pr.repository = ? AND pr.pr_number = ? " +
+                     "ORDER BY rr.reviewed_at DESC, rr.id DESC LIMIT 1";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, repository);
+            stmt.setInt(2, prNumber);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            PreviousReview previous = new PreviousReview();
+            previous.reviewId = rs.getString("review_id");
+            previous.headSha = rs.getString("head_sha");
+            try {
+                String hashesJson = rs.getString("file_hunk_hashes");
+                if (hashesJson != null) {
+                    previous.fileHunkHashes = objectMapper.readValue(hashesJson,
+                            new TypeReference<Map<String, List<String>>>() {});
+                }
+                previous.agentResults = objectMapper.readValue(rs.getString("agent_results_json"),
+                        new TypeReference<List<AgentResult>>() {});
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to parse review run " + previous.reviewId, e);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Loads the per-agent latencies of the most recent {@code limit} reviews
+     * that recorded both a diff size and agent latencies, newest first.
+     */
+    public List<AgentLatencySample> loadAgentLatencies(int limit) throws SQLException {
+        String sql = "SELECT r.diff_chars, a->>'agentName' AS agent_name, (a->>'latencyMs')::bigint AS latency_ms " +
+                     "FROM (SELECT diff_chars, agent_results_json, reviewed_at, id FROM review_runs " +
+                     "      WHERE diff_chars IS NOT NULL ORDER BY reviewed_at DESC, id DESC LIMIT ?) r, " +
+                     "     jsonb_array_elements(r.agent_results_json) a " +
+                     "WHERE (a->>'latencyMs')::bigint > 0 " +
+                     "ORDER BY r.reviewed_at DESC, r.id DESC";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            ResultSet rs = stmt.executeQuery();
+            List<AgentLatencySample> samples = new ArrayList<>();
+            while (rs.next()) {
+                samples.add(new AgentLatencySample(rs.getString("agent_name"),
+                        rs.getInt("diff_chars"), rs.getLong("latency_ms")));
+            }
+            return samples;
         }
     }
 
@@ -122,6 +385,8 @@ public class DatabaseClient {
                      "VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            EvaluationCounters delta = new EvaluationCounters();
             for (AgentResult result : agentResults) {
                 if (result.findings == null) continue;
                 for (String finding : result.findings) {
@@ -131,9 +396,12 @@ public class DatabaseClient {
                     stmt.setString(4, finding);
                     stmt.setString(5, result.recommendation);
                     stmt.addBatch();
+                    delta.totalFindings++;
                 }
             }
             stmt.executeBatch();
+            addToEvaluationCounters(conn, repositoryOf(conn, REPOSITORY_OF_REVIEW_RUN, reviewRunId), delta);
+            conn.commit();
         }
     }
 
@@ -141,6 +409,20 @@ public class DatabaseClient {
     // Outcome Collection (Phase 3)
     // ============================================================
 
+    /** Repositories enabled in {@code learning_repositories}, in name order. */
+    public List<String> loadLearningRepositories() throws SQLException {
+        String sql = "SELECT repository FROM learning_repositories WHERE enabled ORDER BY repository";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            ResultSet rs = stmt.executeQuery();
+            List<String> repositories = new ArrayList<>();
+            while (rs.next()) {
+                repositories.add(rs.getString(1));
+            }
+            return repositories;
+        }
+    }
+
     public List<ReviewOutcome> loadPendingOutcomes(String repository) throws SQLException {
         String sql = "SELECT rr.review_id, pr.pr_number, pr.pr_title, pr.author, " +
                      "rr.overall_recommendation, rr.reviewed_at, rr.learning_version " +
@@ -170,25 +452,49 @@ public class DatabaseClient {
 
     public void updatePullRequestStatus(String repository, int prNumber,
                                          String status, String mergedAt, String closedAt) throws SQLException {
+        String lockSql = "SELECT status FROM pull_requests WHERE repository = ? AND pr_number = ? FOR UPDATE";
         String sql = "UPDATE pull_requests SET status = ?, merged_at = ?::timestamptz, closed_at = ?::timestamptz " +
                      "WHERE repository = ? AND pr_number = ?";
         try (Connection conn = getConnection();
+             PreparedStatement lock = conn.prepareStatement(lockSql);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            lock.setString(1, repository);
+            lock.setInt(2, prNumber);
+            ResultSet rs = lock.executeQuery();
+            String previousStatus = rs.next() ? rs.getString(1) : null;
+
             stmt.setString(1, status);
             stmt.setString(2, mergedAt);
             stmt.setString(3, closedAt);
             stmt.setString(4, repository);
             stmt.setInt(5, prNumber);
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                EvaluationCounters delta = new EvaluationCounters();
+                delta.mergedPRs = ("MERGED".equals(status) ? 1 : 0) - ("MERGED".equals(previousStatus) ? 1 : 0);
+                addToEvaluationCounters(conn, repository, delta);
+            }
+            conn.commit();
         }
     }
 
     public void savePostMergeOutcome(int pullRequestId, boolean hadRevert, Integer revertPrNumber,
                                       boolean hadFollowUpFixes) throws SQLException {
+        // Locking the PR serializes outcomes for it, so only its first buggy one is counted
+        String lockSql = "SELECT repository, EXISTS (SELECT 1 FROM post_merge_outcomes " +
+                         "WHERE pull_request_id = pr.id AND (had_revert = true OR had_follow_up_fixes = true)) " +
+                         "FROM pull_requests pr WHERE id = ? FOR UPDATE";
         String sql = "INSERT INTO post_merge_outcomes (pull_request_id, had_revert, revert_pr_number, had_follow_up_fixes) " +
                      "VALUES (?, ?, ?, ?)";
         try (Connection conn = getConnection();
+             PreparedStatement lock = conn.prepareStatement(lockSql);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            lock.setInt(1, pullRequestId);
+            ResultSet rs = lock.executeQuery();
+            String repository = rs.next() ? rs.getString(1) : null;
+            boolean alreadyBuggy = repository != null && rs.getBoolean(2);
+
             stmt.setInt(1, pullRequestId);
             stmt.setBoolean(2, hadRevert);
             if (revertPrNumber != null) {
@@ -198,6 +504,12 @@ public class DatabaseClient {
             }
             stmt.setBoolean(4, hadFollowUpFixes);
             stmt.executeUpdate();
+            if ((hadRevert || hadFollowUpFixes) && !alreadyBuggy) {
+                EvaluationCounters delta = new EvaluationCounters();
+                delta.mergedPRsWithBugs = 1;
+                addToEvaluationCounters(conn, repository, delta);
+            }
+            conn.commit();
         }
     }
 
@@ -207,11 +519,21 @@ public class DatabaseClient {
                      "ON CONFLICT (finding_id) DO UPDATE SET disposition = EXCLUDED.disposition, " +
                      "evidence = EXCLUDED.evidence, determined_at = NOW()";
         try (Connection conn = getConnection();
+             PreparedStatement lock = conn.prepareStatement(
+                     "SELECT disposition FROM finding_outcomes WHERE finding_id = ? FOR UPDATE");
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            lock.setInt(1, findingId);
+            ResultSet rs = lock.executeQuery();
+            String previousDisposition = rs.next() ? rs.getString(1) : null;
+
             stmt.setInt(1, findingId);
             stmt.setString(2, disposition);
             stmt.setString(3, evidence);
             stmt.executeUpdate();
+            addToEvaluationCounters(conn, repositoryOf(conn, REPOSITORY_OF_FINDING, findingId),
+                    dispositionDelta(previousDisposition, disposition));
+            conn.commit();
         }
     }
 
@@ -662,44 +984,153 @@ public class DatabaseClient {
         }
     }
 
-    public int countFindingsForRepo(String repository) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM findings f " +
-                     "JOIN review_runs rr ON f.review_run_id = rr.id " +
-                     "JOIN pull_requests pr ON rr.pull_request_id = pr.id " +
-                     "WHERE pr.repository = ?";
+    /**
+     * Running evaluation totals for {@code repository}. The first call for a
+     * repository seeds its row from the full history; after that the row is
+     * kept current by the writes that record reviews and outcomes, so this is
+     * a single-row read however much history there is.
+     */
+    public EvaluationCounters loadEvaluationCounters(String repository) throws SQLException {
+        String sql = "SELECT total_reviews, total_findings, merged_prs, merged_prs_with_bugs, " +
+                     "findings_with_outcome, accepted_findings, dismissed_findings " +
+                     "FROM evaluation_counters WHERE repository = ?";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, repository);
             ResultSet rs = stmt.executeQuery();
-            rs.next();
-            return rs.getInt(1);
+            if (!rs.next()) {
+                conn.setAutoCommit(false);
+                try {
+                    seedEvaluationCounters(conn, repository);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                rs = stmt.executeQuery();
+                rs.next();
+            }
+            EvaluationCounters counters = new EvaluationCounters();
+            counters.totalReviews = rs.getInt("total_reviews");
+            counters.totalFindings = rs.getInt("total_findings");
+            counters.mergedPRs = rs.getInt("merged_prs");
+            counters.mergedPRsWithBugs = rs.getInt("merged_prs_with_bugs");
+            counters.findingsWithOutcome = rs.getInt("findings_with_outcome");
+            counters.acceptedFindings = rs.getInt("accepted_findings");
+            counters.dismissedFindings = rs.getInt("dismissed_findings");
+            return counters;
         }
     }
 
-    public int countMergedPRsWithBugs(String repository) throws SQLException {
-        String sql = "SELECT COUNT(DISTINCT pr.id) FROM pull_requests pr " +
-                     "JOIN post_merge_outcomes pmo ON pr.id = pmo.pull_request_id " +
-                     "WHERE pr.repository = ? AND (pmo.had_revert = true OR pmo.had_follow_up_fixes = true)";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, repository);
+    /**
+     * Counts {@code repository}'s history into a new counters row, inside the
+     * caller's transaction. Until the row exists, writes leave the counters
+     * alone and are picked up here: the seed holds the repository's counters
+     * lock exclusively, so it counts only after every writer that missed the
+     * row has committed, and writers that come later wait for the row.
+     */
+    private static void seedEvaluationCounters(Connection conn, String repository) throws SQLException {
+        lockEvaluationCounters(conn, repository, false);
+        String sql = "INSERT INTO evaluation_counters (repository, total_reviews, total_findings, " +
+                     "merged_prs, merged_prs_with_bugs, findings_with_outcome, accepted_findings, dismissed_findings) " +
+                     "SELECT ?, " +
+                     "(SELECT COUNT(*) FROM review_runs rr " +
+                     " JOIN pull_requests pr ON rr.pull_request_id = pr.id WHERE pr.repository = ?), " +
+                     "(SELECT COUNT(*) FROM findings f JOIN review_runs rr ON f.review_run_id = rr.id " +
+                     " JOIN pull_requests pr ON rr.pull_request_id = pr.id WHERE pr.repository = ?), " +
+                     "(SELECT COUNT(*) FROM pull_requests WHERE repository = ? AND status = 'MERGED'), " +
+                     "(SELECT COUNT(DISTINCT pr.id) FROM pull_requests pr " +
+                     " JOIN post_merge_outcomes pmo ON pr.id = pmo.pull_request_id " +
+                     " WHERE pr.repository = ? AND (pmo.had_revert = true OR pmo.had_follow_up_fixes = true)), " +
+                     "o.with_outcome, o.accepted, o.dismissed " +
+                     "FROM (SELECT COUNT(*) AS with_outcome, " +
+                     " COUNT(*) FILTER (WHERE fo.disposition = 'ACCEPTED') AS accepted, " +
+                     " COUNT(*) FILTER (WHERE fo.disposition = 'DISMISSED') AS dismissed " +
+                     " FROM findings f JOIN review_runs rr ON f.review_run_id = rr.id " +
+                     " JOIN pull_requests pr ON rr.pull_request_id = pr.id " +
+                     " JOIN finding_outcomes fo ON f.id = fo.finding_id " +
+                     " WHERE pr.repository = ? AND fo.disposition != 'UNKNOWN') o " +
+                     "ON CONFLICT (repository) DO NOTHING";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= 6; i++) {
+                stmt.setString(i, repository);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    private static final String REPOSITORY_OF_PULL_REQUEST =
+            "SELECT repository FROM pull_requests WHERE id = ?";
+    private static final String REPOSITORY_OF_REVIEW_RUN =
+            "SELECT pr.repository FROM review_runs rr " +
+            "JOIN pull_requests pr ON rr.pull_request_id = pr.id WHERE rr.id = ?";
+    private static final String REPOSITORY_OF_FINDING =
+            "SELECT pr.repository FROM findings f JOIN review_runs rr ON f.review_run_id = rr.id " +
+            "JOIN pull_requests pr ON rr.pull_request_id = pr.id WHERE f.id = ?";
+
+    private static String repositoryOf(Connection conn, String sql, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
-            rs.next();
-            return rs.getInt(1);
+            return rs.next() ? rs.getString(1) : null;
         }
     }
 
-    public int countMergedPRs(String repository) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM pull_requests WHERE repository = ? AND status = 'MERGED'";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Adds {@code delta} to {@code repository}'s counters inside the caller's
+     * transaction. Does nothing until the row has been seeded, as the seed
+     * counts everything committed before it; see {@link #seedEvaluationCounters}.
+     */
+    private static void addToEvaluationCounters(Connection conn, String repository,
+                                                EvaluationCounters delta) throws SQLException {
+        if (repository == null) return;
+        // Shared, so writers only wait for a seed, never for each other
+        lockEvaluationCounters(conn, repository, true);
+        String sql = "UPDATE evaluation_counters SET total_reviews = total_reviews + ?, " +
+                     "total_findings = total_findings + ?, merged_prs = merged_prs + ?, " +
+                     "merged_prs_with_bugs = merged_prs_with_bugs + ?, " +
+                     "findings_with_outcome = findings_with_outcome + ?, " +
+                     "accepted_findings = accepted_findings + ?, dismissed_findings = dismissed_findings + ?, " +
+                     "updated_at = NOW() WHERE repository = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, delta.totalReviews);
+            stmt.setInt(2, delta.totalFindings);
+            stmt.setInt(3, delta.mergedPRs);
+            stmt.setInt(4, delta.mergedPRsWithBugs);
+            stmt.setInt(5, delta.findingsWithOutcome);
+            stmt.setInt(6, delta.acceptedFindings);
+            stmt.setInt(7, delta.dismissedFindings);
+            stmt.setString(8, repository);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** Takes {@code repository}'s counters lock until the end of the caller's transaction. */
+    private static void lockEvaluationCounters(Connection conn, String repository, boolean shared)
+            throws SQLException {
+        String sql = shared ? "SELECT pg_advisory_xact_lock_shared(hashtext(?))"
+                            : "SELECT pg_advisory_xact_lock(hashtext(?))";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, repository);
-            ResultSet rs = stmt.executeQuery();
-            rs.next();
-            return rs.getInt(1);
+            stmt.executeQuery();
         }
     }
 
+    /** Change to the counters when a finding's disposition goes from {@code from} (null if none) to {@code to}. */
+    static EvaluationCounters dispositionDelta(String from, String to) {
+        EvaluationCounters delta = new EvaluationCounters();
+        delta.findingsWithOutcome = hasOutcome(to) - hasOutcome(from);
+        delta.acceptedFindings = ("ACCEPTED".equals(to) ? 1 : 0) - ("ACCEPTED".equals(from) ? 1 : 0);
+        delta.dismissedFindings = ("DISMISSED".equals(to) ? 1 : 0) - ("DISMISSED".equals(from) ? 1 : 0);
+        return delta;
+    }
+
+    private static int hasOutcome(String disposition) {
+        return disposition != null && !"UNKNOWN".equals(disposition) ? 1 : 0;
+    }
+
     // ============================================================
     // Findings for disposition inference (Phase 3)
     // ============================================================
@@ -0,0 +1,89 @@
+package com.utm.temporal.diff;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently used diffs in memory in front of another {@link DiffStore}.
+ * The four analysis agents of one review run on the same worker most of the
+ * time, so only the first of them pays for the fetch.
+ *
+ * <p>A diff read from memory is still marked used in the backing store, at
+ * most once per {@link #TOUCH_INTERVAL}, so the store's eviction does not
+ * delete a diff this worker keeps using while activities on other workers
+ * still need it.
+ */
+public class CachingDiffStore implements DiffStore {
+
+    static final Duration TOUCH_INTERVAL = Duration.ofMinutes(1);
+
+    private final DiffStore delegate;
+    private final Map<String, CachedDiff> cache;
+    private final long touchIntervalMs;
+
+    public CachingDiffStore(DiffStore delegate, int maxEntries) {
+        this(delegate, maxEntries, TOUCH_INTERVAL);
+    }
+
+    CachingDiffStore(DiffStore delegate, int maxEntries, Duration touchInterval) {
+        this.delegate = delegate;
+        this.touchIntervalMs = touchInterval.toMillis();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDiff> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public String put(String diff) {
+        String hash = delegate.put(diff);
+        synchronized (cache) {
+            cache.put(hash, new CachedDiff(diff, System.currentTimeMillis()));
+        }
+        return hash;
+    }
+
+    @Override
+    public String get(String hash) {
+        long nowMs = System.currentTimeMillis();
+        boolean touch = false;
+        CachedDiff cached;
+        synchronized (cache) {
+            cached = cache.get(hash);
+            if (cached != null && nowMs - cached.touchedAtMs >= touchIntervalMs) {
+                cached.touchedAtMs = nowMs;
+                touch = true;
+            }
+        }
+        if (cached != null) {
+            if (touch) {
+                delegate.touch(hash);
+            }
+            return cached.diff;
+        }
+        String diff = delegate.get(hash);
+        synchronized (cache) {
+            cache.put(hash, new CachedDiff(diff, nowMs));
+        }
+        return diff;
+    }
+
+    @Override
+    public void touch(String hash) {
+        delegate.touch(hash);
+    }
+
+    /** A diff held in memory, and when it was last marked used in the backing store. */
+    private static final class CachedDiff {
+        final String diff;
+        long touchedAtMs;  // Guarded by the cache's lock
+
+        CachedDiff(String diff, long touchedAtMs) {
+            this.diff = diff;
+            this.touchedAtMs = touchedAtMs;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.utm.temporal.diff;
+
+import com.utm.temporal.util.Hashes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fingerprints the hunks of a unified diff so a later review of the same PR
+ * can tell which hunks are new or changed since the previous review.
+ *
+ * <p>A hunk is hashed without its {@code @@ -a,b +c,d @@} line, so a hunk that
+ * only moved because an earlier hunk in the same file grew or shrank keeps its
+ * hash. A file section without hunks (binary files, pure renames) is hashed as
+ * a whole.
+ *
+ * <p>Like {@link DiffSharder} this is pure, deterministic string processing
+ * and is safe to call from workflow code.
+ */
+public final class DiffFingerprint {
+
+    private static final int HASH_HEX_CHARS = 16;
+
+    private DiffFingerprint() {
+        // utility class
+    }
+
+    /**
+     * Returns the hunk hashes of every file in {@code diff}, keyed by file path
+     * in diff order. Text before the first file header is ignored.
+     */
+    public static Map<String, List<String>> hunkHashes(String diff) {
+        Map<String, List<String>> hashes = new LinkedHashMap<>();
+        if (diff == null || diff.isEmpty()) {
+            return hashes;
+        }
+        for (String section : DiffSharder.splitFiles(diff)) {
+            String path = filePath(section);
+            if (path == null) continue;
+            List<String> fileHashes = hashes.computeIfAbsent(path, k -> new ArrayList<>());
+            for (String hunk : DiffSharder.splitHunks(section)) {
+                fileHashes.add(hash(hunkBody(hunk)));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the part of {@code diff} that is not covered by {@code previous}
+     * hunk hashes: every hunk whose hash was not seen for the same file, under
+     * that file's header. Returns an empty string when nothing changed.
+     */
+    public static String changedHunks(String diff, Map<String, List<String>> previous) {
+        StringBuilder changed = new StringBuilder();
+        if (diff == null || diff.isEmpty()) {
+            return "";
+        }
+        for (String section : DiffSharder.splitFiles(diff)) {
+            String path = filePath(section);
+            if (path == null) continue;
+            List<String> seenList = previous != null ? previous.get(path) : null;
+            Set<String> seen = seenList != null ? new HashSet<>(seenList) : Set.of();
+
+            StringBuilder kept = new StringBuilder();
+            for (String hunk : DiffSharder.splitHunks(section)) {
+                if (!seen.contains(hash(hunkBody(hunk)))) {
+                    kept.append(hunk);
+                }
+            }
+            if (kept.length() > 0) {
+                changed.append(header(section)).append(kept);
+            }
+        }
+        return changed.toString();
+    }
+
+    /** File paths touched by {@code diff}, in diff order. */
+    public static List<String> filePaths(String diff) {
+        return new ArrayList<>(hunkHashes(diff).keySet());
+    }
+
+    /**
+     * Path of the file a section describes, taken from the {@code b/} side of
+     * its {@code diff --git} line, or null for text that is not a file section.
+     */
+    static String filePath(String section) {
+        if (!section.startsWith(DiffSharder.FILE_MARKER)) {
+            return null;
+        }
+        int end = section.indexOf('\n');
+        String line = end < 0 ? section : section.substring(0, end);
+        int b = line.lastIndexOf(" b/");
+        return b < 0 ? line.substring(DiffSharder.FILE_MARKER.length()).trim() : line.substring(b + 3).trim();
+    }
+
+    /** Text of a file section before its first hunk. */
+    private static String header(String section) {
+        int firstHunk = DiffSharder.nextLineStartingWith(section, DiffSharder.HUNK_MARKER, 0);
+        return firstHunk < 0 ? "" : section.substring(0, firstHunk);
+    }
+
+    /** Hunk content without its line-number header. */
+    private static String hunkBody(String hunk) {
+        if (!hunk.startsWith(DiffSharder.HUNK_MARKER)) {
+            return hunk;
+        }
+        int end = hunk.indexOf('\n');
+        return end < 0 ? "" : hunk.substring(end + 1);
+    }
+
+    private static String hash(String text) {
+        return Hashes.sha256Hex(text).substring(0, HASH_HEX_CHARS);
+    }
+}
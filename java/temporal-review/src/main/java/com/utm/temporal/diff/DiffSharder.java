@@ -0,0 +1,182 @@
+package com.utm.temporal.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a unified diff into shards that each fit a token budget.
+ *
+ * <p>Shards are cut at file boundaries ({@code diff --git} lines) whenever
+ * possible. A single file that is too large is split at hunk boundaries
+ * ({@code @@} lines) and its file header is repeated at the top of every
+ * piece so the LLM still knows which file it is looking at. Only a hunk that
+ * is larger than the whole budget is cut mid-hunk, on line boundaries.
+ *
+ * <p>This is pure, deterministic string processing with no I/O, so it is safe
+ * to call from workflow code.
+ */
+public final class DiffSharder {
+
+    /** Rough characters-per-token ratio used to turn a token budget into a size limit. */
+    public static final int CHARS_PER_TOKEN = 4;
+
+    static final String FILE_MARKER = "diff --git ";
+    static final String HUNK_MARKER = "@@";
+
+    private DiffSharder() {
+        // utility class
+    }
+
+    /** Estimated number of LLM tokens for the given text. */
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : estimateTokens(text.length());
+    }
+
+    /** Estimated number of LLM tokens for a text of {@code chars} characters. */
+    public static int estimateTokens(int chars) {
+        return (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Splits {@code diff} into shards of at most {@code maxTokens} estimated
+     * tokens each. Returns a single shard when the diff already fits.
+     */
+    public static List<String> split(String diff, int maxTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be a positive integer, got: " + maxTokens);
+        }
+        List<String> shards = new ArrayList<>();
+        if (diff == null || diff.isEmpty()) {
+            shards.add(diff);
+            return shards;
+        }
+        int maxChars = maxTokens * CHARS_PER_TOKEN;
+        if (diff.length() <= maxChars) {
+            shards.add(diff);
+            return shards;
+        }
+
+        // Break oversized files into pieces that fit, then pack pieces greedily
+        List<String> pieces = new ArrayList<>();
+        for (String section : splitFiles(diff)) {
+            if (section.length() <= maxChars) {
+                pieces.add(section);
+            } else {
+                pieces.addAll(splitOversizedFile(section, maxChars));
+            }
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (String piece : pieces) {
+            if (current.length() > 0 && current.length() + piece.length() > maxChars) {
+                shards.add(current.toString());
+                current.setLength(0);
+            }
+            current.append(piece);
+        }
+        if (current.length() > 0) {
+            shards.add(current.toString());
+        }
+        return shards;
+    }
+
+    /**
+     * Splits a diff into per-file sections. Any text before the first file
+     * marker is kept as its own leading section.
+     */
+    public static List<String> splitFiles(String diff) {
+        List<String> sections = new ArrayList<>();
+        int start = 0;
+        int index = nextLineStartingWith(diff, FILE_MARKER, 0);
+        if (index > 0) {
+            sections.add(diff.substring(0, index));
+            start = index;
+        }
+        while (start < diff.length()) {
+            int next = nextLineStartingWith(diff, FILE_MARKER, start + 1);
+            int end = next < 0 ? diff.length() : next;
+            sections.add(diff.substring(start, end));
+            start = end;
+        }
+        return sections;
+    }
+
+    private static List<String> splitOversizedFile(String section, int maxChars) {
+        int firstHunk = nextLineStartingWith(section, HUNK_MARKER, 0);
+        String header = firstHunk > 0 ? section.substring(0, firstHunk) : "";
+        // A header that eats most of the budget cannot usefully be repeated
+        if (header.length() > maxChars / 2) {
+            header = "";
+        }
+        int budget = maxChars - header.length();
+
+        List<String> hunks = splitHunks(section);
+        if (header.isEmpty() && firstHunk > 0) {
+            hunks.set(0, section.substring(0, firstHunk) + hunks.get(0));
+        }
+
+        List<String> pieces = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String hunk : hunks) {
+            for (String chunk : hunk.length() <= budget ? List.of(hunk) : splitLines(hunk, budget)) {
+                if (current.length() > 0 && current.length() + chunk.length() > budget) {
+                    pieces.add(header + current);
+                    current.setLength(0);
+                }
+                current.append(chunk);
+            }
+        }
+        if (current.length() > 0) {
+            pieces.add(header + current);
+        }
+        return pieces;
+    }
+
+    /**
+     * Splits a file section into its hunks, leaving out the file header
+     * before the first one. A section without hunks (a binary file, a pure
+     * rename) is returned whole.
+     */
+    static List<String> splitHunks(String section) {
+        List<String> hunks = new ArrayList<>();
+        int start = nextLineStartingWith(section, HUNK_MARKER, 0);
+        if (start < 0) {
+            hunks.add(section);
+            return hunks;
+        }
+        while (start < section.length()) {
+            int next = nextLineStartingWith(section, HUNK_MARKER, start + 1);
+            int end = next < 0 ? section.length() : next;
+            hunks.add(section.substring(start, end));
+            start = end;
+        }
+        return hunks;
+    }
+
+    /** Cuts text into chunks of at most {@code maxChars}, preferring line boundaries. */
+    private static List<String> splitLines(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + maxChars, text.length());
+            if (end < text.length()) {
+                int lastNewline = text.lastIndexOf('\n', end - 1);
+                if (lastNewline >= start) {
+                    end = lastNewline + 1;
+                }
+            }
+            chunks.add(text.substring(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /** Index of the next line at or after {@code from} that starts with {@code prefix}, or -1. */
+    static int nextLineStartingWith(String text, String prefix, int from) {
+        if (from == 0 && text.startsWith(prefix)) {
+            return 0;
+        }
+        int index = text.indexOf("\n" + prefix, Math.max(0, from - 1));
+        return index < 0 ? -1 : index + 1;
+    }
+}
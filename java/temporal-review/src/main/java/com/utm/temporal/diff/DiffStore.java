@@ -0,0 +1,37 @@
+package com.utm.temporal.diff;
+
+import com.utm.temporal.util.Hashes;
+
+/**
+ * Content-addressed storage for PR diffs.
+ *
+ * <p>Large diffs are stored here once and passed through Temporal as a hash,
+ * so workflow inputs and activity-scheduled events stay small. Activities
+ * fetch the diff by hash when they need the text.
+ */
+public interface DiffStore {
+
+    /** Stores {@code diff} (a no-op if it is already stored) and returns its content hash. */
+    String put(String diff);
+
+    /**
+     * Returns the diff with the given content hash.
+     *
+     * @throws IllegalStateException if no diff with that hash is stored
+     */
+    String get(String hash);
+
+    /**
+     * Marks the diff with the given hash used now, so eviction keeps it,
+     * for a caller that read it from somewhere else, e.g. a memory cache.
+     * Never fails the caller; a diff that is not stored is ignored.
+     */
+    default void touch(String hash) {
+        // nothing evicted
+    }
+
+    /** Hex SHA-256 of the UTF-8 bytes of {@code diff}, used as its key. */
+    static String contentHash(String diff) {
+        return Hashes.sha256Hex(diff);
+    }
+}
@@ -0,0 +1,69 @@
+package com.utm.temporal.diff;
+
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.model.ReviewRequest;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Creates the configured {@link DiffStore} and moves diffs between
+ * {@link ReviewRequest}s and the store.
+ */
+public final class DiffStores {
+
+    /** Diffs kept in memory per process; a review needs at most a few at once. */
+    static final int CACHE_ENTRIES = 32;
+
+    private DiffStores() {
+        // utility class
+    }
+
+    /**
+     * Returns the store selected by {@code DIFF_STORE}, wrapped in a local
+     * cache, or null when diffs are passed inline.
+     */
+    public static DiffStore fromConfig(DatabaseClient databaseClient) {
+        Duration ttl = Duration.ofSeconds(AppConfig.getDiffStoreTtlSeconds());
+        long maxBytes = AppConfig.getDiffStoreMaxMb() * 1024L * 1024L;
+        switch (AppConfig.getDiffStore()) {
+            case "filesystem":
+                return new CachingDiffStore(
+                        new FileSystemDiffStore(Paths.get(AppConfig.getDiffStoreDir()), ttl, maxBytes), CACHE_ENTRIES);
+            case "postgres":
+                return new CachingDiffStore(new PostgresDiffStore(databaseClient, ttl, maxBytes), CACHE_ENTRIES);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Moves a large diff out of {@code request} into {@code store}, leaving
+     * its hash and size behind. Small diffs, or a null store, leave the
+     * request unchanged.
+     */
+    public static void externalize(ReviewRequest request, DiffStore store, int minChars) {
+        if (store == null || request.diff == null || request.diff.length() < minChars) {
+            return;
+        }
+        request.diffSize = request.diff.length();
+        request.diffHash = store.put(request.diff);
+        request.diff = null;
+    }
+
+    /**
+     * Returns the diff of {@code request}: inline if present, otherwise
+     * fetched from {@code store} by hash.
+     */
+    public static String resolve(ReviewRequest request, DiffStore store) {
+        if (request.diff != null || request.diffHash == null) {
+            return request.diff;
+        }
+        if (store == null) {
+            throw new IllegalStateException("Request references diff " + request.diffHash
+                    + " but DIFF_STORE is none on this worker");
+        }
+        return store.get(request.diffHash);
+    }
+}
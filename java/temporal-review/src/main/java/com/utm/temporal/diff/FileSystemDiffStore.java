@@ -0,0 +1,201 @@
+package com.utm.temporal.diff;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link DiffStore} backed by a directory, e.g. a volume shared by the
+ * workers. Each diff is one file named by its hash, under a sub-directory
+ * named by the first two hash characters.
+ *
+ * <p>Storing or reading a diff refreshes its file's modification time.
+ * Diffs unused for the TTL, and then the least recently used ones while the
+ * directory is past its size limit, are deleted by a sweep that runs when a
+ * write takes the directory past the limit or the last sweep is older than
+ * {@link #EVICT_INTERVAL}.
+ */
+public class FileSystemDiffStore implements DiffStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemDiffStore.class);
+
+    static final Duration EVICT_INTERVAL = Duration.ofMinutes(10);
+
+    // Eviction deletes down to this fraction of the limit, so it does not run on every write
+    private static final double EVICT_TO_FRACTION = 0.9;
+
+    private final Path root;
+    private final long ttlMs;
+    private final long maxBytes;
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile long evictedAtMs;
+
+    public FileSystemDiffStore(Path root, Duration ttl, long maxBytes) {
+        this.root = root;
+        this.ttlMs = ttl.toMillis();
+        this.maxBytes = maxBytes;
+        bytes.set(diffFiles().stream().mapToLong(FileSystemDiffStore::sizeOf).sum());
+        evictedAtMs = System.currentTimeMillis();
+    }
+
+    @Override
+    public String put(String diff) {
+        String hash = DiffStore.contentHash(diff);
+        Path target = pathFor(hash);
+        if (Files.exists(target)) {
+            touch(target);
+            return hash;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            // Write then rename so readers never see a partial file
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            Files.writeString(temp, diff, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store diff " + hash + " in " + root, e);
+        }
+        if (bytes.addAndGet(sizeOf(target)) > maxBytes
+                || System.currentTimeMillis() - evictedAtMs > EVICT_INTERVAL.toMillis()) {
+            evict();
+        }
+        return hash;
+    }
+
+    @Override
+    public String get(String hash) {
+        Path source = pathFor(hash);
+        if (!Files.exists(source)) {
+            throw new IllegalStateException("Diff " + hash + " not found in " + root);
+        }
+        try {
+            String diff = Files.readString(source, StandardCharsets.UTF_8);
+            touch(source);
+            return diff;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read diff " + hash + " from " + root, e);
+        }
+    }
+
+    @Override
+    public void touch(String hash) {
+        Path file = pathFor(hash);
+        if (Files.exists(file)) {
+            touch(file);
+        }
+    }
+
+    /** Bytes of diffs in the directory, as last counted. */
+    public long bytesStored() {
+        return bytes.get();
+    }
+
+    /** Deletes diffs unused for the TTL, then the least recently used ones, until the directory is under its limit. */
+    synchronized void evict() {
+        long nowMs = System.currentTimeMillis();
+        evictedAtMs = nowMs;
+        // Reads and writes touch files during the sweep, so sort a snapshot of their times
+        List<StoredDiff> diffs = new ArrayList<>();
+        for (Path file : diffFiles()) {
+            diffs.add(new StoredDiff(file, lastModified(file), sizeOf(file)));
+        }
+        diffs.sort(Comparator.comparingLong(diff -> diff.lastModifiedMs));
+        long total = diffs.stream().mapToLong(diff -> diff.size).sum();
+        long target = (long) (maxBytes * EVICT_TO_FRACTION);
+        int deleted = 0;
+        for (StoredDiff diff : diffs) {
+            boolean expired = nowMs - diff.lastModifiedMs > ttlMs;
+            if (!expired && total <= target) {
+                break;
+            }
+            if (delete(diff.file)) {
+                total -= diff.size;
+                deleted++;
+            }
+        }
+        bytes.set(total);
+        if (deleted > 0) {
+            logger.info("Evicted {} stored diffs from {}", deleted, root);
+        }
+    }
+
+    /** A diff file with its modification time and size as read at the start of a sweep. */
+    private static final class StoredDiff {
+        final Path file;
+        final long lastModifiedMs;
+        final long size;
+
+        StoredDiff(Path file, long lastModifiedMs, long size) {
+            this.file = file;
+            this.lastModifiedMs = lastModifiedMs;
+            this.size = size;
+        }
+    }
+
+    private List<Path> diffFiles() {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(root, 2)) {
+            return paths.filter(p -> p.getFileName().toString().endsWith(".diff"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Failed to list diff store {}: {}", root, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private Path pathFor(String hash) {
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Not a diff hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ".diff");
+    }
+
+    /** Marks {@code file} used now, for eviction. */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only makes the diff look older to eviction
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.utm.temporal.diff;
+
+import com.utm.temporal.db.DatabaseClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DiffStore} backed by the {@code diff_blobs} table, for workers that
+ * do not share a filesystem.
+ *
+ * <p>Storing or reading a diff marks it used. Diffs unused for the TTL, and
+ * the least recently used ones past the size limit, are deleted in the
+ * background.
+ */
+public class PostgresDiffStore implements DiffStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresDiffStore.class);
+
+    static final long EVICT_INTERVAL_MINUTES = 10;
+
+    // Trimming deletes down to this fraction of the limit, so it is not needed on every run
+    private static final double EVICT_TO_FRACTION = 0.9;
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "diff-store-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DatabaseClient databaseClient;
+    private final int ttlSeconds;
+    private final long maxBytes;
+
+    public PostgresDiffStore(DatabaseClient databaseClient, Duration ttl, long maxBytes) {
+        this.databaseClient = databaseClient;
+        this.ttlSeconds = (int) ttl.getSeconds();
+        this.maxBytes = maxBytes;
+        EVICTOR.scheduleAtFixedRate(this::evict, EVICT_INTERVAL_MINUTES, EVICT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public String put(String diff) {
+        String hash = DiffStore.contentHash(diff);
+        try {
+            databaseClient.saveDiff(hash, diff);
+            return hash;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to store diff " + hash + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String get(String hash) {
+        String diff;
+        try {
+            diff = databaseClient.loadDiff(hash);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load diff " + hash + ": " + e.getMessage(), e);
+        }
+        if (diff == null) {
+            throw new IllegalStateException("Diff " + hash + " not found in diff_blobs");
+        }
+        return diff;
+    }
+
+    @Override
+    public void touch(String hash) {
+        try {
+            databaseClient.touchDiff(hash);
+        } catch (SQLException | RuntimeException e) {
+            // Only makes the diff look older to eviction
+            logger.warn("Failed to mark diff {} used: {}", hash, e.getMessage());
+        }
+    }
+
+    /** Deletes diffs unused for the TTL, then trims the table to its size limit. */
+    void evict() {
+        try {
+            int deleted = databaseClient.evictDiffs(ttlSeconds, maxBytes, (long) (maxBytes * EVICT_TO_FRACTION));
+            if (deleted > 0) {
+                logger.info("Evicted {} stored diffs", deleted);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Runs again at the next interval; a failure must not cancel the schedule
+            logger.warn("Failed to evict stored diffs: {}", e.getMessage());
+        }
+    }
+}
@@ -35,6 +35,10 @@ public class HeuristicsEngine {
         adjusted.riskLevel = result.riskLevel;
         adjusted.recommendation = result.recommendation;
         adjusted.findings = new ArrayList<>(result.findings != null ? result.findings : new ArrayList<>());
+        adjusted.promptTokens = result.promptTokens;
+        adjusted.completionTokens = result.completionTokens;
+        adjusted.status = result.status;
+        adjusted.latencyMs = result.latencyMs;
 
         // Apply PATH_OVERRIDE heuristics — remove findings for excluded paths
         for (LearnedHeuristic h : heuristics) {
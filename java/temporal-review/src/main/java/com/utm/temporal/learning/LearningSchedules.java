@@ -0,0 +1,47 @@
+package com.utm.temporal.learning;
+
+/**
+ * Schedule IDs and cron expressions for the per-repository learning schedules.
+ *
+ * <p>Each repository's schedules fire at a deterministic offset inside a
+ * window instead of all at the top of the hour, so a fleet serving many
+ * repositories spreads its GitHub, OpenAI and Postgres load. The offset is
+ * derived from the schedule and repository names only, so re-registering a
+ * schedule always yields the same time.
+ */
+public final class LearningSchedules {
+
+    private LearningSchedules() {
+        // utility class
+    }
+
+    /** Schedule ID of {@code base} (e.g. "learning-daily") for {@code repository}. */
+    public static String scheduleId(String base, String repository) {
+        return base + "-" + repository.replace("/", "-");
+    }
+
+    /** Hourly cron, at a minute chosen by {@code key}. */
+    public static String hourly(String key) {
+        return jitterMinutes(key, 60) + " * * * *";
+    }
+
+    /**
+     * Cron that fires once on {@code dayOfWeek} ("*" for every day), at a time
+     * chosen by {@code key} within {@code windowMinutes} after {@code startHour}:00 UTC.
+     */
+    public static String daily(String key, int startHour, int windowMinutes, String dayOfWeek) {
+        int minuteOfDay = startHour * 60 + jitterMinutes(key, windowMinutes);
+        return (minuteOfDay % 60) + " " + (minuteOfDay / 60 % 24) + " * * " + dayOfWeek;
+    }
+
+    /** Offset in {@code [0, windowMinutes)} derived from {@code key}. */
+    static int jitterMinutes(String key, int windowMinutes) {
+        // String.hashCode is fixed by the language spec, so the offset is
+        // the same on every worker and JVM; the mix spreads similar names
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return Math.floorMod(h, windowMinutes);
+    }
+}
@@ -0,0 +1,422 @@
+package com.utm.temporal.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utm.temporal.model.CachedLlmResponse;
+import com.utm.temporal.util.Hashes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Answers repeated LLM requests from a cache in front of another
+ * {@link LlmClient}. Re-runs, rebases and backfills send the agents the same
+ * prompts again, and there is no point paying for the same answer twice.
+ *
+ * <p>Responses are keyed by a hash of the model, temperature, response format
+ * and messages. Recently used responses are kept in memory, and every
+ * response is also written to an {@link LlmResponseStore} so it outlives the
+ * process. Entries in either tier expire after the TTL.
+ *
+ * <p>Identical requests are single-flight: while one is being answered, the
+ * same request from another thread waits for that answer instead of making
+ * its own call. A caller that cancels leaves the others waiting; the call is
+ * cancelled only once all of its callers have. With a shared store the same
+ * holds across workers; the worker that claims the request calls the LLM and
+ * the others poll the store for the answer, backing off from the poll
+ * interval up to eight times it, and call the LLM themselves only if the
+ * claim lapses. Polls and the writes that follow an LLM call run on a small
+ * pool of store threads, so neither the poll timer nor the HTTP client's
+ * threads wait on the store.
+ *
+ * <p>An answer to a {@code json_object} request that is not a JSON object
+ * is returned but not cached, and a caller that cannot use a cached answer
+ * can {@link #invalidate} it, so a retry asks the LLM again.
+ *
+ * <p>A cached answer, or one made by another caller, is returned with zero
+ * token usage, so the review it is part of is charged nothing for it. Hits,
+ * misses and the tokens saved are counted; see {@link #metricsSummary()}. A
+ * store that cannot be read or written only costs misses, never a failed call.
+ */
+public class CachingLlmClient implements LlmClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingLlmClient.class);
+
+    static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    // Polls of a waiting request back off up to this multiple of the poll interval
+    static final int MAX_POLL_BACKOFF = 8;
+
+    static final int STORE_THREADS = 4;
+
+    // Times the polls for answers another worker is producing
+    private static final ScheduledExecutorService POLLER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "llm-cache-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Runs the store I/O of polls and of saving answers
+    private static final ExecutorService STORE_IO = Executors.newFixedThreadPool(STORE_THREADS, r -> {
+        Thread thread = new Thread(r, "llm-cache-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LlmClient delegate;
+    private final Map<String, CachedLlmResponse> memory;
+    private final LlmResponseStore store;
+    private final long ttlMs;
+    private final long pollIntervalMs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, SharedCall> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong sharedCalls = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedPromptTokens = new AtomicLong();
+    private final AtomicLong savedCompletionTokens = new AtomicLong();
+
+    /**
+     * @param store persistent tier, or null to cache in memory only
+     */
+    public CachingLlmClient(LlmClient delegate, int memoryEntries, LlmResponseStore store, Duration ttl) {
+        this(delegate, memoryEntries, store, ttl, DEFAULT_POLL_INTERVAL);
+    }
+
+    CachingLlmClient(LlmClient delegate, int memoryEntries, LlmResponseStore store, Duration ttl,
+                     Duration pollInterval) {
+        this.delegate = delegate;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedLlmResponse> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        this.store = store;
+        this.ttlMs = ttl.toMillis();
+        this.pollIntervalMs = pollInterval.toMillis();
+    }
+
+    @Override
+    public LlmResponse complete(List<Message> messages, LlmOptions options) {
+        CompletableFuture<LlmResponse> future = completeAsync(messages, options);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("LLM call interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<LlmResponse> completeAsync(List<Message> messages, LlmOptions options) {
+        String key = key(messages, options);
+        long startMs = System.currentTimeMillis();
+        CachedLlmResponse cached = fromMemory(key, startMs);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return CompletableFuture.completedFuture(hit(cached, startMs));
+        }
+
+        SharedCall created = new SharedCall();
+        SharedCall shared = inFlight.compute(key,
+                (k, current) -> current != null && current.join() ? current : created);
+        if (shared != created) {
+            // The same request is already being answered in this process
+            sharedCalls.incrementAndGet();
+            return follow(shared, response -> hit(new CachedLlmResponse(response.content,
+                    response.promptTokens, response.completionTokens, startMs), startMs));
+        }
+        CompletableFuture<LlmResponse> call = shared.result;
+        call.whenComplete((response, error) -> inFlight.remove(key, shared));
+        // A poll may end in an LLM call on a store thread, which reports to the caller's tracker
+        resolve(key, messages, options, LlmProgress.current(), startMs, call, 0);
+        return follow(shared, response -> response);
+    }
+
+    @Override
+    public void invalidate(List<Message> messages, LlmOptions options) {
+        String key = key(messages, options);
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        if (store != null) {
+            try {
+                store.remove(key);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to invalidate cached LLM response {}: {}", key, e.getMessage());
+            }
+        }
+        delegate.invalidate(messages, options);
+    }
+
+    /** One-line summary of the cache counters, for logging. */
+    public String metricsSummary() {
+        long hits = getHits();
+        long total = hits + misses.get();
+        return String.format(
+                "llm cache: %d/%d hits (%.0f%%; %d memory, %d store, %d in flight), "
+                        + "%d prompt + %d completion tokens saved",
+                hits, total, total == 0 ? 0.0 : hits * 100.0 / total, memoryHits.get(), storeHits.get(),
+                sharedCalls.get(), savedPromptTokens.get(), savedCompletionTokens.get());
+    }
+
+    public long getHits() {
+        return memoryHits.get() + storeHits.get() + sharedCalls.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Cache key of a request: hex SHA-256 of everything that shapes the answer. */
+    String key(List<Message> messages, LlmOptions options) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("model", options.model);
+        request.put("temperature", options.temperature);
+        request.put("responseFormat", options.responseFormat);
+        List<List<String>> parts = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            parts.add(List.of(String.valueOf(message.role), String.valueOf(message.content)));
+        }
+        request.put("messages", parts);
+        try {
+            return Hashes.sha256Hex(objectMapper.writeValueAsBytes(request));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to hash LLM request", e);
+        }
+    }
+
+    /**
+     * Completes {@code call} from the store, or by claiming the request and
+     * calling the LLM, or, while another worker holds the claim, by trying
+     * again after a poll interval that doubles with every one of its
+     * {@code polls} so far.
+     */
+    private void resolve(String key, List<Message> messages, LlmOptions options, LlmProgress progress,
+                         long startMs, CompletableFuture<LlmResponse> call, int polls) {
+        if (call.isDone()) {
+            return;
+        }
+        CachedLlmResponse stored = fromStore(key);
+        if (stored != null && System.currentTimeMillis() - stored.createdAtMs <= ttlMs) {
+            storeHits.incrementAndGet();
+            remember(key, stored);
+            call.complete(hit(stored, startMs));
+            return;
+        }
+        if (!claim(key, options.model)) {
+            if (polls == 0) {
+                logger.debug("Waiting for another worker to answer LLM request {}", key);
+            }
+            Runnable poll = () -> resolve(key, messages, options, progress, startMs, call, polls + 1);
+            POLLER.schedule(() -> storeExecutor().execute(poll),
+                    pollDelayMs(pollIntervalMs, polls), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<LlmResponse> request;
+        try {
+            request = LlmProgress.callWith(progress, () -> delegate.completeAsync(messages, options));
+        } catch (RuntimeException e) {
+            release(key);
+            call.completeExceptionally(e);
+            return;
+        }
+        // Cancelling the shared call, once its last caller has cancelled, cancels the LLM call
+        call.whenComplete((response, error) -> {
+            if (error instanceof CancellationException) {
+                request.cancel(true);
+            }
+        });
+        // Saving or releasing waits on the store, so not on the HTTP client's thread
+        request.whenCompleteAsync((response, error) -> {
+            if (error != null) {
+                release(key);
+                call.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                return;
+            }
+            if (!cacheable(response, options)) {
+                logger.warn("Not caching LLM response {}: not the JSON object requested", key);
+                release(key);
+                call.complete(response);
+                return;
+            }
+            CachedLlmResponse entry = new CachedLlmResponse(response.content, response.promptTokens,
+                    response.completionTokens, System.currentTimeMillis());
+            remember(key, entry);
+            save(key, options.model, entry);
+            call.complete(response);
+        }, storeExecutor());
+    }
+
+    /**
+     * A future of one caller's own for the answer to a shared call. A caller
+     * that cancels its future leaves the call, and the call itself is
+     * cancelled only when the last of its callers has left.
+     */
+    private static CompletableFuture<LlmResponse> follow(SharedCall shared,
+                                                         Function<LlmResponse, LlmResponse> answer) {
+        CompletableFuture<LlmResponse> own = new CompletableFuture<>();
+        shared.result.whenComplete((response, error) -> {
+            if (error != null) {
+                own.completeExceptionally(error);
+            } else {
+                own.complete(answer.apply(response));
+            }
+        });
+        own.whenComplete((response, error) -> {
+            if (!shared.result.isDone() && shared.leave()) {
+                shared.result.cancel(true);
+            }
+        });
+        return own;
+    }
+
+    /**
+     * Delay before poll number {@code polls + 1}: the poll interval, doubled
+     * per poll up to {@link #MAX_POLL_BACKOFF} times it.
+     */
+    static long pollDelayMs(long pollIntervalMs, int polls) {
+        return pollIntervalMs * Math.min(1L << Math.min(polls, 30), MAX_POLL_BACKOFF);
+    }
+
+    /** Runs store I/O on a store thread, or on the calling thread when there is no store. */
+    private Executor storeExecutor() {
+        return store != null ? STORE_IO : Runnable::run;
+    }
+
+    /** False for an answer that is not the JSON object a {@code json_object} request asked for. */
+    private boolean cacheable(LlmResponse response, LlmOptions options) {
+        if (!"json_object".equals(options.responseFormat)) {
+            return true;
+        }
+        if (response.content == null) {
+            return false;
+        }
+        try {
+            return objectMapper.readTree(response.content).isObject();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private CachedLlmResponse fromMemory(String key, long nowMs) {
+        synchronized (memory) {
+            CachedLlmResponse entry = memory.get(key);
+            if (entry != null && nowMs - entry.createdAtMs > ttlMs) {
+                memory.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void remember(String key, CachedLlmResponse entry) {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+    }
+
+    /** A zero-cost response carrying a cached answer. */
+    private LlmResponse hit(CachedLlmResponse entry, long startMs) {
+        savedPromptTokens.addAndGet(entry.promptTokens);
+        savedCompletionTokens.addAndGet(entry.completionTokens);
+        LlmResponse hit = new LlmResponse(entry.content, 0, 0);
+        hit.latencyMs = System.currentTimeMillis() - startMs;
+        hit.cached = true;
+        return hit;
+    }
+
+    private CachedLlmResponse fromStore(String key) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(key);
+        } catch (RuntimeException e) {
+            logger.warn("LLM cache lookup failed for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean claim(String key, String model) {
+        if (store == null) {
+            return true;
+        }
+        try {
+            return store.claim(key, model);
+        } catch (RuntimeException e) {
+            // Without the store there is nobody to wait for
+            logger.warn("LLM cache claim failed for {}: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    private void release(String key) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.release(key);
+        } catch (RuntimeException e) {
+            logger.warn("LLM cache release failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /** An LLM request being answered, and how many callers are still waiting for it. */
+    private static final class SharedCall {
+        final CompletableFuture<LlmResponse> result = new CompletableFuture<>();
+        private int callers = 1;
+
+        /** Adds a caller, unless the call is answered or every caller has left and it is being cancelled. */
+        synchronized boolean join() {
+            if (callers == 0 || result.isDone()) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        /** Removes a caller; true when it was the last one. */
+        synchronized boolean leave() {
+            return callers > 0 && --callers == 0;
+        }
+    }
+
+    private void save(String key, String model, CachedLlmResponse entry) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.put(key, model, entry);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to cache LLM response {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.utm.temporal.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utm.temporal.model.CachedLlmResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link LlmResponseStore} keeping one JSON file per answer in a directory,
+ * under a sub-directory named by the first two characters of the key. Files
+ * are written to a temporary name and renamed, so readers never see a
+ * partial answer, and a read refreshes the file's modification time. When
+ * the directory grows past its size limit, expired files and then the least
+ * recently used ones are deleted.
+ *
+ * <p>Processes sharing the directory share answers but do not coordinate
+ * calls; every claim is accepted.
+ */
+public class FileSystemLlmResponseStore implements LlmResponseStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemLlmResponseStore.class);
+
+    // Eviction deletes down to this fraction of the limit, so it does not run on every write
+    private static final double EVICT_TO_FRACTION = 0.9;
+
+    private final Path dir;
+    private final long ttlMs;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public FileSystemLlmResponseStore(Path dir, Duration ttl, long maxBytes) {
+        this.dir = dir;
+        this.ttlMs = ttl.toMillis();
+        this.maxBytes = maxBytes;
+        bytes.set(cacheFiles().stream().mapToLong(FileSystemLlmResponseStore::sizeOf).sum());
+    }
+
+    @Override
+    public CachedLlmResponse get(String key) {
+        Path file = pathFor(key);
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            CachedLlmResponse response = objectMapper.readValue(file.toFile(), CachedLlmResponse.class);
+            long nowMs = System.currentTimeMillis();
+            if (nowMs - response.createdAtMs > ttlMs) {
+                delete(file);
+                return null;
+            }
+            // Recency for size-based eviction
+            Files.setLastModifiedTime(file, FileTime.fromMillis(nowMs));
+            return response;
+        } catch (IOException e) {
+            logger.warn("Failed to read cached LLM response {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, String model, CachedLlmResponse response) {
+        Path target = pathFor(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+            Files.write(temp, objectMapper.writeValueAsBytes(response));
+            long previous = Files.exists(target) ? sizeOf(target) : 0;
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (bytes.addAndGet(sizeOf(target) - previous) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to cache LLM response {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        Path file = pathFor(key);
+        long size = sizeOf(file);
+        if (delete(file)) {
+            bytes.addAndGet(-size);
+        }
+    }
+
+    /** Bytes of answers in the directory, as last counted. */
+    public long bytesStored() {
+        return bytes.get();
+    }
+
+    /** Deletes expired files, then the least recently used ones, until the directory is under its limit. */
+    synchronized void evict() {
+        long nowMs = System.currentTimeMillis();
+        List<Path> files = new ArrayList<>(cacheFiles());
+        files.sort(Comparator.comparingLong(FileSystemLlmResponseStore::lastModified));
+        long total = files.stream().mapToLong(FileSystemLlmResponseStore::sizeOf).sum();
+        long target = (long) (maxBytes * EVICT_TO_FRACTION);
+        for (Path file : files) {
+            // A file not used for a whole TTL was also created longer ago than that
+            boolean expired = nowMs - lastModified(file) > ttlMs;
+            if (!expired && total <= target) {
+                break;
+            }
+            long size = sizeOf(file);
+            if (delete(file)) {
+                total -= size;
+            }
+        }
+        bytes.set(total);
+    }
+
+    private List<Path> cacheFiles() {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(dir, 2)) {
+            return paths.filter(p -> p.getFileName().toString().endsWith(".json"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Failed to list LLM cache {}: {}", dir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private Path pathFor(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.utm.temporal.llm;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for LLM (Large Language Model) clients.
  * This abstraction allows for easy swapping of LLM providers.
+ *
+ * <p>Implementations must be safe to share between concurrent activity
+ * executions: everything about a call is returned by {@link #complete}
+ * rather than kept on the client.
  */
 public interface LlmClient {
     /**
@@ -12,13 +17,40 @@ public interface LlmClient {
      *
      * @param messages List of messages (system, user, assistant)
      * @param options LLM options (model, temperature, response format)
+     * @return The LLM's response content with the token usage, latency and retries of this call
+     */
+    LlmResponse complete(List<Message> messages, LlmOptions options);
+
+    /**
+     * Send a chat completion request to the LLM when only the content is needed.
+     *
      * @return The LLM's response content as a string
      */
-    String chat(List<Message> messages, LlmOptions options);
+    default String chat(List<Message> messages, LlmOptions options) {
+        return complete(messages, options).content;
+    }
+
+    /**
+     * Send a chat completion request without blocking the calling thread.
+     * Cancelling the returned future abandons the request.
+     *
+     * <p>The default runs {@link #complete} on the common pool; clients with
+     * a non-blocking transport override it.
+     */
+    default CompletableFuture<LlmResponse> completeAsync(List<Message> messages, LlmOptions options) {
+        return CompletableFuture.supplyAsync(() -> complete(messages, options));
+    }
 
-    /** Prompt tokens used in the last chat() call. */
-    default int getLastPromptTokens() { return 0; }
+    /**
+     * Forgets any answer to this request the client has kept, e.g. one the
+     * caller could not parse, so that asking again calls the LLM.
+     */
+    default void invalidate(List<Message> messages, LlmOptions options) {
+        // nothing kept
+    }
 
-    /** Completion tokens used in the last chat() call. */
-    default int getLastCompletionTokens() { return 0; }
+    /** Asynchronous {@link #chat}: the content of {@link #completeAsync}. */
+    default CompletableFuture<String> chatAsync(List<Message> messages, LlmOptions options) {
+        return completeAsync(messages, options).thenApply(response -> response.content);
+    }
 }
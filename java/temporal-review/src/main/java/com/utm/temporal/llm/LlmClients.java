@@ -0,0 +1,63 @@
+package com.utm.temporal.llm;
+
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.db.DatabaseClient;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Holds the process-wide {@link LlmClient} the agents share: an
+ * {@link OpenAiLlmClient}, wrapped in a {@link CachingLlmClient} backed by
+ * the {@code LLM_CACHE_STORE} when {@code LLM_CACHE} is on.
+ */
+public final class LlmClients {
+
+    private static volatile LlmClient shared;
+    private static volatile CachingLlmClient cache;
+
+    private LlmClients() {
+        // utility class
+    }
+
+    /** The process-wide client, created on first use. */
+    public static LlmClient shared() {
+        LlmClient client = shared;
+        if (client == null) {
+            synchronized (LlmClients.class) {
+                client = shared;
+                if (client == null) {
+                    client = new OpenAiLlmClient();
+                    if (AppConfig.isLlmCache()) {
+                        cache = new CachingLlmClient(client, AppConfig.getLlmCacheMemoryEntries(), storeFromConfig(),
+                                Duration.ofSeconds(AppConfig.getLlmCacheTtlSeconds()));
+                        client = cache;
+                    }
+                    shared = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /** Returns the store selected by {@code LLM_CACHE_STORE}, or null to cache in memory only. */
+    static LlmResponseStore storeFromConfig() {
+        Duration ttl = Duration.ofSeconds(AppConfig.getLlmCacheTtlSeconds());
+        long maxBytes = AppConfig.getLlmCacheMaxMb() * 1024L * 1024L;
+        switch (AppConfig.getLlmCacheStore()) {
+            case "filesystem":
+                return new FileSystemLlmResponseStore(Paths.get(AppConfig.getLlmCacheDir()), ttl, maxBytes);
+            case "postgres":
+                return new PostgresLlmResponseStore(new DatabaseClient(), ttl, maxBytes,
+                        Duration.ofSeconds(AppConfig.getLlmCacheLockSeconds()));
+            default:
+                return null;
+        }
+    }
+
+    /** Hit/miss summary of the shared client's cache, or null when it has none (yet). */
+    public static String cacheMetricsSummary() {
+        CachingLlmClient current = cache;
+        return current == null ? null : current.metricsSummary();
+    }
+}
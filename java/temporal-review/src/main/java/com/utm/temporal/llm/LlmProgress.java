@@ -0,0 +1,127 @@
+package com.utm.temporal.llm;
+
+import java.util.function.Supplier;
+
+/**
+ * Progress of the LLM call running on the current thread, so a watcher on
+ * another thread (the activity heartbeat) can tell a slow call from a stuck one.
+ *
+ * <p>The caller installs a tracker with {@link #track()} before the call and
+ * closes it afterwards; {@link OpenAiLlmClient} reports each attempt and each
+ * chunk of response body it reads. A streamed call also reports the content
+ * as it is generated, which is parsed into a {@link PartialJsonObject} so the
+ * watcher can see fields such as {@code recommendation} before the response
+ * is complete. An asynchronous call picks up the tracker of the thread that
+ * started it and keeps reporting to it from OkHttp's threads; a call started
+ * with no tracker installed reports nothing.
+ */
+public final class LlmProgress implements AutoCloseable {
+
+    private static final ThreadLocal<LlmProgress> CURRENT = new ThreadLocal<>();
+
+    private final long startedMs;
+    private volatile int attempt = 1;
+    private volatile long bytesReceived;
+    private volatile long lastProgressMs;
+    private volatile long firstContentMs;
+    private volatile PartialJsonObject content = new PartialJsonObject();
+
+    private LlmProgress(long nowMs) {
+        this.startedMs = nowMs;
+        this.lastProgressMs = nowMs;
+    }
+
+    /** Installs a new tracker on the current thread and returns it. */
+    public static LlmProgress track() {
+        LlmProgress progress = new LlmProgress(System.currentTimeMillis());
+        CURRENT.set(progress);
+        return progress;
+    }
+
+    /** The tracker installed on the current thread, or null. */
+    static LlmProgress current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs {@code call} with {@code progress} installed on the current
+     * thread, so a call started on another thread on behalf of the tracked
+     * caller still reports to its tracker.
+     */
+    static <T> T callWith(LlmProgress progress, Supplier<T> call) {
+        LlmProgress previous = CURRENT.get();
+        CURRENT.set(progress);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /** Records that a new attempt of the call started; bytes, content and time to first content restart. */
+    void onAttempt(int attempt) {
+        this.attempt = attempt;
+        this.bytesReceived = 0;
+        this.firstContentMs = 0;
+        this.content = new PartialJsonObject();
+        this.lastProgressMs = System.currentTimeMillis();
+    }
+
+    /** Records the next piece of generated content of a streamed call. */
+    void onContent(String delta) {
+        if (firstContentMs == 0) {
+            firstContentMs = System.currentTimeMillis();
+        }
+        content.feed(delta);
+    }
+
+    /** Records {@code bytes} more bytes of response body received. */
+    void onBytes(long bytes) {
+        if (bytes > 0) {
+            this.bytesReceived += bytes;
+            this.lastProgressMs = System.currentTimeMillis();
+        }
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getStartedMs() {
+        return startedMs;
+    }
+
+    /** When the first content of a streamed call arrived, or 0 if none has (or the call is not streamed). */
+    public long getFirstContentMs() {
+        return firstContentMs;
+    }
+
+    /** The content of the current attempt, as far as it has been generated and parsed. */
+    public PartialJsonObject getContent() {
+        return content;
+    }
+
+    /**
+     * True when the response started arriving but no byte has been received
+     * for {@code stallMs}. Before the first byte the model may legitimately
+     * still be generating, so waiting for it never counts as a stall.
+     */
+    public boolean isStalled(long nowMs, long stallMs) {
+        return bytesReceived > 0 && nowMs - lastProgressMs >= stallMs;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+}
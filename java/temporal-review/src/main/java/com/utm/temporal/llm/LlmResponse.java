@@ -0,0 +1,25 @@
+package com.utm.temporal.llm;
+
+/**
+ * Result of one LLM chat completion call: the content plus the usage and
+ * timing of that call alone, so a client shared across threads reports
+ * each caller's own numbers.
+ */
+public class LlmResponse {
+    public String content;
+    public int promptTokens;
+    public int completionTokens;
+    public long latencyMs;      // Wall time of the call, including retries and backoff
+    public long firstTokenMs;   // Time from the start of the call to the first streamed content; 0 when not streamed
+    public int retries;         // Attempts made after the first
+    public boolean cached;      // Answered from CachingLlmClient; token counts are then zero
+
+    // No-arg constructor
+    public LlmResponse() {}
+
+    public LlmResponse(String content, int promptTokens, int completionTokens) {
+        this.content = content;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+    }
+}
@@ -0,0 +1,38 @@
+package com.utm.temporal.llm;
+
+import com.utm.temporal.model.CachedLlmResponse;
+
+/**
+ * Persistent tier of the {@link CachingLlmClient}: LLM answers by request
+ * hash, kept beyond the life of one process.
+ *
+ * <p>A store shared by several workers can also coordinate them, so that
+ * only one calls the LLM for a given request while the others wait for its
+ * answer; see {@link #claim}.
+ */
+public interface LlmResponseStore {
+
+    /** The unexpired answer stored under {@code key}, or null. */
+    CachedLlmResponse get(String key);
+
+    /** Stores {@code response} under {@code key}, releasing any claim on it. */
+    void put(String key, String model, CachedLlmResponse response);
+
+    /** Deletes the answer stored under {@code key}, if any. */
+    void remove(String key);
+
+    /**
+     * Claims {@code key} for the caller, who is then expected to call the LLM
+     * and {@link #put} the answer, or {@link #release} the claim if it
+     * fails. Returns false while another caller holds an unexpired claim.
+     * Stores that are not shared accept every claim.
+     */
+    default boolean claim(String key, String model) {
+        return true;
+    }
+
+    /** Gives up a claim made with {@link #claim}. */
+    default void release(String key) {
+        // no claims to release
+    }
+}
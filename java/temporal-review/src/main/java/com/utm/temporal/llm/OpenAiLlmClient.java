@@ -3,18 +3,41 @@ package com.utm.temporal.llm;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.diff.DiffSharder;
 import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * OpenAI LLM client implementation using OkHttp.
  * Supports DUMMY_MODE for development/testing without API costs.
+ *
+ * <p>With {@code LLM_STREAMING} the completion is requested as server-sent
+ * events and each content delta is reported to the call's {@link LlmProgress}
+ * as it arrives, instead of the whole body being read before anything is
+ * parsed.
+ *
+ * <p>With {@code LLM_RATE_LIMITER} every call first waits on the process-wide
+ * {@link OpenAiRateLimiter}, which learns the account's limits from the
+ * response headers, so calls are spread out before they are sent rather
+ * than rejected and retried.
+ *
+ * <p>Thread-safe: one instance, from {@link LlmClients#shared()}, serves every
+ * agent in the process over a single OkHttp connection pool.
  */
 public class OpenAiLlmClient implements LlmClient {
 
@@ -31,6 +54,22 @@ public class OpenAiLlmClient implements LlmClient {
     private static final long INITIAL_BACKOFF_MS = 1000L;
     private static final long MAX_BACKOFF_MS = 30000L;
 
+    // Fires retries after their backoff, and calls held back by the rate limiter; the request itself runs on OkHttp's dispatcher
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "openai-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Idle connections are kept this long for reuse by later calls
+    private static final long CONNECTION_KEEP_ALIVE_MINUTES = 5;
+
+    // Completion tokens reserved with the rate limiter before the usage of a call is known
+    static final int COMPLETION_TOKEN_ESTIMATE = 1000;
+
+    // Response bodies are read in chunks so LlmProgress sees bytes arrive
+    private static final long READ_CHUNK_BYTES = 8192L;
+
     /** Default maximum number of characters allowed in a user message (diff) before truncation. */
     public static final int DEFAULT_MAX_DIFF_CHARS = 100_000;
     private static final String TRUNCATION_NOTICE =
@@ -43,14 +82,20 @@ public class OpenAiLlmClient implements LlmClient {
     private final String baseUrl;
     private final boolean dummyMode;
     private final int maxDiffChars;
-
-    // Token usage from the last API call
-    private int lastPromptTokens;
-    private int lastCompletionTokens;
+    private final boolean streaming;
+    private final OpenAiRateLimiter rateLimiter;  // null when LLM_RATE_LIMITER is off
 
     public OpenAiLlmClient() {
         this.objectMapper = new ObjectMapper();
+        // Every call goes to the one API host, so OkHttp's per-host default of
+        // 5 concurrent requests would queue all the others
+        int maxRequests = AppConfig.getLlmMaxConcurrentRequests();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
         this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxRequests, CONNECTION_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.SECONDS)
@@ -60,6 +105,8 @@ public class OpenAiLlmClient implements LlmClient {
         this.apiKey = System.getenv().getOrDefault("OPENAI_API_KEY", "");
         this.baseUrl = System.getenv().getOrDefault("OPENAI_BASE_URL", DEFAULT_BASE_URL);
         this.dummyMode = "true".equalsIgnoreCase(System.getenv().getOrDefault("DUMMY_MODE", "false"));
+        this.streaming = AppConfig.isLlmStreaming();
+        this.rateLimiter = AppConfig.isLlmRateLimiter() ? OpenAiRateLimiter.shared() : null;
 
         String maxDiffCharsEnv = System.getenv().getOrDefault("MAX_DIFF_CHARS", String.valueOf(DEFAULT_MAX_DIFF_CHARS));
         try {
@@ -87,84 +134,292 @@ public class OpenAiLlmClient implements LlmClient {
         this.baseUrl = DEFAULT_BASE_URL;
         this.dummyMode = true;
         this.maxDiffChars = maxDiffChars;
+        this.streaming = false;
+        this.rateLimiter = null;
     }
 
     @Override
-    public String chat(List<Message> messages, LlmOptions options) {
+    public LlmResponse complete(List<Message> messages, LlmOptions options) {
+        CompletableFuture<LlmResponse> future = completeAsync(messages, options);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // Cancellation of the activity: abandon the request rather than leave it running
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for OpenAI API call", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends the request on OkHttp's dispatcher and returns at once. Retries
+     * wait on a timer rather than a thread, so any number of calls can be
+     * in flight without holding a thread each.
+     */
+    @Override
+    public CompletableFuture<LlmResponse> completeAsync(List<Message> messages, LlmOptions options) {
         if (dummyMode) {
-            return getDummyResponse(messages);
+            return CompletableFuture.completedFuture(new LlmResponse(getDummyResponse(messages), 0, 0));
         }
 
         // Truncate user message content that exceeds the configured diff size limit
         List<Message> effectiveMessages = applyDiffSizeLimit(messages);
 
-        IOException lastException = null;
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(baseUrl)
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "application/json")
+                    .post(RequestBody.create(buildRequestBody(effectiveMessages, options), JSON))
+                    .build();
+        } catch (IOException e) {
+            CompletableFuture<LlmResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RuntimeException("Failed to build OpenAI request: " + e.getMessage(), e));
+            return failed;
+        }
+        AsyncCall call = new AsyncCall(request, estimateTokens(effectiveMessages), LlmProgress.current());
+        call.start();
+        return call.future;
+    }
 
+    /** One chat completion request and its retries, driven by OkHttp callbacks. */
+    private final class AsyncCall implements Callback {
+        private final Request request;
+        private final int estimatedTokens;
+        private final LlmProgress progress;
+        private final long startMs = System.currentTimeMillis();
+        private final CompletableFuture<LlmResponse> future = new CompletableFuture<>();
+        private volatile Call call;
+        private int attempt;
+        // The current attempt's rate limiter reservation, until it is settled
+        private final AtomicReference<OpenAiRateLimiter.Reservation> reservation = new AtomicReference<>();
+
+        AsyncCall(Request request, int estimatedTokens, LlmProgress progress) {
+            this.request = request;
+            this.estimatedTokens = estimatedTokens;
+            this.progress = progress;
+            future.whenComplete((result, error) -> {
+                Call current = call;
+                if (future.isCancelled() && current != null) {
+                    current.cancel();
+                }
+                // A failed or cancelled call gives back whatever it still holds
+                settle(0);
+            });
+        }
 
-        for (int attempt = 0; attempt < TOTAL_ATTEMPTS; attempt++) {
-            if (attempt > 0) {
-                long backoffMs = Math.min(INITIAL_BACKOFF_MS * (1L << (attempt - 1)), MAX_BACKOFF_MS); // Exponential backoff: INITIAL_BACKOFF_MS * 2^(attempt-1), capped at MAX_BACKOFF_MS
-                logger.warn("OpenAI API call failed (attempt {}), retrying in {}ms...", attempt + 1, backoffMs);
-                try {
-                    Thread.sleep(backoffMs);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted while waiting to retry OpenAI API call", ie);
+        /** Sends the next attempt once the rate limiter lets it through. */
+        void start() {
+            if (future.isDone()) {
+                return;
+            }
+            long waitMs = 0;
+            if (rateLimiter != null) {
+                OpenAiRateLimiter.Reservation reserved = rateLimiter.reserve(estimatedTokens, System.currentTimeMillis());
+                reservation.set(reserved);
+                waitMs = reserved.waitMs;
+                if (future.isDone()) {
+                    settle(0);
+                    return;
                 }
             }
+            if (waitMs > 0) {
+                RETRY_SCHEDULER.schedule(this::send, waitMs, TimeUnit.MILLISECONDS);
+            } else {
+                send();
+            }
+        }
 
-            try {
-                String requestBody = buildRequestBody(effectiveMessages, options);
-
-                Request request = new Request.Builder()
-                        .url(baseUrl)
-                        .header("Authorization", "Bearer " + apiKey)
-                        .header("Content-Type", "application/json")
-                        .post(RequestBody.create(requestBody, JSON))
-                        .build();
-
-                try (Response response = httpClient.newCall(request).execute()) {
-                    int statusCode = response.code();
-
-                    if (response.isSuccessful()) {
-                        if (response.body() == null) {
-                            throw new RuntimeException(
-                                    "OpenAI API returned a successful response (HTTP " + statusCode +
-                                    ") but the response body was null");
-                        }
-                        String responseBody = response.body().string();
-                        return parseResponse(responseBody);
-                    }
+        private void send() {
+            if (future.isDone()) {
+                return;
+            }
+            if (progress != null) {
+                progress.onAttempt(attempt + 1);
+            }
+            call = httpClient.newCall(request);
+            call.enqueue(this);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            try (response) {
+                int statusCode = response.code();
+                if (rateLimiter != null) {
+                    rateLimiter.update(response.headers(), System.currentTimeMillis());
+                }
+                if (!response.isSuccessful()) {
+                    // A rejected attempt used no tokens; a retry reserves its own
+                    settle(0);
+                }
 
-                    // 4xx errors (except 429 rate limit) are not retryable
-                    if (statusCode >= 400 && statusCode < 500 && statusCode != 429) {
+                if (response.isSuccessful()) {
+                    if (response.body() == null) {
                         throw new RuntimeException(
-                                "OpenAI API call failed with non-retryable error: HTTP " + statusCode +
-                                " - " + response.message() + " [error_code=CLIENT_ERROR]");
+                                "OpenAI API returned a successful response (HTTP " + statusCode +
+                                ") but the response body was null");
                     }
+                    LlmResponse result = streaming
+                            ? readStream(response.body().source(), progress)
+                            : parseResponse(readBody(response.body(), progress));
+                    result.latencyMs = System.currentTimeMillis() - startMs;
+                    if (progress != null && progress.getFirstContentMs() > 0) {
+                        result.firstTokenMs = progress.getFirstContentMs() - startMs;
+                    }
+                    result.retries = attempt;
+                    settle(result.promptTokens + result.completionTokens);
+                    future.complete(result);
+                    return;
+                }
 
-                    // 429 (rate limit) and 5xx errors are retryable
-                    lastException = new IOException(
-                            "OpenAI API call failed: HTTP " + statusCode + " - " + response.message() +
-                            " [error_code=" + (statusCode == 429 ? "RATE_LIMIT" : "SERVER_ERROR") + "]");
+                // 4xx errors (except 429 rate limit) are not retryable
+                if (statusCode >= 400 && statusCode < 500 && statusCode != 429) {
+                    throw new RuntimeException(
+                            "OpenAI API call failed with non-retryable error: HTTP " + statusCode +
+                            " - " + response.message() + " [error_code=CLIENT_ERROR]");
                 }
-            } catch (RuntimeException e) {
-                // Non-retryable errors bubble up immediately
-                throw e;
+
+                // 429 (rate limit) and 5xx errors are retryable; a 429's Retry-After holds back every call
+                long retryAfterMs = statusCode == 429 ? OpenAiRateLimiter.retryAfterMs(response.headers()) : 0;
+                if (rateLimiter != null) {
+                    rateLimiter.pause(retryAfterMs, System.currentTimeMillis());
+                }
+                retryOrFail(new IOException(
+                        "OpenAI API call failed: HTTP " + statusCode + " - " + response.message() +
+                        " [error_code=" + (statusCode == 429 ? "RATE_LIMIT" : "SERVER_ERROR") + "]"), retryAfterMs);
             } catch (IOException e) {
-                // Network/IO errors are retryable
-                lastException = e;
+                // Network/IO errors while reading the body are retryable
+                settle(0);
                 logger.warn("OpenAI API network error on attempt {}: {}", attempt + 1, e.getMessage());
+                retryOrFail(e, 0);
+            } catch (RuntimeException e) {
+                // Non-retryable errors fail the call immediately
+                settle(0);
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            if (future.isDone()) {
+                return;
             }
+            // Network/IO errors are retryable
+            settle(0);
+            logger.warn("OpenAI API network error on attempt {}: {}", attempt + 1, e.getMessage());
+            retryOrFail(e, 0);
         }
 
-        // All retries exhausted
-        logger.error("OpenAI API call failed after {} attempts. Last error: {}", TOTAL_ATTEMPTS,
-                lastException != null ? lastException.getMessage() : "unknown");
-        throw new RuntimeException(
-                "OpenAI API call failed after " + TOTAL_ATTEMPTS + " attempts [error_code=SERVICE_UNAVAILABLE]: " +
-                (lastException != null ? lastException.getMessage() : "unknown error"),
-                lastException);
+        /**
+         * Settles the current attempt's reservation with the tokens it
+         * actually used, 0 when it failed or reported no usage. Only the first
+         * settle of an attempt counts.
+         */
+        private void settle(int actualTokens) {
+            OpenAiRateLimiter.Reservation held = reservation.getAndSet(null);
+            if (held != null) {
+                rateLimiter.settle(held, actualTokens, System.currentTimeMillis());
+            }
+        }
+
+        private void retryOrFail(IOException lastException, long minDelayMs) {
+            if (attempt + 1 >= TOTAL_ATTEMPTS) {
+                // All retries exhausted
+                logger.error("OpenAI API call failed after {} attempts. Last error: {}", TOTAL_ATTEMPTS,
+                        lastException.getMessage());
+                future.completeExceptionally(new RuntimeException(
+                        "OpenAI API call failed after " + TOTAL_ATTEMPTS + " attempts [error_code=SERVICE_UNAVAILABLE]: " +
+                        lastException.getMessage(), lastException));
+                return;
+            }
+            attempt++;
+            long backoffMs = Math.min(INITIAL_BACKOFF_MS * (1L << (attempt - 1)), MAX_BACKOFF_MS); // Exponential backoff: INITIAL_BACKOFF_MS * 2^(attempt-1), capped at MAX_BACKOFF_MS
+            // Jittered, so calls that failed together do not retry together
+            backoffMs = Math.max(minDelayMs, (long) (backoffMs * ThreadLocalRandom.current().nextDouble(0.5, 1.0)));
+            logger.warn("OpenAI API call failed (attempt {}), retrying in {}ms...", attempt + 1, backoffMs);
+            RETRY_SCHEDULER.schedule(this::start, backoffMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Prompt tokens of {@code messages}, estimated from their length, plus a completion allowance. */
+    static int estimateTokens(List<Message> messages) {
+        int chars = 0;
+        for (Message message : messages) {
+            chars += message.content == null ? 0 : message.content.length();
+        }
+        return DiffSharder.estimateTokens(chars) + COMPLETION_TOKEN_ESTIMATE;
+    }
+
+    /** Reads a response body, reporting each chunk to {@code progress} (may be null). */
+    private static String readBody(ResponseBody body, LlmProgress progress) throws IOException {
+        BufferedSource source = body.source();
+        Buffer buffer = new Buffer();
+        long read;
+        while ((read = source.read(buffer, READ_CHUNK_BYTES)) != -1) {
+            if (progress != null) {
+                progress.onBytes(read);
+            }
+        }
+        MediaType contentType = body.contentType();
+        return buffer.readString(contentType != null
+                ? contentType.charset(StandardCharsets.UTF_8)
+                : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a streamed chat completion: one {@code data:} line per chunk,
+     * ending with {@code data: [DONE]}. Each content delta is reported to
+     * {@code progress} (may be null) as it arrives; token usage comes in the
+     * last chunk. Visible for testing.
+     */
+    LlmResponse readStream(BufferedSource source, LlmProgress progress) throws IOException {
+        StringBuilder content = new StringBuilder();
+        JsonNode usage = null;
+        boolean done = false;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (progress != null) {
+                progress.onBytes(line.length() + 1L);
+            }
+            if (!line.startsWith("data:")) {
+                // Blank separators, comments and other SSE fields
+                continue;
+            }
+            String data = line.substring("data:".length()).trim();
+            if ("[DONE]".equals(data)) {
+                done = true;
+                break;
+            }
+            JsonNode chunk = objectMapper.readTree(data);
+            if (chunk.has("error")) {
+                throw new IOException("OpenAI API stream failed: " + chunk.path("error").path("message").asText());
+            }
+            JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+            if (delta.isTextual() && !delta.asText().isEmpty()) {
+                content.append(delta.asText());
+                if (progress != null) {
+                    progress.onContent(delta.asText());
+                }
+            }
+            if (chunk.hasNonNull("usage")) {
+                usage = chunk.get("usage");
+            }
+        }
+        if (!done) {
+            throw new IOException("OpenAI API stream ended before [DONE]");
+        }
+        if (content.length() == 0) {
+            throw new IOException("Invalid OpenAI API stream: no content in any 'choices[0].delta'");
+        }
+        return new LlmResponse(content.toString(),
+                usage == null ? 0 : usage.path("prompt_tokens").asInt(0),
+                usage == null ? 0 : usage.path("completion_tokens").asInt(0));
     }
 
     /**
@@ -211,6 +466,11 @@ public class OpenAiLlmClient implements LlmClient {
             json.append("\"response_format\":{\"type\":\"json_object\"},");
         }
 
+        if (streaming) {
+            // Usage is only sent with a stream when asked for, in a final chunk
+            json.append("\"stream\":true,\"stream_options\":{\"include_usage\":true},");
+        }
+
         json.append("\"messages\":[");
         for (int i = 0; i < messages.size(); i++) {
             Message msg = messages.get(i);
@@ -225,11 +485,8 @@ public class OpenAiLlmClient implements LlmClient {
         return json.toString();
     }
 
-    private String parseResponse(String responseBody) throws IOException {
-        // Reset counters to avoid leaking stale values from a previous call
-        this.lastPromptTokens = 0;
-        this.lastCompletionTokens = 0;
-
+    /** Content and token usage of a chat completion response body. Visible for testing. */
+    LlmResponse parseResponse(String responseBody) throws IOException {
         JsonNode root = objectMapper.readTree(responseBody);
         JsonNode content = root.path("choices").path(0).path("message").path("content");
 
@@ -237,24 +494,11 @@ public class OpenAiLlmClient implements LlmClient {
             throw new IOException("Invalid OpenAI API response: missing 'choices[0].message.content'");
         }
 
-        // Capture token usage from response
+        // Token usage is optional in the response
         JsonNode usage = root.path("usage");
-        if (!usage.isMissingNode()) {
-            this.lastPromptTokens = usage.path("prompt_tokens").asInt(0);
-            this.lastCompletionTokens = usage.path("completion_tokens").asInt(0);
-        }
-
-        return content.asText();
-    }
-
-    @Override
-    public int getLastPromptTokens() {
-        return lastPromptTokens;
-    }
-
-    @Override
-    public int getLastCompletionTokens() {
-        return lastCompletionTokens;
+        return new LlmResponse(content.asText(),
+                usage.path("prompt_tokens").asInt(0),
+                usage.path("completion_tokens").asInt(0));
     }
 
     /**
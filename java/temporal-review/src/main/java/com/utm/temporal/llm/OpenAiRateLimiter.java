@@ -0,0 +1,228 @@
+package com.utm.temporal.llm;
+
+import okhttp3.Headers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide token buckets for the OpenAI requests-per-minute and
+ * tokens-per-minute limits, so calls wait before they are sent instead of
+ * being rejected with 429 and retried.
+ *
+ * <p>The limits are learned from the {@code x-ratelimit-*} headers of every
+ * response; until the first response arrives nothing is held back. A call
+ * reserves one request and its estimated tokens up front, possibly driving a
+ * bucket negative, and waits until the bucket has refilled to zero, so
+ * callers are released in order at the sustainable rate. The remaining
+ * counts reported by the API lower the buckets when they are below the local
+ * estimate, an exhausted limit pauses every call until its reset time, and a
+ * {@code Retry-After} on a 429 pauses every call for that long.
+ */
+public final class OpenAiRateLimiter {
+
+    private static final long MINUTE_MS = 60_000L;
+
+    // e.g. "1s", "6m0s", "20ms", "1h2m3.5s"
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private static final OpenAiRateLimiter SHARED = new OpenAiRateLimiter();
+
+    private long requestLimit;      // Per minute; 0 until learned
+    private long tokenLimit;        // Per minute; 0 until learned
+    private double requests;        // Available now; negative while callers are queued
+    private double tokens;
+    private long refilledAtMs;
+    private long pausedUntilMs;
+
+    private final AtomicLong delayedCalls = new AtomicLong();
+    private final AtomicLong delayedMs = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+
+    OpenAiRateLimiter() {
+    }
+
+    /** The limiter every {@link OpenAiLlmClient} in the process shares. */
+    public static OpenAiRateLimiter shared() {
+        return SHARED;
+    }
+
+    /**
+     * Reserves one request and {@code estimatedTokens} for a call about to
+     * be sent. The reservation says how long the call must wait first.
+     */
+    public synchronized Reservation reserve(int estimatedTokens, long nowMs) {
+        refill(nowMs);
+        long waitMs = Math.max(0, pausedUntilMs - nowMs);
+        if (requestLimit > 0) {
+            requests -= 1;
+            waitMs = Math.max(waitMs, msUntilZero(requests, requestLimit));
+        }
+        long reservedTokens = 0;
+        if (tokenLimit > 0) {
+            // A call larger than the whole budget would otherwise never be let through
+            reservedTokens = Math.min(estimatedTokens, tokenLimit);
+            tokens -= reservedTokens;
+            waitMs = Math.max(waitMs, msUntilZero(tokens, tokenLimit));
+        }
+        if (waitMs > 0) {
+            delayedCalls.incrementAndGet();
+            delayedMs.addAndGet(waitMs);
+        }
+        return new Reservation(waitMs, reservedTokens);
+    }
+
+    /**
+     * Returns the difference between the tokens a call reserved and the
+     * tokens it actually used to the bucket. A call that failed, was
+     * cancelled or reported no usage settles with 0 and gets its whole
+     * reservation back; a call reserved before the token limit was known
+     * took nothing and gets nothing back.
+     */
+    public synchronized void settle(Reservation reservation, int actualTokens, long nowMs) {
+        if (reservation.tokens <= 0 || tokenLimit <= 0) {
+            return;
+        }
+        refill(nowMs);
+        tokens = Math.min(tokenLimit, tokens + reservation.tokens - Math.max(0, actualTokens));
+    }
+
+    /** Updates the limits and buckets from the rate-limit headers of a response. */
+    public synchronized void update(Headers headers, long nowMs) {
+        refill(nowMs);
+        long limit = parseLong(headers.get("x-ratelimit-limit-requests"));
+        if (limit > 0) {
+            if (requestLimit == 0) {
+                requests = limit;
+            }
+            requestLimit = limit;
+        }
+        limit = parseLong(headers.get("x-ratelimit-limit-tokens"));
+        if (limit > 0) {
+            if (tokenLimit == 0) {
+                tokens = limit;
+            }
+            tokenLimit = limit;
+        }
+
+        long remaining = parseLong(headers.get("x-ratelimit-remaining-requests"));
+        if (remaining >= 0 && requestLimit > 0) {
+            requests = Math.min(requests, remaining);
+            if (remaining == 0) {
+                pauseUntil(nowMs + parseDurationMs(headers.get("x-ratelimit-reset-requests")));
+            }
+        }
+        remaining = parseLong(headers.get("x-ratelimit-remaining-tokens"));
+        if (remaining >= 0 && tokenLimit > 0) {
+            tokens = Math.min(tokens, remaining);
+            if (remaining == 0) {
+                pauseUntil(nowMs + parseDurationMs(headers.get("x-ratelimit-reset-tokens")));
+            }
+        }
+    }
+
+    /** Holds back every call for {@code pauseMs}, e.g. the {@code Retry-After} of a 429. */
+    public synchronized void pause(long pauseMs, long nowMs) {
+        if (pauseMs > 0) {
+            pauseUntil(nowMs + pauseMs);
+        }
+    }
+
+    /** The {@code Retry-After} of a response in milliseconds, or 0 when it has none. */
+    public static long retryAfterMs(Headers headers) {
+        long ms = parseLong(headers.get("retry-after-ms"));
+        if (ms >= 0) {
+            return ms;
+        }
+        long seconds = parseLong(headers.get("Retry-After"));
+        return seconds < 0 ? 0 : seconds * 1000L;
+    }
+
+    /** One-line summary of the limiter counters, for logging. */
+    public String metricsSummary() {
+        long limitRequests;
+        long limitTokens;
+        synchronized (this) {
+            limitRequests = requestLimit;
+            limitTokens = tokenLimit;
+        }
+        return String.format("llm rate limiter: %d calls delayed (%d ms total), %d pauses; limits %s",
+                delayedCalls.get(), delayedMs.get(), pauses.get(),
+                limitRequests == 0 && limitTokens == 0 ? "not yet known"
+                        : limitRequests + " requests/min, " + limitTokens + " tokens/min");
+    }
+
+    /** What a call took from the buckets, and how long it must wait before it is sent. */
+    public static final class Reservation {
+        public final long waitMs;
+        final long tokens;  // Taken from the token bucket; 0 while the token limit is unknown
+
+        Reservation(long waitMs, long tokens) {
+            this.waitMs = waitMs;
+            this.tokens = tokens;
+        }
+    }
+
+    private void pauseUntil(long untilMs) {
+        if (untilMs > pausedUntilMs) {
+            pausedUntilMs = untilMs;
+            pauses.incrementAndGet();
+        }
+    }
+
+    private void refill(long nowMs) {
+        long elapsedMs = nowMs - refilledAtMs;
+        if (elapsedMs <= 0) {
+            return;
+        }
+        refilledAtMs = nowMs;
+        if (requestLimit > 0) {
+            requests = Math.min(requestLimit, requests + elapsedMs * (double) requestLimit / MINUTE_MS);
+        }
+        if (tokenLimit > 0) {
+            tokens = Math.min(tokenLimit, tokens + elapsedMs * (double) tokenLimit / MINUTE_MS);
+        }
+    }
+
+    private static long msUntilZero(double level, long perMinute) {
+        return level >= 0 ? 0 : (long) Math.ceil(-level * MINUTE_MS / perMinute);
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Milliseconds of a reset duration such as {@code 6m0s}; 0 when absent or unreadable. */
+    static long parseDurationMs(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double ms = 0;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h":
+                    ms += amount * 3_600_000;
+                    break;
+                case "m":
+                    ms += amount * 60_000;
+                    break;
+                case "s":
+                    ms += amount * 1_000;
+                    break;
+                default:
+                    ms += amount;
+            }
+        }
+        return (long) Math.ceil(ms);
+    }
+}
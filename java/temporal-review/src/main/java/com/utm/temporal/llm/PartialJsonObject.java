@@ -0,0 +1,146 @@
+package com.utm.temporal.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The top-level fields of a JSON object that is still arriving, parsed as
+ * each piece comes in. A scalar field appears once its value is complete,
+ * and an array of scalars (such as {@code findings}) grows by one element
+ * each time an element is complete, so a caller can read
+ * {@code recommendation} long before the last finding has been generated.
+ *
+ * <p>Nested objects are skipped. Text that stops being valid JSON ends the
+ * parse, keeping the fields read so far. Thread-safe: one thread feeds while
+ * others read.
+ */
+public final class PartialJsonObject {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private int depth;
+    private String field;
+    private List<Object> array;
+    private boolean failed;
+
+    public PartialJsonObject() {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** Parses the next piece of the object's text. */
+    public synchronized void feed(String text) {
+        if (failed || text.isEmpty()) {
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                onToken(token);
+            }
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                depth++;
+                break;
+            case END_OBJECT:
+                depth--;
+                break;
+            case START_ARRAY:
+                depth++;
+                if (depth == 2) {
+                    array = new ArrayList<>();
+                    fields.put(field, Collections.unmodifiableList(new ArrayList<>(array)));
+                }
+                break;
+            case END_ARRAY:
+                if (depth == 2) {
+                    array = null;
+                }
+                depth--;
+                break;
+            case FIELD_NAME:
+                if (depth == 1) {
+                    field = parser.getCurrentName();
+                }
+                break;
+            default:
+                if (!token.isScalarValue()) {
+                    break;
+                }
+                Object value = scalarValue(token);
+                if (depth == 1) {
+                    fields.put(field, value);
+                } else if (depth == 2 && array != null) {
+                    array.add(value);
+                    fields.put(field, Collections.unmodifiableList(new ArrayList<>(array)));
+                }
+        }
+    }
+
+    private Object scalarValue(JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    /** The string value of a completed top-level field, or null. */
+    public synchronized String getString(String name) {
+        Object value = fields.get(name);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /** The completed string elements of a top-level array so far; empty if none. */
+    public synchronized List<String> getStrings(String name) {
+        Object value = fields.get(name);
+        if (!(value instanceof List)) {
+            return List.of();
+        }
+        List<String> strings = new ArrayList<>();
+        for (Object element : (List<?>) value) {
+            if (element instanceof String) {
+                strings.add((String) element);
+            }
+        }
+        return strings;
+    }
+
+    /** A copy of the top-level fields read so far. */
+    public synchronized Map<String, Object> snapshot() {
+        return new LinkedHashMap<>(fields);
+    }
+}
@@ -0,0 +1,110 @@
+package com.utm.temporal.llm;
+
+import com.utm.temporal.db.DatabaseClient;
+import com.utm.temporal.model.CachedLlmResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LlmResponseStore} backed by the {@code llm_responses} table, shared
+ * by every worker that reaches the database.
+ *
+ * <p>A claim is a row without an answer: the worker holding it calls the LLM
+ * while the others wait for the answer to be stored. A claim lapses after
+ * the lock duration, so a worker that dies mid-call only delays the others.
+ * Expired answers, and the least recently used ones past the size limit,
+ * are deleted in the background.
+ */
+public class PostgresLlmResponseStore implements LlmResponseStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresLlmResponseStore.class);
+
+    static final long EVICT_INTERVAL_MINUTES = 10;
+
+    // Trimming deletes down to this fraction of the limit, so it is not needed on every run
+    private static final double EVICT_TO_FRACTION = 0.9;
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "llm-cache-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DatabaseClient databaseClient;
+    private final int ttlSeconds;
+    private final long maxBytes;
+    private final int lockSeconds;
+
+    public PostgresLlmResponseStore(DatabaseClient databaseClient, Duration ttl, long maxBytes, Duration lock) {
+        this.databaseClient = databaseClient;
+        this.ttlSeconds = (int) ttl.getSeconds();
+        this.maxBytes = maxBytes;
+        this.lockSeconds = (int) lock.getSeconds();
+        EVICTOR.scheduleAtFixedRate(this::evict, EVICT_INTERVAL_MINUTES, EVICT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public CachedLlmResponse get(String key) {
+        try {
+            return databaseClient.loadLlmResponse(key, ttlSeconds);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load LLM response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void put(String key, String model, CachedLlmResponse response) {
+        try {
+            databaseClient.saveLlmResponse(key, model, response);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to store LLM response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        try {
+            databaseClient.deleteLlmResponse(key);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to delete LLM response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean claim(String key, String model) {
+        try {
+            return databaseClient.claimLlmResponse(key, model, lockSeconds, ttlSeconds);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to claim LLM response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        try {
+            databaseClient.releaseLlmResponseClaim(key);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to release LLM response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Deletes expired answers and lapsed claims, then trims the table to its size limit. */
+    void evict() {
+        try {
+            int deleted = databaseClient.evictLlmResponses(ttlSeconds, maxBytes,
+                    (long) (maxBytes * EVICT_TO_FRACTION));
+            if (deleted > 0) {
+                logger.info("Evicted {} cached LLM responses", deleted);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Runs again at the next interval; a failure must not cancel the schedule
+            logger.warn("Failed to evict cached LLM responses: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.utm.temporal.model;
+
+/**
+ * How long one agent took on one recorded review, read back from
+ * {@code review_runs} to fit the adaptive activity timeouts.
+ */
+public class AgentLatencySample {
+    public String agentName;
+    public int diffChars;           // Diff length the agent reviewed
+    public long latencyMs;          // Duration of its successful attempt
+
+    public AgentLatencySample() {}
+
+    public AgentLatencySample(String agentName, int diffChars, long latencyMs) {
+        this.agentName = agentName;
+        this.diffChars = diffChars;
+        this.latencyMs = latencyMs;
+    }
+}
@@ -0,0 +1,23 @@
+package com.utm.temporal.model;
+
+/**
+ * Heartbeat details of an agent activity: how far its LLM call has got.
+ * Visible in the Temporal UI under the pending activity.
+ */
+public class AgentProgress {
+    public int attempt;             // In-client attempt of the LLM call, starting at 1
+    public long bytesReceived;      // Response body bytes received by this attempt
+    public long elapsedMs;          // Time since the activity started the call
+    public long firstTokenMs;       // Time from the start of the call to the first streamed token; 0 before it (or unstreamed)
+    public String riskLevel;        // Streamed so far; null until generated
+    public String recommendation;   // Streamed so far; null until generated
+    public int findingsSoFar;       // Findings completely generated so far
+
+    public AgentProgress() {}
+
+    public AgentProgress(int attempt, long bytesReceived, long elapsedMs) {
+        this.attempt = attempt;
+        this.bytesReceived = bytesReceived;
+        this.elapsedMs = elapsedMs;
+    }
+}
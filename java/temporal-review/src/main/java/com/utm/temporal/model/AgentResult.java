@@ -12,6 +12,8 @@ public class AgentResult {
     public List<String> findings;
     public int promptTokens;        // Tokens used for input
     public int completionTokens;    // Tokens used for output
+    public String status;           // null when the agent finished; "TIMED_OUT" when it ran out of latency budget
+    public long latencyMs;          // Duration of the successful attempt; 0 when unknown (merged, carried forward, or no tokens used)
 
     // No-arg constructor required for Jackson deserialization
     public AgentResult() {}
@@ -0,0 +1,15 @@
+package com.utm.temporal.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Start-to-close timeouts for the agent activities of one review, as
+ * recorded in workflow history. Agents without an entry use
+ * {@code ACTIVITY_TIMEOUT_SECONDS}.
+ */
+public class AgentTimeouts {
+    public Map<String, Integer> timeoutSeconds = new LinkedHashMap<>(); // By agent name
+
+    public AgentTimeouts() {}
+}
@@ -0,0 +1,24 @@
+package com.utm.temporal.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals for a batch of reviews.
+ */
+public class BatchReviewProgress {
+    public int started;                  // Child reviews started
+    public int completed;                // Child reviews that returned a response
+    public int failed;                   // Child reviews that failed
+    public long totalPromptTokens;
+    public long totalCompletionTokens;
+    public double estimatedCost;         // Sum of child estimated costs in USD
+    public long startedAtMs;             // Workflow time the batch started
+    public long elapsedMs;
+    public double reviewsPerMinute;      // (completed + failed) per minute of elapsed time
+    public Map<String, Integer> recommendations = new HashMap<>(); // overallRecommendation -> count
+    public boolean finished;
+
+    // No-arg constructor required for Jackson deserialization
+    public BatchReviewProgress() {}
+}
@@ -0,0 +1,22 @@
+package com.utm.temporal.model;
+
+/**
+ * Input for BatchReviewWorkflow. Also carries the cursor and running totals
+ * across continue-as-new runs.
+ */
+public class BatchReviewRequest {
+    public String inputPath;             // JSON Lines file, one ReviewRequest per line
+    public int parallelism;              // Max PRReviewWorkflow children running at once
+    public int nextLine;                 // 0-based line to resume reading from
+    public long nextOffset;              // Byte offset of nextLine in the input file
+    public String inputTaskQueue;        // Served only by the process that has inputPath; null for the workflow's own queue
+    public BatchReviewProgress progress; // Totals carried over from previous runs; null on first run
+
+    // No-arg constructor required for Jackson deserialization
+    public BatchReviewRequest() {}
+
+    public BatchReviewRequest(String inputPath, int parallelism) {
+        this.inputPath = inputPath;
+        this.parallelism = parallelism;
+    }
+}
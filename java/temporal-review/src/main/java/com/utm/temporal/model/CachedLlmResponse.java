@@ -0,0 +1,22 @@
+package com.utm.temporal.model;
+
+/**
+ * An LLM answer held by the response cache, with the usage of the call that
+ * produced it.
+ */
+public class CachedLlmResponse {
+    public String content;
+    public int promptTokens;
+    public int completionTokens;
+    public long createdAtMs;        // When the answer was produced; entries expire a TTL after this
+
+    // No-arg constructor required for Jackson deserialization
+    public CachedLlmResponse() {}
+
+    public CachedLlmResponse(String content, int promptTokens, int completionTokens, long createdAtMs) {
+        this.content = content;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.createdAtMs = createdAtMs;
+    }
+}
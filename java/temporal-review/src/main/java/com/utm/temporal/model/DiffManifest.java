@@ -0,0 +1,17 @@
+package com.utm.temporal.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a workflow needs to know about a diff held in the DiffStore,
+ * without carrying the diff itself through workflow history.
+ */
+public class DiffManifest {
+    public String diffHash;                         // Content hash in the DiffStore
+    public int sizeChars;                           // Diff length in characters
+    public List<String> filePaths;                  // Files touched, in diff order
+    public Map<String, List<String>> fileHunkHashes; // Hunk hashes per file; null where not needed
+
+    public DiffManifest() {}
+}
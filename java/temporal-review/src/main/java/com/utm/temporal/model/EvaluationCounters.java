@@ -0,0 +1,17 @@
+package com.utm.temporal.model;
+
+/**
+ * Running totals for one repository, as kept in {@code evaluation_counters};
+ * also used for the change a single write makes to them.
+ */
+public class EvaluationCounters {
+    public int totalReviews;
+    public int totalFindings;
+    public int mergedPRs;
+    public int mergedPRsWithBugs;
+    public int findingsWithOutcome; // Findings with a disposition other than UNKNOWN
+    public int acceptedFindings;
+    public int dismissedFindings;
+
+    public EvaluationCounters() {}
+}
@@ -1,5 +1,7 @@
 package com.utm.temporal.model;
 
+import java.util.List;
+
 /**
  * Metadata about the review execution.
  */
@@ -9,7 +11,13 @@ public class Metadata {
     public String model;            // LLM model used (e.g., "gpt-4")
     public int totalPromptTokens;   // Sum of prompt tokens across all agents
     public int totalCompletionTokens; // Sum of completion tokens across all agents
-    public Double estimatedCost;    // Estimated cost in USD; null when not computed
+    public Double estimatedCost;    // Estimated cost in USD; null when not computed. Cached LLM answers cost 0
+    public List<String> cancelledAgents; // Agents abandoned by a fail-fast early exit; null when none
+    public String incrementalBaseSha;    // Head SHA of the review findings were carried forward from; null for full reviews
+    public Integer carriedForwardFindings; // Findings reused from that review; null for full reviews
+    public List<String> timedOutAgents;  // Agents that did not finish within the latency budget; null when none
+    public Integer timedOutShards;       // Shards of a large diff left unreviewed by the latency budget; null when none
+    public Integer cancelledShards;      // Shards of a large diff abandoned by a fail-fast early exit; null when none
 
     // No-arg constructor required for Jackson deserialization
     public Metadata() {}
@@ -0,0 +1,17 @@
+package com.utm.temporal.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most recent recorded review of a PR, used as the baseline for an
+ * incremental re-review.
+ */
+public class PreviousReview {
+    public String reviewId;
+    public String headSha;                          // null if the review did not record one
+    public Map<String, List<String>> fileHunkHashes; // Hunk hashes per file at that review
+    public List<AgentResult> agentResults;          // Results as recorded, including Priority
+
+    public PreviousReview() {}
+}
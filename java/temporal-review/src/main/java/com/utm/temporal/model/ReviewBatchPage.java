@@ -0,0 +1,19 @@
+package com.utm.temporal.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of requests read from a batch input file.
+ */
+public class ReviewBatchPage {
+    public List<ReviewRequest> requests = new ArrayList<>();
+    public List<Integer> lineNumbers = new ArrayList<>(); // 1-based source line of each request
+    public List<Integer> invalidLines = new ArrayList<>(); // 1-based lines that were not a valid ReviewRequest
+    public int nextLine;                                  // 0-based line to continue reading from
+    public long nextOffset;                               // Byte offset of nextLine in the file
+    public boolean endOfInput;
+
+    // No-arg constructor required for Jackson deserialization
+    public ReviewBatchPage() {}
+}
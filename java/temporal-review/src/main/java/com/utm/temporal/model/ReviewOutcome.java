@@ -1,6 +1,7 @@
 package com.utm.temporal.model;
 
 import java.util.List;
+import java.util.Map;
 
 public class ReviewOutcome {
     public String reviewId;
@@ -13,8 +14,11 @@ public class ReviewOutcome {
     public String systemRecommendation;
     public List<AgentResult> agentResults;
     public long tookMs;
+    public Integer diffChars;                       // Diff length the agents reviewed; keys the latency samples
     public String model;
     public int learningVersion;
+    public String headSha;                          // PR head commit that was reviewed; null if unknown
+    public Map<String, List<String>> fileHunkHashes; // Hunk hashes per file, baseline for incremental reviews
 
     // Filled in later by OutcomeCollectionSchedule
     public String maintainerDecision;
@@ -8,9 +8,16 @@ public class ReviewRequest {
     public String prTitle;
     public String prDescription;
     public String author;     // PR author
-    public String diff;
+    public String diff;              // null when the diff is passed by reference (diffHash)
     public TestSummary testSummary;  // Optional
     public String repository;        // Optional: "owner/repo" for learning context
+    public Boolean failFast;         // Optional: stop and cancel remaining agents (or shards of a large diff) once one returns BLOCK
+    public String headSha;           // Optional: PR head commit being reviewed
+    public Boolean incremental;      // Optional: only review hunks changed since the last review of this PR
+    public String diffHash;          // Content hash of the diff in the DiffStore when diff is not inline
+    public Integer diffSize;         // Length of the referenced diff in characters
+    public Integer latencyBudgetSeconds; // Optional: return partial results after this long (default REVIEW_LATENCY_BUDGET_SECONDS)
+    public String lane;              // Optional: "interactive" (default) or "bulk"; picks the task queue the review runs on
 
     // No-arg constructor required for Jackson deserialization
     public ReviewRequest() {}
@@ -23,4 +30,22 @@ public class ReviewRequest {
         this.diff = diff;
         this.testSummary = testSummary;
     }
+
+    /** Copy constructor, used when a workflow derives a request (e.g. one shard of a large diff). */
+    public ReviewRequest(ReviewRequest other) {
+        this.prNumber = other.prNumber;
+        this.prTitle = other.prTitle;
+        this.prDescription = other.prDescription;
+        this.author = other.author;
+        this.diff = other.diff;
+        this.testSummary = other.testSummary;
+        this.repository = other.repository;
+        this.failFast = other.failFast;
+        this.headSha = other.headSha;
+        this.incremental = other.incremental;
+        this.diffHash = other.diffHash;
+        this.diffSize = other.diffSize;
+        this.latencyBudgetSeconds = other.latencyBudgetSeconds;
+        this.lane = other.lane;
+    }
 }
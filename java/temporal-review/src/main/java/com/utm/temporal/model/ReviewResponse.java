@@ -9,6 +9,7 @@ public class ReviewResponse {
     public String overallRecommendation;  // "APPROVE", "REQUEST_CHANGES", "BLOCK"
     public List<AgentResult> agents;
     public Metadata metadata;
+    public boolean earlyTerminated;       // true when fail-fast stopped the review before every agent ran
 
     // PR metadata (echoed from request)
     public Integer prNumber;
@@ -0,0 +1,16 @@
+package com.utm.temporal.model;
+
+/**
+ * Worker settings that steer a review workflow, as recorded in workflow
+ * history. A replay, or a run resumed on a worker started with different
+ * environment variables, makes the same decisions as the original run.
+ */
+public class ReviewSettings {
+    public boolean parallelAgents;  // PARALLEL_AGENTS
+    public int shardMaxTokens;      // SHARD_MAX_TOKENS
+    public int maxConcurrentShards; // MAX_CONCURRENT_SHARDS
+    public int latencyBudgetSeconds; // REVIEW_LATENCY_BUDGET_SECONDS, for requests without their own budget
+    public boolean separateActivityQueues; // SEPARATE_ACTIVITY_QUEUES
+
+    public ReviewSettings() {}
+}
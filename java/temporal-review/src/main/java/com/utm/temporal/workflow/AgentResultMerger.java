@@ -0,0 +1,133 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.AgentResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reduces several results from the same agent into one.
+ * This is deterministic post-processing — no LLM calls.
+ *
+ * <p>The merged result keeps the most severe recommendation and risk level,
+ * the union of findings with duplicates removed (first occurrence wins, order
+ * preserved) and the summed token usage. A status such as TIMED_OUT on any
+ * input is kept, since part of the merged review never ran.
+ */
+public final class AgentResultMerger {
+
+    private static final List<String> RECOMMENDATION_SEVERITY =
+            Arrays.asList("APPROVE", "REQUEST_CHANGES", "BLOCK");
+    private static final List<String> RISK_SEVERITY =
+            Arrays.asList("LOW", "MEDIUM", "HIGH");
+
+    private AgentResultMerger() {
+        // utility class
+    }
+
+    /**
+     * Merges per-shard result lists into one result per agent. Agents are
+     * returned in the order they first appear, so shards that each report
+     * agents in a fixed order produce a merged list in that same order.
+     */
+    public static List<AgentResult> mergeByAgent(List<List<AgentResult>> resultLists) {
+        Map<String, List<AgentResult>> byAgent = new LinkedHashMap<>();
+        for (List<AgentResult> results : resultLists) {
+            if (results == null) continue;
+            for (AgentResult result : results) {
+                byAgent.computeIfAbsent(result.agentName, k -> new ArrayList<>()).add(result);
+            }
+        }
+        List<AgentResult> merged = new ArrayList<>();
+        for (List<AgentResult> results : byAgent.values()) {
+            merged.add(merge(results));
+        }
+        return merged;
+    }
+
+    /** Merges results that all come from the same agent. */
+    public static AgentResult merge(List<AgentResult> results) {
+        AgentResult merged = new AgentResult();
+        Set<String> seen = new LinkedHashSet<>();
+        merged.findings = new ArrayList<>();
+        for (AgentResult result : results) {
+            if (merged.agentName == null) {
+                merged.agentName = result.agentName;
+            }
+            if (merged.status == null) {
+                merged.status = result.status;
+            }
+            merged.recommendation = mostSevere(RECOMMENDATION_SEVERITY, merged.recommendation, result.recommendation);
+            merged.riskLevel = mostSevere(RISK_SEVERITY, merged.riskLevel, result.riskLevel);
+            merged.promptTokens += result.promptTokens;
+            merged.completionTokens += result.completionTokens;
+            if (result.findings == null) continue;
+            for (String finding : result.findings) {
+                if (finding != null && seen.add(normalize(finding))) {
+                    merged.findings.add(finding);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Carries results from a previous review forward to an incremental review.
+     * Only findings about code that is still the same can be reused: a finding
+     * is kept when it mentions one of {@code reviewedFiles} (the files of the
+     * previous review, by path or file name) and none of {@code staleFiles}
+     * (files that have changed or left the diff). Findings that name no file,
+     * such as a verdict on the whole PR, are dropped as well, since nothing
+     * shows they still hold. A result that loses all of its findings no
+     * longer justifies its verdict and is reset to APPROVE / LOW. Token usage
+     * is zeroed since none is spent.
+     */
+    public static List<AgentResult> carryForward(List<AgentResult> previous, Collection<String> staleFiles,
+                                                 Collection<String> reviewedFiles) {
+        List<AgentResult> carried = new ArrayList<>();
+        for (AgentResult result : previous) {
+            AgentResult copy = new AgentResult(result.agentName, result.riskLevel, result.recommendation,
+                    new ArrayList<>());
+            List<String> findings = result.findings != null ? result.findings : new ArrayList<>();
+            for (String finding : findings) {
+                if (finding != null && mentionsAny(finding, reviewedFiles) && !mentionsAny(finding, staleFiles)) {
+                    copy.findings.add(finding);
+                }
+            }
+            if (!findings.isEmpty() && copy.findings.isEmpty()) {
+                copy.recommendation = "APPROVE";
+                copy.riskLevel = "LOW";
+            }
+            carried.add(copy);
+        }
+        return carried;
+    }
+
+    private static boolean mentionsAny(String finding, Collection<String> paths) {
+        for (String path : paths) {
+            int slash = path.lastIndexOf('/');
+            String fileName = slash < 0 ? path : path.substring(slash + 1);
+            if (finding.contains(path) || (!fileName.isEmpty() && finding.contains(fileName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Normalised form used to detect the same finding reported by several shards. */
+    static String normalize(String finding) {
+        return finding.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    private static String mostSevere(List<String> scale, String current, String candidate) {
+        if (current == null) return candidate;
+        if (candidate == null) return current;
+        return scale.indexOf(candidate) > scale.indexOf(current) ? candidate : current;
+    }
+}
@@ -0,0 +1,109 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.AgentLatencySample;
+import com.utm.temporal.model.AgentTimeouts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Start-to-close timeouts for the agent activities, fitted to how long each
+ * agent took on recorded reviews of a similar diff size.
+ *
+ * <p>Samples are grouped by agent and by diff size bucket. A bucket's timeout
+ * is {@value #HEADROOM} times its 95th percentile latency, clamped to
+ * {@code ADAPTIVE_TIMEOUT_MIN_SECONDS}..{@code ADAPTIVE_TIMEOUT_MAX_SECONDS}.
+ * Buckets with fewer than {@value #MIN_SAMPLES} samples get no timeout, so the
+ * agent keeps {@code ACTIVITY_TIMEOUT_SECONDS} until enough history exists.
+ *
+ * <p>Workers refit the model periodically and {@link #install} it; workflows
+ * read {@link #current()} inside a side effect, so the timeouts a review used
+ * are recorded in its history and replay identically.
+ */
+public final class AgentTimeoutModel {
+
+    // Upper bounds, in diff characters, of every size bucket but the last
+    static final int[] BUCKET_LIMITS = {2_000, 8_000, 32_000, 128_000};
+    static final int MIN_SAMPLES = 20;
+    static final double PERCENTILE = 0.95;
+    static final double HEADROOM = 2.0;
+
+    private static volatile AgentTimeoutModel current = new AgentTimeoutModel(new TreeMap<>(), 0);
+
+    // Timeout in seconds by bucket, then by agent name
+    private final Map<Integer, Map<String, Integer>> timeouts;
+    private final int sampleCount;
+
+    private AgentTimeoutModel(Map<Integer, Map<String, Integer>> timeouts, int sampleCount) {
+        this.timeouts = timeouts;
+        this.sampleCount = sampleCount;
+    }
+
+    /** Fits a model to {@code samples}, bounding every timeout to {@code minSeconds}..{@code maxSeconds}. */
+    public static AgentTimeoutModel fit(List<AgentLatencySample> samples, int minSeconds, int maxSeconds) {
+        Map<Integer, Map<String, List<Long>>> latencies = new TreeMap<>();
+        for (AgentLatencySample sample : samples) {
+            if (sample.agentName == null || sample.latencyMs <= 0) continue;
+            latencies.computeIfAbsent(bucket(sample.diffChars), k -> new TreeMap<>())
+                    .computeIfAbsent(sample.agentName, k -> new ArrayList<>())
+                    .add(sample.latencyMs);
+        }
+        Map<Integer, Map<String, Integer>> timeouts = new TreeMap<>();
+        for (Map.Entry<Integer, Map<String, List<Long>>> bucket : latencies.entrySet()) {
+            for (Map.Entry<String, List<Long>> agent : bucket.getValue().entrySet()) {
+                if (agent.getValue().size() < MIN_SAMPLES) continue;
+                long p95Ms = percentile(agent.getValue(), PERCENTILE);
+                int seconds = (int) Math.ceil(p95Ms * HEADROOM / 1000.0);
+                timeouts.computeIfAbsent(bucket.getKey(), k -> new TreeMap<>())
+                        .put(agent.getKey(), Math.max(minSeconds, Math.min(maxSeconds, seconds)));
+            }
+        }
+        return new AgentTimeoutModel(timeouts, samples.size());
+    }
+
+    /** The model workflows on this worker currently use; empty until one is installed. */
+    public static AgentTimeoutModel current() {
+        return current;
+    }
+
+    public static void install(AgentTimeoutModel model) {
+        current = model;
+    }
+
+    /** Timeouts for a review of a {@code diffChars}-character diff; empty when there is too little history. */
+    public AgentTimeouts timeoutsFor(int diffChars) {
+        AgentTimeouts result = new AgentTimeouts();
+        result.timeoutSeconds.putAll(timeouts.getOrDefault(bucket(diffChars), Collections.emptyMap()));
+        return result;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentTimeoutModel{" + sampleCount + " samples, timeouts by size bucket " + timeouts + "}";
+    }
+
+    /** Index of the size bucket {@code diffChars} falls into. */
+    static int bucket(int diffChars) {
+        for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+            if (diffChars < BUCKET_LIMITS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS.length;
+    }
+
+    /** Nearest-rank percentile of {@code values}. */
+    private static long percentile(List<Long> values, double percentile) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+}
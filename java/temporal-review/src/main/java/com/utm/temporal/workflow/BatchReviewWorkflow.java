@@ -0,0 +1,17 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.BatchReviewProgress;
+import com.utm.temporal.model.BatchReviewRequest;
+import io.temporal.workflow.QueryMethod;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+@WorkflowInterface
+public interface BatchReviewWorkflow {
+    @WorkflowMethod
+    BatchReviewProgress run(BatchReviewRequest batch);
+
+    /** Running totals, including throughput, token usage and cost so far. */
+    @QueryMethod
+    BatchReviewProgress getProgress();
+}
@@ -0,0 +1,162 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.activity.ReviewBatchActivity;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.model.BatchReviewProgress;
+import com.utm.temporal.model.BatchReviewRequest;
+import com.utm.temporal.model.ReviewBatchPage;
+import com.utm.temporal.model.ReviewRequest;
+import com.utm.temporal.model.ReviewResponse;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.common.RetryOptions;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.ChildWorkflowOptions;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reviews every request in a JSON Lines file by starting one
+ * {@link PRReviewWorkflow} child per line, with at most
+ * {@code parallelism} children running at once.
+ *
+ * <p>The file is only on the host that started the batch, so it is read by
+ * activities on that process's own {@code inputTaskQueue}, a page at a time
+ * from the byte offset where the previous page ended.
+ *
+ * <p>After {@value #REVIEWS_PER_RUN} reviews the workflow drains its children
+ * and continues as new with the file cursor and running totals, so the event
+ * history stays bounded no matter how large the batch is.
+ */
+public class BatchReviewWorkflowImpl implements BatchReviewWorkflow {
+    private static final Logger logger = Workflow.getLogger(BatchReviewWorkflowImpl.class);
+
+    static final int REVIEWS_PER_RUN = 100;
+
+    private static final ActivityOptions ACTIVITY_OPTIONS = ActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofSeconds(60))
+            .setRetryOptions(RetryOptions.newBuilder()
+                    .setInitialInterval(Duration.ofSeconds(5))
+                    .setBackoffCoefficient(2)
+                    .build())
+            .build();
+
+    private BatchReviewProgress progress;
+
+    @Override
+    public BatchReviewProgress run(BatchReviewRequest batch) {
+        progress = batch.progress != null ? batch.progress : new BatchReviewProgress();
+        if (progress.startedAtMs == 0) {
+            progress.startedAtMs = Workflow.currentTimeMillis();
+        }
+        int parallelism = Math.max(1, batch.parallelism);
+        String batchId = Workflow.getInfo().getWorkflowId();
+        // Batches recorded before lanes existed replay with children on the batch's queue
+        boolean bulkLane = Workflow.getVersion("bulk-lane", Workflow.DEFAULT_VERSION, 1) >= 1;
+        // Batches recorded before byte offsets re-scan the file from line 1 for every page
+        boolean byOffset = Workflow.getVersion("batch-input-offset", Workflow.DEFAULT_VERSION, 1) >= 1;
+        ReviewBatchActivity reviewBatchActivity = Workflow.newActivityStub(ReviewBatchActivity.class,
+                batch.inputTaskQueue == null ? ACTIVITY_OPTIONS
+                        : ActivityOptions.newBuilder(ACTIVITY_OPTIONS).setTaskQueue(batch.inputTaskQueue).build());
+
+        logger.info("Batch review from " + batch.inputPath + " resuming at line " + batch.nextLine
+                + " (parallelism " + parallelism + ")");
+
+        List<Promise<Void>> running = new ArrayList<>();
+        int nextLine = batch.nextLine;
+        long nextOffset = batch.nextOffset;
+        int startedThisRun = 0;
+        boolean endOfInput = false;
+
+        while (!endOfInput && startedThisRun < REVIEWS_PER_RUN) {
+            int limit = Math.min(parallelism, REVIEWS_PER_RUN - startedThisRun);
+            ReviewBatchPage page = byOffset
+                    ? reviewBatchActivity.readRequestsAt(batch.inputPath, nextLine, nextOffset, limit)
+                    : reviewBatchActivity.readRequests(batch.inputPath, nextLine, limit);
+            nextLine = page.nextLine;
+            nextOffset = page.nextOffset;
+            endOfInput = page.endOfInput;
+
+            for (Integer line : page.invalidLines) {
+                logger.warn("Skipping invalid review request on line " + line);
+                progress.failed++;
+            }
+
+            for (int i = 0; i < page.requests.size(); i++) {
+                // Wait for a free slot in the parallelism window
+                Workflow.await(() -> PRReviewWorkflowImpl.countRunning(running) < parallelism);
+
+                ReviewRequest request = page.requests.get(i);
+                ChildWorkflowOptions.Builder options = ChildWorkflowOptions.newBuilder()
+                        .setWorkflowId(batchId + "-line-" + page.lineNumbers.get(i));
+                if (bulkLane) {
+                    // Batch reviews always run on the bulk lane, whatever the line asks for
+                    request.lane = AppConfig.LANE_BULK;
+                    options.setTaskQueue(AppConfig.getLaneTaskQueue(AppConfig.LANE_BULK));
+                }
+                PRReviewWorkflow child = Workflow.newChildWorkflowStub(PRReviewWorkflow.class, options.build());
+                running.add(Async.function(child::review, request)
+                        .handle((response, failure) -> {
+                            record(response, failure);
+                            return null;
+                        }));
+                progress.started++;
+                startedThisRun++;
+            }
+            running.removeIf(Promise::isCompleted);
+        }
+
+        // Children cannot follow us into the next run, so drain them first
+        Promise.allOf(running).get();
+        updateThroughput();
+
+        if (!endOfInput) {
+            logger.info("Processed " + progress.started + " reviews so far; continuing as new at line " + nextLine);
+            BatchReviewRequest next = new BatchReviewRequest(batch.inputPath, parallelism);
+            next.nextLine = nextLine;
+            next.nextOffset = nextOffset;
+            next.inputTaskQueue = batch.inputTaskQueue;
+            next.progress = progress;
+            Workflow.continueAsNew(next);
+        }
+
+        progress.finished = true;
+        logger.info("Batch complete: " + progress.completed + " reviewed, " + progress.failed + " failed, "
+                + String.format("%.1f", progress.reviewsPerMinute) + " reviews/min, "
+                + String.format("$%.4f", progress.estimatedCost));
+        return progress;
+    }
+
+    @Override
+    public BatchReviewProgress getProgress() {
+        return progress;
+    }
+
+    private void record(ReviewResponse response, Exception failure) {
+        if (failure != null || response == null) {
+            progress.failed++;
+            logger.warn("Review failed: " + (failure != null ? failure.getMessage() : "no response"));
+        } else {
+            progress.completed++;
+            progress.recommendations.merge(response.overallRecommendation, 1, Integer::sum);
+            if (response.metadata != null) {
+                progress.totalPromptTokens += response.metadata.totalPromptTokens;
+                progress.totalCompletionTokens += response.metadata.totalCompletionTokens;
+                if (response.metadata.estimatedCost != null) {
+                    progress.estimatedCost += response.metadata.estimatedCost;
+                }
+            }
+        }
+        updateThroughput();
+    }
+
+    private void updateThroughput() {
+        progress.elapsedMs = Workflow.currentTimeMillis() - progress.startedAtMs;
+        int done = progress.completed + progress.failed;
+        progress.reviewsPerMinute = progress.elapsedMs > 0 ? done * 60_000.0 / progress.elapsedMs : 0;
+    }
+}
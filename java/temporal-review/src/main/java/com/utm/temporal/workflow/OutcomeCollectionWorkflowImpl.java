@@ -1,5 +1,6 @@
 package com.utm.temporal.workflow;
 
+import com.utm.temporal.activity.EvaluationActivity;
 import com.utm.temporal.activity.FindingDispositionActivity;
 import com.utm.temporal.activity.GitHubOutcomeActivity;
 import io.temporal.activity.ActivityOptions;
@@ -28,11 +29,19 @@ public class OutcomeCollectionWorkflowImpl implements OutcomeCollectionWorkflow{
     private final GitHubOutcomeActivity gitHubOutcomeActivity = Workflow.newActivityStub(
             GitHubOutcomeActivity.class, ACTIVITY_OPTIONS
     );
+    private final EvaluationActivity evaluationActivity = Workflow.newActivityStub(
+            EvaluationActivity.class, ACTIVITY_OPTIONS
+    );
     @Override
     public void collect(String repository) {
         logger.info("Collecting outcomes for " + repository);
         gitHubOutcomeActivity.collectOutcomes(repository);
         findingDispositionActivity.inferDispositions(repository);
+        // Snapshots read running counters, so taking one after every collection
+        // keeps the dashboards within an hour of the outcomes
+        if (Workflow.getVersion("snapshot-after-collection", Workflow.DEFAULT_VERSION, 1) >= 1) {
+            evaluationActivity.computeSnapshot(repository);
+        }
         logger.info("Outcome collection complete for " + repository);
     }
 }
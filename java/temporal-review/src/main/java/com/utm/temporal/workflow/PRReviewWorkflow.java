@@ -2,6 +2,7 @@ package com.utm.temporal.workflow;
 
 import com.utm.temporal.model.ReviewRequest;
 import com.utm.temporal.model.ReviewResponse;
+import io.temporal.workflow.SignalMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 
@@ -9,4 +10,12 @@ import io.temporal.workflow.WorkflowMethod;
 public interface PRReviewWorkflow {
     @WorkflowMethod
     ReviewResponse review(ReviewRequest request);
+
+    /**
+     * Replaces the review in progress with one of {@code request}, typically
+     * the same PR after a new push. Work already started is cancelled and the
+     * workflow continues as new, so callers waiting on it get the newer result.
+     */
+    @SignalMethod
+    void supersede(ReviewRequest request);
 }
@@ -2,18 +2,31 @@ package com.utm.temporal.workflow;
 
 import com.utm.temporal.activity.*;
 import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.diff.DiffFingerprint;
+import com.utm.temporal.diff.DiffSharder;
 import com.utm.temporal.learning.HeuristicsEngine;
 import com.utm.temporal.llm.OpenAiLlmClient;
 import com.utm.temporal.model.*;
 import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
 import io.temporal.common.RetryOptions;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.CancellationScope;
+import io.temporal.workflow.ChildWorkflowOptions;
+import io.temporal.workflow.ContinueAsNewOptions;
+import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 import org.slf4j.Logger;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class PRReviewWorkflowImpl implements PRReviewWorkflow {
     private static final Logger logger = Workflow.getLogger(PRReviewWorkflowImpl.class);
@@ -22,7 +35,7 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
     //    AppConfig getters return values cached at startup (via validate()),
     //    so this static initializer is replay-safe — it will never read
     //    live environment variables during workflow execution.
-    private static final ActivityOptions ACTIVITY_OPTIONS = ActivityOptions.newBuilder()
+    static final ActivityOptions ACTIVITY_OPTIONS = ActivityOptions.newBuilder()
             .setStartToCloseTimeout(Duration.ofSeconds(AppConfig.getActivityTimeoutSeconds()))
             .setRetryOptions(RetryOptions.newBuilder()
                     .setInitialInterval(Duration.ofSeconds(AppConfig.getRetryIntervalSeconds()))
@@ -30,31 +43,225 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
                     .build())
             .build();
 
-    // 2. create activity stubs for each agent
-    private final CodeQualityActivity codeQualityActivity = Workflow.newActivityStub(
-            CodeQualityActivity.class, ACTIVITY_OPTIONS
+    //    Agent activities heartbeat while their LLM call runs, so a stuck
+    //    attempt is retried after the heartbeat timeout instead of the full
+    //    start-to-close timeout, and cancellation reaches the running call.
+    static final ActivityOptions AGENT_ACTIVITY_OPTIONS = ActivityOptions.newBuilder(ACTIVITY_OPTIONS)
+            .setHeartbeatTimeout(Duration.ofSeconds(AppConfig.getAgentHeartbeatTimeoutSeconds()))
+            .build();
+
+    //    Database lookups take milliseconds and degrade gracefully, so they
+    //    run as local activities: no task-queue round trip, no retry backoff
+    //    tuned for LLM calls, and fewer history events per review.
+    static final LocalActivityOptions LOCAL_ACTIVITY_OPTIONS = LocalActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofSeconds(AppConfig.getLocalActivityTimeoutSeconds()))
+            .setRetryOptions(RetryOptions.newBuilder()
+                    .setMaximumAttempts(3)
+                    .build())
+            .build();
+
+    /**
+     * {@code options} routed to the {@code pool} activity queue of the task
+     * queue this workflow runs on, when activities have their own queues
+     * ({@code SEPARATE_ACTIVITY_QUEUES} in the run's recorded
+     * {@code settings}). Following the workflow's queue keeps interactive
+     * and bulk activities in their lanes.
+     */
+    static ActivityOptions onPoolQueue(ActivityOptions options, String pool, ReviewSettings settings) {
+        if (!settings.separateActivityQueues) {
+            return options;
+        }
+        return ActivityOptions.newBuilder(options)
+                .setTaskQueue(AppConfig.activityTaskQueue(Workflow.getInfo().getTaskQueue(), pool))
+                .build();
+    }
+
+    /**
+     * Options for the {@code agentName} agent activity on the agent pool
+     * queue, with its start-to-close timeout taken from {@code timeouts} when
+     * the {@link AgentTimeoutModel} had enough history to fit one.
+     */
+    static ActivityOptions agentOptions(AgentTimeouts timeouts, String agentName, ReviewSettings settings) {
+        ActivityOptions options = onPoolQueue(AGENT_ACTIVITY_OPTIONS, AppConfig.POOL_AGENTS, settings);
+        Integer seconds = timeouts != null ? timeouts.timeoutSeconds.get(agentName) : null;
+        if (seconds == null) {
+            return options;
+        }
+        return ActivityOptions.newBuilder(options)
+                .setStartToCloseTimeout(Duration.ofSeconds(seconds))
+                .build();
+    }
+
+    /**
+     * Timeouts fitted to a {@code diffChars}-character diff. The worker's
+     * cached {@link AgentTimeoutModel} is read inside a side effect, so no
+     * database I/O runs on the workflow thread and a replay reuses the
+     * recorded timeouts. Empty (every agent keeps ACTIVITY_TIMEOUT_SECONDS)
+     * for histories recorded before adaptive timeouts, or when
+     * {@code ADAPTIVE_TIMEOUTS=false}.
+     */
+    static AgentTimeouts fittedTimeouts(int diffChars) {
+        if (Workflow.getVersion("adaptive-timeouts", Workflow.DEFAULT_VERSION, 1) < 1) {
+            return new AgentTimeouts();
+        }
+        return Workflow.sideEffect(AgentTimeouts.class, () -> AppConfig.isAdaptiveTimeouts()
+                ? AgentTimeoutModel.current().timeoutsFor(diffChars)
+                : new AgentTimeouts());
+    }
+
+    /**
+     * The worker settings a review run decides with. They are read inside a
+     * side effect, so a replay reuses the recorded values instead of the
+     * replaying worker's environment. Histories recorded before the settings
+     * were recorded read them live, as they did then.
+     */
+    static ReviewSettings recordedSettings() {
+        if (Workflow.getVersion("review-settings", Workflow.DEFAULT_VERSION, 1) < 1) {
+            return currentSettings();
+        }
+        return Workflow.sideEffect(ReviewSettings.class, PRReviewWorkflowImpl::currentSettings);
+    }
+
+    private static ReviewSettings currentSettings() {
+        ReviewSettings settings = new ReviewSettings();
+        settings.parallelAgents = AppConfig.isParallelAgents();
+        settings.shardMaxTokens = AppConfig.getShardMaxTokens();
+        settings.maxConcurrentShards = AppConfig.getMaxConcurrentShards();
+        settings.latencyBudgetSeconds = AppConfig.getReviewLatencyBudgetSeconds();
+        settings.separateActivityQueues = AppConfig.isSeparateActivityQueues();
+        return settings;
+    }
+
+    // Recorded before anything else, so every later decision can use it
+    private final ReviewSettings settings = recordedSettings();
+
+    // 2. create activity stubs for each agent.
+    //    Rebuilt by useAgentTimeouts() once the diff size is known.
+    private CodeQualityActivity codeQualityActivity = Workflow.newActivityStub(
+            CodeQualityActivity.class, onPoolQueue(AGENT_ACTIVITY_OPTIONS, AppConfig.POOL_AGENTS, settings)
     );
-    private final TestQualityActivity testQualityActivity = Workflow.newActivityStub(
-            TestQualityActivity.class, ACTIVITY_OPTIONS
+    private TestQualityActivity testQualityActivity = Workflow.newActivityStub(
+            TestQualityActivity.class, onPoolQueue(AGENT_ACTIVITY_OPTIONS, AppConfig.POOL_AGENTS, settings)
     );
-    private final ComplexityQualityActivity complexityQualityActivity = Workflow.newActivityStub(
-            ComplexityQualityActivity.class, ACTIVITY_OPTIONS
+    private ComplexityQualityActivity complexityQualityActivity = Workflow.newActivityStub(
+            ComplexityQualityActivity.class, onPoolQueue(AGENT_ACTIVITY_OPTIONS, AppConfig.POOL_AGENTS, settings)
     );
-    private final SecurityQualityActivity securityQualityActivity = Workflow.newActivityStub(
-            SecurityQualityActivity.class, ACTIVITY_OPTIONS
+    private SecurityQualityActivity securityQualityActivity = Workflow.newActivityStub(
+            SecurityQualityActivity.class, onPoolQueue(AGENT_ACTIVITY_OPTIONS, AppConfig.POOL_AGENTS, settings)
     );
-    private final PriorityActivity priorityActivity = Workflow.newActivityStub(
-            PriorityActivity.class, ACTIVITY_OPTIONS
+    private PriorityActivity priorityActivity = Workflow.newActivityStub(
+            PriorityActivity.class, onPoolQueue(AGENT_ACTIVITY_OPTIONS, AppConfig.POOL_AGENTS, settings)
     );
     private final OutcomeRecordingActivity outcomeRecordingActivity = Workflow.newActivityStub(
-            OutcomeRecordingActivity.class, ACTIVITY_OPTIONS
+            OutcomeRecordingActivity.class, onPoolQueue(ACTIVITY_OPTIONS, AppConfig.POOL_STORAGE, settings)
     );
     private final LoadInsightsActivity loadInsightsActivity = Workflow.newActivityStub(
-            LoadInsightsActivity.class, ACTIVITY_OPTIONS
+            LoadInsightsActivity.class, onPoolQueue(ACTIVITY_OPTIONS, AppConfig.POOL_STORAGE, settings)
+    );
+    private final ReviewHistoryActivity reviewHistoryActivity = Workflow.newActivityStub(
+            ReviewHistoryActivity.class, onPoolQueue(ACTIVITY_OPTIONS, AppConfig.POOL_STORAGE, settings)
+    );
+    private final LoadInsightsActivity localLoadInsightsActivity = Workflow.newLocalActivityStub(
+            LoadInsightsActivity.class, LOCAL_ACTIVITY_OPTIONS
+    );
+    private final ReviewHistoryActivity localReviewHistoryActivity = Workflow.newLocalActivityStub(
+            ReviewHistoryActivity.class, LOCAL_ACTIVITY_OPTIONS
     );
+    private final DiffStoreActivity diffStoreActivity = Workflow.newActivityStub(
+            DiffStoreActivity.class, onPoolQueue(ACTIVITY_OPTIONS, AppConfig.POOL_STORAGE, settings)
+    );
+
+    // Analysis agents in the order their results are reported.
+    private static final List<String> ANALYSIS_AGENTS =
+            Arrays.asList("Code Quality", "Test Quality", "Security", "Complexity");
+    private static final String TEST_QUALITY = "Test Quality";
+
+    // Status of an agent that did not finish within the latency budget
+    static final String TIMED_OUT = "TIMED_OUT";
+
+    // Set in review(): whether database lookups run as local activities
+    private boolean localLookups;
+
+    // Set in review(): workflow time at which the latency budget runs out,
+    // or null for reviews without a budget
+    private Long deadlineMs;
+    private final List<String> timedOutAgents = new ArrayList<>();
+    private int timedOutShards;
+
+    // Set when fail-fast mode stops the review before every agent finished
+    private boolean earlyTerminated = false;
+    private final List<String> cancelledAgents = new ArrayList<>();
+    private int cancelledShards;
+
+    // Set by supersede(): the review in progress and the request replacing it
+    private CancellationScope reviewScope;
+    private ReviewRequest currentRequest;
+    private ReviewRequest superseding;
+
+    // What the heuristics match path patterns against: the analysed diff, or
+    // just its file paths when the diff is held in the DiffStore
+    private String heuristicsDiff;
 
     @Override
     public ReviewResponse review(ReviewRequest request) {
+        currentRequest = request;
+        ReviewResponse[] response = new ReviewResponse[1];
+        if (superseding == null) {
+            reviewScope = Workflow.newCancellationScope(() -> {
+                response[0] = runReview(request);
+            });
+            try {
+                reviewScope.run();
+            } catch (RuntimeException e) {
+                // Cancellation surfaces as whatever the interrupted step threw
+                if (superseding == null) {
+                    throw e;
+                }
+            }
+        }
+        if (superseding != null) {
+            logger.info("Review superseded by a newer request"
+                    + (superseding.headSha != null ? " (head " + superseding.headSha + ")" : "")
+                    + ", restarting");
+            // Record the new request's hash so identical submissions coalesce onto this run
+            Workflow.continueAsNew(
+                    ContinueAsNewOptions.newBuilder()
+                            .setMemo(Collections.singletonMap(ReviewRequestHash.MEMO_KEY,
+                                    ReviewRequestHash.of(superseding)))
+                            .build(),
+                    superseding);
+        }
+        return response[0];
+    }
+
+    @Override
+    public void supersede(ReviewRequest request) {
+        if (isUnderReview(request)) {
+            logger.info("Ignoring supersede with the request already under review"
+                    + (request.headSha != null ? " (head " + request.headSha + ")" : ""));
+            return;
+        }
+        superseding = request;
+        if (reviewScope != null) {
+            reviewScope.cancel("Superseded by a newer request");
+        }
+    }
+
+    /**
+     * Whether {@code request} is the one this run is reviewing, or is about
+     * to restart with. Requests are compared by {@link ReviewRequestHash}, so
+     * the same head with other flags, budget or lane still supersedes.
+     * Histories recorded before that compare head SHAs, as they did then.
+     */
+    private boolean isUnderReview(ReviewRequest request) {
+        if (Workflow.getVersion("supersede-by-hash", Workflow.DEFAULT_VERSION, 1) < 1) {
+            return request.headSha != null && currentRequest != null && request.headSha.equals(currentRequest.headSha);
+        }
+        ReviewRequest latest = superseding != null ? superseding : currentRequest;
+        return latest != null && ReviewRequestHash.of(request).equals(ReviewRequestHash.of(latest));
+    }
+
+    private ReviewResponse runReview(ReviewRequest request) {
         // Use this instead of System.currentTimeMillis()
         long startMs = Workflow.currentTimeMillis();
 
@@ -63,11 +270,23 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
         logger.info("=".repeat(60));
 
         try {
+            // Histories recorded before local lookups replay with normal activities
+            localLookups = Workflow.getVersion("local-lookups", Workflow.DEFAULT_VERSION, 1) >= 1;
+
+            // Histories recorded before latency budgets replay without timers
+            if (Workflow.getVersion("latency-budget", Workflow.DEFAULT_VERSION, 1) >= 1) {
+                int budgetSeconds = request.latencyBudgetSeconds != null && request.latencyBudgetSeconds > 0
+                        ? request.latencyBudgetSeconds
+                        : settings.latencyBudgetSeconds;
+                deadlineMs = startMs + budgetSeconds * 1000L;
+            }
+
             // Step 0: Load learning insights (null if none exist yet)
             LearningInsights insights = null;
             if (request.repository != null) {
                 try {
-                    insights = loadInsightsActivity.loadInsights(request.repository);
+                    insights = (localLookups ? localLoadInsightsActivity : loadInsightsActivity)
+                            .loadInsights(request.repository);
                     if (insights != null) {
                         logger.info("Loaded learning insights v" + insights.learningVersion);
                     }
@@ -81,42 +300,109 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
 
             HeuristicsEngine heuristicsEngine = new HeuristicsEngine(insights);
 
-            // Collect all agent results in a list
-            List<AgentResult> results = new ArrayList<>();
-
-            // 1. Call Code Quality Agent
-            logger.info("[1/5] Calling Code Quality Agent...");
-            AgentResult codeQuality = codeQualityActivity.analyze(request);
-            codeQuality = heuristicsEngine.apply(codeQuality, request.diff);
-            results.add(codeQuality);
-            logger.info("      → " + codeQuality.recommendation + " (Risk: " + codeQuality.riskLevel + ")");
-
-            // 2. Call Test Quality Agent
-            logger.info("[2/5] Calling Test Quality Agent...");
-            AgentResult testQuality = testQualityActivity.analyze(request);
-            testQuality = heuristicsEngine.apply(testQuality, request.diff);
-            results.add(testQuality);
-            logger.info("      → " + testQuality.recommendation + " (Risk: " + testQuality.riskLevel + ")");
-
-            // 3. Call Security Agent
-            logger.info("[3/5] Calling Security Agent...");
-            AgentResult security = securityQualityActivity.analyze(request);
-            security = heuristicsEngine.apply(security, request.diff);
-            results.add(security);
-            logger.info("      → " + security.recommendation + " (Risk: " + security.riskLevel + ")");
-
-            // 4. Call Complexity Agent
-            logger.info("[4/5] Calling Complexity Agent...");
-            AgentResult complexity = complexityQualityActivity.analyze(request);
-            complexity = heuristicsEngine.apply(complexity, request.diff);
-            results.add(complexity);
-            logger.info("      → " + complexity.recommendation + " (Risk: " + complexity.riskLevel + ")");
-
-            // 5. Call Priority Agent with results from other agents
-            logger.info("[5/5] Calling Priority Agent...");
-            AgentResult priority = priorityActivity.prioritizeIssues(request, results);
-            results.add(priority);
-            logger.info("      → " + priority.recommendation + " (Risk: " + priority.riskLevel + ")");
+            // A diff passed by reference is described once by an activity;
+            // its text never enters workflow history.
+            DiffManifest manifest = null;
+            if (isDiffByReference(request)) {
+                manifest = diffStoreActivity.describeDiff(request.diffHash);
+                logger.info("Diff passed by reference: " + manifest.sizeChars + " chars in "
+                        + manifest.filePaths.size() + " files");
+            }
+            heuristicsDiff = manifest != null ? String.join("\n", manifest.filePaths) : request.diff;
+
+            // Incremental mode: narrow the diff to hunks changed since the
+            // last review of this PR and carry its other findings forward.
+            ReviewRequest analysisRequest = request;
+            List<AgentResult> carriedForward = null;
+            boolean rerunTestQuality = false;
+            PreviousReview baseline = loadIncrementalBaseline(request);
+            if (baseline != null) {
+                // Histories recorded before Test Quality always re-ran replay without it
+                rerunTestQuality = Workflow.getVersion("incremental-test-quality", Workflow.DEFAULT_VERSION, 1) >= 1;
+                analysisRequest = incrementalRequest(request, baseline.headSha);
+                List<String> changedFiles;
+                List<String> currentFiles;
+                if (manifest != null) {
+                    DiffManifest changed = diffStoreActivity.storeChangedHunks(
+                            request.diffHash, baseline.fileHunkHashes);
+                    analysisRequest.diffHash = changed.diffHash;
+                    analysisRequest.diffSize = changed.sizeChars;
+                    changedFiles = changed.filePaths;
+                    currentFiles = manifest.filePaths;
+                    heuristicsDiff = String.join("\n", changed.filePaths);
+                } else {
+                    analysisRequest.diff = DiffFingerprint.changedHunks(request.diff, baseline.fileHunkHashes);
+                    changedFiles = DiffFingerprint.filePaths(analysisRequest.diff);
+                    currentFiles = DiffFingerprint.filePaths(request.diff);
+                    heuristicsDiff = analysisRequest.diff;
+                }
+                carriedForward = AgentResultMerger.carryForward(
+                        analysisResults(baseline.agentResults, rerunTestQuality),
+                        staleFiles(changedFiles, currentFiles, baseline),
+                        baseline.fileHunkHashes.keySet());
+                logger.info("Incremental review since " + baseline.headSha + ": "
+                        + diffChars(analysisRequest) + " of " + diffChars(request) + " diff chars changed");
+            }
+
+            // Fit the agent timeouts to the diff the agents will actually see
+            useAgentTimeouts(fittedTimeouts(diffChars(analysisRequest)));
+
+            // 1-4. Call the analysis agents. None depends on another, so by
+            //      default they fan out in parallel and only Priority waits.
+            List<AgentResult> results;
+            if (diffChars(analysisRequest) == 0 && carriedForward != null) {
+                if (rerunTestQuality) {
+                    // The test summary is not part of the hunk fingerprint, so
+                    // Test Quality reviews the whole diff against the current one
+                    logger.info("[1-4/5] No hunks changed since the last review, reusing its findings"
+                            + " and re-running Test Quality");
+                    heuristicsDiff = manifest != null ? String.join("\n", manifest.filePaths) : request.diff;
+                    results = runTestQualityAgent(request, heuristicsEngine);
+                } else {
+                    logger.info("[1-4/5] No hunks changed since the last review, reusing its findings");
+                    results = new ArrayList<>();
+                }
+            } else if (useShardedReview(analysisRequest)) {
+                results = runShardedReview(analysisRequest, heuristicsEngine);
+            } else if (Boolean.TRUE.equals(request.failFast)) {
+                results = runAnalysisAgentsFailFast(analysisRequest, heuristicsEngine);
+            } else if (useParallelAgents()) {
+                results = runAnalysisAgentsInParallel(analysisRequest, heuristicsEngine);
+            } else {
+                results = runAnalysisAgentsSequentially(analysisRequest, heuristicsEngine);
+            }
+            if (carriedForward != null) {
+                // Fresh results first, so they lead the merged findings
+                results = AgentResultMerger.mergeByAgent(Arrays.asList(results, carriedForward));
+            }
+
+            // 5. Call Priority Agent with results from other agents.
+            //    Skipped after an early exit: the verdict is already BLOCK.
+            if (earlyTerminated) {
+                logger.info("[5/5] Skipping Priority Agent (early exit on BLOCK)");
+            } else if (budgetExhausted()) {
+                results.add(timedOut("Priority"));
+            } else {
+                logger.info("[5/5] Calling Priority Agent...");
+                List<AgentResult> finished = new ArrayList<>();
+                for (AgentResult result : results) {
+                    if (!TIMED_OUT.equals(result.status)) {
+                        finished.add(result);
+                    }
+                }
+                List<Promise<AgentResult>> started = new ArrayList<>();
+                CancellationScope scope = Workflow.newCancellationScope(() -> started.add(
+                        Async.function(priorityActivity::prioritizeIssues, request, finished)));
+                scope.run();
+                if (awaitWithinBudget(() -> started.get(0).isCompleted())) {
+                    AgentResult priority = started.get(0).get();
+                    results.add(priority);
+                    logger.info("      → " + priority.recommendation + " (Risk: " + priority.riskLevel + ")");
+                } else {
+                    scope.cancel("Latency budget exhausted");
+                    results.add(timedOut("Priority"));
+                }
+            }
 
             // 6. Aggregate results from all agents
             String overall = aggregate(results);
@@ -150,8 +436,13 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
                     outcome.systemRecommendation = overall;
                     outcome.agentResults = results;
                     outcome.tookMs = tookMs;
+                    outcome.diffChars = diffChars(analysisRequest);
                     outcome.model = AppConfig.getOpenAiModel();
                     outcome.learningVersion = insights != null ? insights.learningVersion : 0;
+                    outcome.headSha = request.headSha;
+                    outcome.fileHunkHashes = manifest != null
+                            ? manifest.fileHunkHashes
+                            : DiffFingerprint.hunkHashes(request.diff);
                     outcomeRecordingActivity.recordReviewOutcome(outcome);
                 } catch (Exception e) {
                     logger.warn("Failed to record review outcome: " + e.getMessage());
@@ -166,6 +457,24 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
             metadata.totalPromptTokens = totalPrompt;
             metadata.totalCompletionTokens = totalCompletion;
             metadata.estimatedCost = estimateCost(model, totalPrompt, totalCompletion);
+            if (!cancelledAgents.isEmpty()) {
+                metadata.cancelledAgents = cancelledAgents;
+            }
+            if (!timedOutAgents.isEmpty()) {
+                metadata.timedOutAgents = timedOutAgents;
+                logger.warn("Latency budget exhausted, partial review without: "
+                        + String.join(", ", timedOutAgents));
+            }
+            if (timedOutShards > 0) {
+                metadata.timedOutShards = timedOutShards;
+            }
+            if (cancelledShards > 0) {
+                metadata.cancelledShards = cancelledShards;
+            }
+            if (baseline != null) {
+                metadata.incrementalBaseSha = baseline.headSha;
+                metadata.carriedForwardFindings = countFindings(carriedForward);
+            }
 
             ReviewResponse response = new ReviewResponse(
                     overall,
@@ -175,6 +484,7 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
                     request.prTitle,
                     request.author
             );
+            response.earlyTerminated = earlyTerminated;
 
             logger.info("=".repeat(60));
             logger.info("Review Complete: " + overall + " (took " + tookMs + "ms)");
@@ -189,6 +499,513 @@ public class PRReviewWorkflowImpl implements PRReviewWorkflow {
         }
 
     }
+    /**
+     * Returns whether the analysis agents should run in parallel, as
+     * {@code PARALLEL_AGENTS} was when the run recorded its settings.
+     * The version marker keeps histories recorded by the sequential-only
+     * implementation replaying on the sequential path.
+     */
+    private boolean useParallelAgents() {
+        int version = Workflow.getVersion("parallel-agents", Workflow.DEFAULT_VERSION, 1);
+        return version >= 1 && settings.parallelAgents;
+    }
+
+    /**
+     * Loads the last recorded review of this PR when the request asks for an
+     * incremental review. Returns null — meaning a full review — when the PR
+     * has no usable baseline: never reviewed, recorded before hunk hashes were
+     * stored, or missing an analysis agent (e.g. after a fail-fast exit or
+     * when the agent ran out of latency budget).
+     */
+    private PreviousReview loadIncrementalBaseline(ReviewRequest request) {
+        if (!Boolean.TRUE.equals(request.incremental) || request.repository == null
+                || request.prNumber == null || (request.diff == null && !isDiffByReference(request))) {
+            return null;
+        }
+        PreviousReview previous;
+        try {
+            previous = (localLookups ? localReviewHistoryActivity : reviewHistoryActivity)
+                    .loadLastReview(request.repository, request.prNumber);
+        } catch (Exception e) {
+            logger.warn("Failed to load last review, running a full review: " + e.getMessage());
+            return null;
+        }
+        if (previous == null || previous.fileHunkHashes == null || previous.agentResults == null) {
+            logger.info("No incremental baseline for PR #" + request.prNumber + ", running a full review");
+            return null;
+        }
+        for (String agent : ANALYSIS_AGENTS) {
+            if (previous.agentResults.stream()
+                    .noneMatch(r -> agent.equals(r.agentName) && !TIMED_OUT.equals(r.status))) {
+                logger.info("Last review has no " + agent + " result, running a full review");
+                return null;
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * The analysis agent results of a recorded review that can be carried
+     * forward: not Priority, which always re-runs, and not Test Quality when
+     * {@code withoutTestQuality}, since its verdict follows the test summary
+     * rather than the hunks.
+     */
+    private static List<AgentResult> analysisResults(List<AgentResult> recorded, boolean withoutTestQuality) {
+        List<AgentResult> results = new ArrayList<>();
+        for (AgentResult result : recorded) {
+            if (withoutTestQuality && TEST_QUALITY.equals(result.agentName)) {
+                continue;
+            }
+            if (ANALYSIS_AGENTS.contains(result.agentName)) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Files whose earlier findings may no longer apply: files with new or
+     * changed hunks, and files that were in the previous diff but are not in
+     * the current one.
+     */
+    private static Set<String> staleFiles(List<String> changed, List<String> current, PreviousReview baseline) {
+        Set<String> stale = new LinkedHashSet<>(changed);
+        for (String path : baseline.fileHunkHashes.keySet()) {
+            if (!current.contains(path)) {
+                stale.add(path);
+            }
+        }
+        return stale;
+    }
+
+    private static ReviewRequest incrementalRequest(ReviewRequest request, String baseSha) {
+        ReviewRequest incremental = new ReviewRequest(request);
+        String note = "[Incremental review: only hunks changed since "
+                + (baseSha != null ? baseSha : "the last review") + " are shown]";
+        incremental.prDescription = request.prDescription == null || request.prDescription.isBlank()
+                ? note
+                : request.prDescription + "\n\n" + note;
+        return incremental;
+    }
+
+    private static boolean isDiffByReference(ReviewRequest request) {
+        return request.diff == null && request.diffHash != null;
+    }
+
+    /** Length of the request's diff, whether inline or by reference. */
+    private static int diffChars(ReviewRequest request) {
+        if (request.diff != null) {
+            return request.diff.length();
+        }
+        return request.diffSize != null ? request.diffSize : 0;
+    }
+
+    private static int countFindings(List<AgentResult> results) {
+        int count = 0;
+        for (AgentResult result : results) {
+            count += result.findings != null ? result.findings.size() : 0;
+        }
+        return count;
+    }
+
+    private List<AgentResult> runAnalysisAgentsSequentially(ReviewRequest request,
+                                                            HeuristicsEngine heuristicsEngine) {
+        List<AgentResult> results = new ArrayList<>();
+        for (int i = 0; i < ANALYSIS_AGENTS.size(); i++) {
+            String agent = ANALYSIS_AGENTS.get(i);
+            if (budgetExhausted()) {
+                for (String skipped : ANALYSIS_AGENTS.subList(i, ANALYSIS_AGENTS.size())) {
+                    results.add(timedOut(skipped));
+                }
+                break;
+            }
+            logger.info("[" + (i + 1) + "/5] Calling " + agent + " Agent...");
+
+            int index = i;
+            List<Promise<AgentResult>> started = new ArrayList<>();
+            CancellationScope scope = Workflow.newCancellationScope(
+                    () -> started.add(startAnalysisAgent(index, request)));
+            scope.run();
+            if (!awaitWithinBudget(() -> started.get(0).isCompleted())) {
+                scope.cancel("Latency budget exhausted");
+                for (String skipped : ANALYSIS_AGENTS.subList(i, ANALYSIS_AGENTS.size())) {
+                    results.add(timedOut(skipped));
+                }
+                break;
+            }
+
+            AgentResult result = heuristicsEngine.apply(started.get(0).get(), heuristicsDiff);
+            results.add(result);
+            logger.info("      → " + result.recommendation + " (Risk: " + result.riskLevel + ")");
+        }
+        return results;
+    }
+
+    /**
+     * Runs the Test Quality agent alone, for an incremental review with no
+     * changed hunks: the rest of the previous review is reused, but the test
+     * summary may have changed since.
+     */
+    private List<AgentResult> runTestQualityAgent(ReviewRequest request, HeuristicsEngine heuristicsEngine) {
+        List<AgentResult> results = new ArrayList<>();
+        if (budgetExhausted()) {
+            results.add(timedOut(TEST_QUALITY));
+            return results;
+        }
+        List<Promise<AgentResult>> started = new ArrayList<>();
+        CancellationScope scope = Workflow.newCancellationScope(
+                () -> started.add(startAnalysisAgent(ANALYSIS_AGENTS.indexOf(TEST_QUALITY), request)));
+        scope.run();
+        if (!awaitWithinBudget(() -> started.get(0).isCompleted())) {
+            scope.cancel("Latency budget exhausted");
+            results.add(timedOut(TEST_QUALITY));
+            return results;
+        }
+        AgentResult result = heuristicsEngine.apply(started.get(0).get(), heuristicsDiff);
+        results.add(result);
+        logger.info("      → " + result.agentName + ": " + result.recommendation + " (Risk: " + result.riskLevel + ")");
+        return results;
+    }
+
+    private List<AgentResult> runAnalysisAgentsInParallel(ReviewRequest request,
+                                                          HeuristicsEngine heuristicsEngine) {
+        logger.info("[1-4/5] Calling Code Quality, Test Quality, Security and Complexity Agents in parallel...");
+
+        List<Promise<AgentResult>> pending = new ArrayList<>();
+        CancellationScope scope = Workflow.newCancellationScope(
+                () -> pending.addAll(startAnalysisAgents(request)));
+        scope.run();
+        boolean finished = awaitWithinBudget(() -> settled(pending));
+        rethrowFirstFailure(pending);
+        if (!finished) {
+            scope.cancel("Latency budget exhausted");
+        }
+
+        // Post-process in agent order so the results list and the heuristics
+        // never depend on which agent finished first.
+        List<AgentResult> results = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            if (!pending.get(i).isCompleted()) {
+                results.add(timedOut(ANALYSIS_AGENTS.get(i)));
+                continue;
+            }
+            AgentResult result = heuristicsEngine.apply(pending.get(i).get(), heuristicsDiff);
+            results.add(result);
+            logger.info("      → " + result.agentName + ": " + result.recommendation
+                    + " (Risk: " + result.riskLevel + ")");
+        }
+        return results;
+    }
+
+    /**
+     * Fail-fast variant of the parallel fan-out. Agents run inside a
+     * {@link CancellationScope}; as soon as one of them returns BLOCK
+     * (for example the Test Quality rule for failing tests) the scope is
+     * cancelled, the agents still in flight are abandoned and the review
+     * is marked as early-terminated.
+     */
+    private List<AgentResult> runAnalysisAgentsFailFast(ReviewRequest request,
+                                                        HeuristicsEngine heuristicsEngine) {
+        logger.info("[1-4/5] Calling analysis agents in parallel (fail-fast on BLOCK)...");
+
+        List<Promise<AgentResult>> pending = new ArrayList<>();
+        CancellationScope scope = Workflow.newCancellationScope(
+                () -> pending.addAll(startAnalysisAgents(request)));
+        scope.run();
+
+        AgentResult[] completed = new AgentResult[pending.size()];
+        int remaining = pending.size();
+        boolean blocked = false;
+        boolean outOfBudget = false;
+        while (remaining > 0 && !blocked && !outOfBudget) {
+            outOfBudget = !awaitWithinBudget(() -> anyNewlyCompleted(pending, completed));
+            // Process in agent order, not arrival order, so a replay makes
+            // the same decisions when several agents finish in one task.
+            for (int i = 0; i < pending.size(); i++) {
+                if (completed[i] != null || !pending.get(i).isCompleted()) {
+                    continue;
+                }
+                completed[i] = heuristicsEngine.apply(pending.get(i).get(), heuristicsDiff);
+                remaining--;
+                logger.info("      → " + completed[i].agentName + ": " + completed[i].recommendation
+                        + " (Risk: " + completed[i].riskLevel + ")");
+                if ("BLOCK".equals(completed[i].recommendation)) {
+                    blocked = true;
+                }
+            }
+        }
+
+        List<AgentResult> results = new ArrayList<>();
+        for (int i = 0; i < completed.length; i++) {
+            if (completed[i] != null) {
+                results.add(completed[i]);
+            } else if (blocked) {
+                cancelledAgents.add(ANALYSIS_AGENTS.get(i));
+            } else {
+                results.add(timedOut(ANALYSIS_AGENTS.get(i)));
+            }
+        }
+        if (!cancelledAgents.isEmpty()) {
+            scope.cancel("Review blocked; remaining agents are no longer needed");
+            earlyTerminated = true;
+            logger.info("      Early exit on BLOCK, cancelled: " + String.join(", ", cancelledAgents));
+        } else if (remaining > 0) {
+            scope.cancel("Latency budget exhausted");
+        }
+        return results;
+    }
+
+    /**
+     * Returns whether the diff is too large for a single LLM call and must be
+     * reviewed shard by shard. The version marker keeps histories recorded
+     * before sharding existed (which truncated large diffs) replaying.
+     */
+    private boolean useShardedReview(ReviewRequest request) {
+        if (DiffSharder.estimateTokens(diffChars(request)) <= settings.shardMaxTokens) {
+            return false;
+        }
+        int version = Workflow.getVersion("sharded-review", Workflow.DEFAULT_VERSION, 1);
+        return version >= 1;
+    }
+
+    /**
+     * Map-reduce review of a large diff. The diff is split into token-bounded
+     * shards, each reviewed by a {@link ShardReviewWorkflow} child with at most
+     * {@code MAX_CONCURRENT_SHARDS} children running at once. The per-shard
+     * results are then merged into one result per agent and post-processed by
+     * the heuristics against the full diff. If the latency budget runs out,
+     * shards still running are cancelled and the merge covers the shards that
+     * finished.
+     *
+     * <p>In fail-fast mode a shard is the unit of early exit: once a finished
+     * shard has a BLOCK result, no further shards are started, the ones still
+     * running are cancelled and the review is marked as early-terminated.
+     */
+    private List<AgentResult> runShardedReview(ReviewRequest request, HeuristicsEngine heuristicsEngine) {
+        List<ReviewRequest> shards = new ArrayList<>();
+        if (isDiffByReference(request)) {
+            List<DiffManifest> stored = diffStoreActivity.storeShards(request.diffHash, settings.shardMaxTokens);
+            for (int i = 0; i < stored.size(); i++) {
+                ReviewRequest shard = shardRequest(request, i + 1, stored.size());
+                shard.diffHash = stored.get(i).diffHash;
+                shard.diffSize = stored.get(i).sizeChars;
+                shards.add(shard);
+            }
+        } else {
+            List<String> diffs = DiffSharder.split(request.diff, settings.shardMaxTokens);
+            for (int i = 0; i < diffs.size(); i++) {
+                ReviewRequest shard = shardRequest(request, i + 1, diffs.size());
+                shard.diff = diffs.get(i);
+                shards.add(shard);
+            }
+        }
+        int maxConcurrent = settings.maxConcurrentShards;
+        // Histories recorded before sharded reviews honoured fail-fast replay without it
+        boolean failFast = Boolean.TRUE.equals(request.failFast)
+                && Workflow.getVersion("sharded-fail-fast", Workflow.DEFAULT_VERSION, 1) >= 1;
+        logger.info("[1-4/5] Diff is ~" + DiffSharder.estimateTokens(diffChars(request)) + " tokens; reviewing "
+                + shards.size() + " shards, " + maxConcurrent + " at a time"
+                + (failFast ? " (fail-fast on BLOCK)" : "") + "...");
+
+        String parentId = Workflow.getInfo().getWorkflowId();
+        List<Promise<List<AgentResult>>> pending = new ArrayList<>();
+        Supplier<Boolean> blocked = () -> failFast && anyShardBlocked(pending, heuristicsEngine);
+        boolean[] allStarted = {true};
+        CancellationScope scope = Workflow.newCancellationScope(() -> {
+            for (int i = 0; i < shards.size(); i++) {
+                // Wait for a free slot before starting the next child
+                if (!awaitWithinBudget(() -> countRunning(pending) < maxConcurrent || blocked.get())) {
+                    allStarted[0] = false;
+                    return;
+                }
+                if (blocked.get()) {
+                    return;
+                }
+                ShardReviewWorkflow child = Workflow.newChildWorkflowStub(
+                        ShardReviewWorkflow.class,
+                        ChildWorkflowOptions.newBuilder()
+                                .setWorkflowId(parentId + "-shard-" + (i + 1))
+                                .build());
+                pending.add(Async.function(child::reviewShard, shards.get(i)));
+            }
+        });
+        scope.run();
+        boolean finished = allStarted[0] && awaitWithinBudget(() -> settled(pending) || blocked.get());
+        rethrowFirstFailure(pending);
+
+        // Reduce in shard order, then apply heuristics once per agent
+        List<List<AgentResult>> perShard = new ArrayList<>();
+        for (Promise<List<AgentResult>> promise : pending) {
+            if (promise.isCompleted()) {
+                perShard.add(promise.get());
+            }
+        }
+        if (blocked.get() && perShard.size() < shards.size()) {
+            scope.cancel("Review blocked; remaining shards are no longer needed");
+            cancelledShards = shards.size() - perShard.size();
+            earlyTerminated = true;
+            logger.info("      Early exit on BLOCK, cancelled " + cancelledShards + " of " + shards.size() + " shards");
+        } else if (!finished) {
+            scope.cancel("Latency budget exhausted");
+            timedOutShards = shards.size() - perShard.size();
+            logger.warn("      Latency budget exhausted with " + timedOutShards + " of " + shards.size()
+                    + " shards unfinished");
+        }
+        List<AgentResult> results = new ArrayList<>();
+        for (AgentResult merged : AgentResultMerger.mergeByAgent(perShard)) {
+            AgentResult result = heuristicsEngine.apply(merged, heuristicsDiff);
+            results.add(result);
+            logger.info("      → " + result.agentName + ": " + result.recommendation
+                    + " (Risk: " + result.riskLevel + ", " + result.findings.size() + " findings)");
+        }
+        for (String agent : ANALYSIS_AGENTS) {
+            if (results.stream().noneMatch(r -> agent.equals(r.agentName))) {
+                results.add(timedOut(agent));
+            }
+        }
+        return results;
+    }
+
+    /** True once a finished shard has a result that is BLOCK after the heuristics are applied. */
+    private boolean anyShardBlocked(List<Promise<List<AgentResult>>> pending, HeuristicsEngine heuristicsEngine) {
+        for (Promise<List<AgentResult>> promise : pending) {
+            if (!promise.isCompleted() || promise.getFailure() != null) {
+                continue;
+            }
+            for (AgentResult result : promise.get()) {
+                if ("BLOCK".equals(heuristicsEngine.apply(result, heuristicsDiff).recommendation)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ReviewRequest shardRequest(ReviewRequest request, int part, int parts) {
+        ReviewRequest shard = new ReviewRequest(request);
+        String note = "[Large diff: reviewing part " + part + " of " + parts + "]";
+        shard.prDescription = request.prDescription == null || request.prDescription.isBlank()
+                ? note
+                : request.prDescription + "\n\n" + note;
+        return shard;
+    }
+
+    static <T> int countRunning(List<Promise<T>> promises) {
+        int running = 0;
+        for (Promise<T> promise : promises) {
+            if (!promise.isCompleted()) {
+                running++;
+            }
+        }
+        return running;
+    }
+
+    /**
+     * True once every promise has completed or any has failed — the same
+     * point at which {@code Promise.allOf(promises).get()} returns or throws.
+     */
+    private static <T> boolean settled(List<Promise<T>> promises) {
+        boolean allCompleted = true;
+        for (Promise<T> promise : promises) {
+            if (!promise.isCompleted()) {
+                allCompleted = false;
+            } else if (promise.getFailure() != null) {
+                return true;
+            }
+        }
+        return allCompleted;
+    }
+
+    private static <T> void rethrowFirstFailure(List<Promise<T>> promises) {
+        for (Promise<T> promise : promises) {
+            if (promise.isCompleted() && promise.getFailure() != null) {
+                promise.get();
+            }
+        }
+    }
+
+    /**
+     * Waits until {@code condition} holds or the review's latency budget runs
+     * out. Returns false if the budget ran out first. Without a budget this is
+     * a plain {@link Workflow#await}.
+     */
+    private boolean awaitWithinBudget(Supplier<Boolean> condition) {
+        if (deadlineMs == null) {
+            Workflow.await(condition);
+            return true;
+        }
+        long remainingMs = deadlineMs - Workflow.currentTimeMillis();
+        if (remainingMs <= 0) {
+            return condition.get();
+        }
+        return Workflow.await(Duration.ofMillis(remainingMs), condition);
+    }
+
+    private boolean budgetExhausted() {
+        return deadlineMs != null && Workflow.currentTimeMillis() >= deadlineMs;
+    }
+
+    /** Placeholder result for an agent that did not finish within the latency budget. */
+    private AgentResult timedOut(String agentName) {
+        timedOutAgents.add(agentName);
+        logger.warn("      → " + agentName + ": " + TIMED_OUT + " (latency budget exhausted)");
+        AgentResult result = new AgentResult(agentName, null, null, new ArrayList<>());
+        result.status = TIMED_OUT;
+        return result;
+    }
+
+    /** Rebuilds the agent stubs with {@code timeouts}; a no-op when none were fitted. */
+    private void useAgentTimeouts(AgentTimeouts timeouts) {
+        if (timeouts.timeoutSeconds.isEmpty()) {
+            return;
+        }
+        logger.info("Agent timeouts fitted to observed latency: " + timeouts.timeoutSeconds);
+        codeQualityActivity = Workflow.newActivityStub(
+                CodeQualityActivity.class, agentOptions(timeouts, ANALYSIS_AGENTS.get(0), settings));
+        testQualityActivity = Workflow.newActivityStub(
+                TestQualityActivity.class, agentOptions(timeouts, ANALYSIS_AGENTS.get(1), settings));
+        securityQualityActivity = Workflow.newActivityStub(
+                SecurityQualityActivity.class, agentOptions(timeouts, ANALYSIS_AGENTS.get(2), settings));
+        complexityQualityActivity = Workflow.newActivityStub(
+                ComplexityQualityActivity.class, agentOptions(timeouts, ANALYSIS_AGENTS.get(3), settings));
+        priorityActivity = Workflow.newActivityStub(
+                PriorityActivity.class, agentOptions(timeouts, "Priority", settings));
+    }
+
+    /** Starts every analysis agent, returning their promises in {@link #ANALYSIS_AGENTS} order. */
+    private List<Promise<AgentResult>> startAnalysisAgents(ReviewRequest request) {
+        List<Promise<AgentResult>> promises = new ArrayList<>();
+        for (int i = 0; i < ANALYSIS_AGENTS.size(); i++) {
+            promises.add(startAnalysisAgent(i, request));
+        }
+        return promises;
+    }
+
+    /** Starts the analysis agent at {@code index} in {@link #ANALYSIS_AGENTS}. */
+    private Promise<AgentResult> startAnalysisAgent(int index, ReviewRequest request) {
+        switch (index) {
+            case 0:
+                return Async.function(codeQualityActivity::analyze, request);
+            case 1:
+                return Async.function(testQualityActivity::analyze, request);
+            case 2:
+                return Async.function(securityQualityActivity::analyze, request);
+            case 3:
+                return Async.function(complexityQualityActivity::analyze, request);
+            default:
+                throw new IllegalArgumentException("No analysis agent at index " + index);
+        }
+    }
+
+    private static boolean anyNewlyCompleted(List<Promise<AgentResult>> pending, AgentResult[] completed) {
+        for (int i = 0; i < pending.size(); i++) {
+            if (completed[i] == null && pending.get(i).isCompleted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Estimate cost in USD based on model and token counts.
      * Pricing per 1M tokens (as of 2025):
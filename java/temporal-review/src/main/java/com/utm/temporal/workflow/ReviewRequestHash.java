@@ -0,0 +1,40 @@
+package com.utm.temporal.workflow;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.utm.temporal.diff.DiffStore;
+import com.utm.temporal.model.ReviewRequest;
+
+/**
+ * Content hash of a {@link ReviewRequest}, used to coalesce identical review
+ * submissions (for example CI re-runs) into one workflow execution.
+ *
+ * <p>The hash covers every field, serialised with properties in alphabetical
+ * order so it does not depend on field declaration order. Two requests hash
+ * the same only if a review of either would see exactly the same input. It is
+ * pure and deterministic, so workflow code may call it too.
+ */
+public final class ReviewRequestHash {
+
+    /** Memo key under which review workflows record the hash of their request. */
+    public static final String MEMO_KEY = "requestHash";
+
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+
+    private ReviewRequestHash() {
+        // utility class
+    }
+
+    /** Hex SHA-256 of the canonical JSON form of {@code request}. */
+    public static String of(ReviewRequest request) {
+        try {
+            return DiffStore.contentHash(CANONICAL.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise review request", e);
+        }
+    }
+}
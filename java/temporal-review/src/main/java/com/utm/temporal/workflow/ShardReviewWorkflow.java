@@ -0,0 +1,17 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.AgentResult;
+import com.utm.temporal.model.ReviewRequest;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+import java.util.List;
+
+/**
+ * Child workflow that runs the analysis agents over one shard of a large diff.
+ */
+@WorkflowInterface
+public interface ShardReviewWorkflow {
+    @WorkflowMethod
+    List<AgentResult> reviewShard(ReviewRequest shard);
+}
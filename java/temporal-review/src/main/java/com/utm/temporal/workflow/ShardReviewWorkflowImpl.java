@@ -0,0 +1,61 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.activity.CodeQualityActivity;
+import com.utm.temporal.activity.ComplexityQualityActivity;
+import com.utm.temporal.activity.SecurityQualityActivity;
+import com.utm.temporal.activity.TestQualityActivity;
+import com.utm.temporal.model.AgentResult;
+import com.utm.temporal.model.AgentTimeouts;
+import com.utm.temporal.model.ReviewRequest;
+import com.utm.temporal.model.ReviewSettings;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map step of a sharded review: runs the four analysis agents in parallel over
+ * one shard and returns their raw results. Heuristics, the Priority agent and
+ * outcome recording stay in the parent {@link PRReviewWorkflowImpl}, which sees
+ * the whole diff.
+ */
+public class ShardReviewWorkflowImpl implements ShardReviewWorkflow {
+    private static final Logger logger = Workflow.getLogger(ShardReviewWorkflowImpl.class);
+
+    @Override
+    public List<AgentResult> reviewShard(ReviewRequest shard) {
+        logger.info("Reviewing shard " + Workflow.getInfo().getWorkflowId()
+                + " (" + (shard.diff != null ? shard.diff.length() : shard.diffSize) + " chars)");
+
+        ReviewSettings settings = PRReviewWorkflowImpl.recordedSettings();
+        // Timeouts fitted to this shard's size, not the whole diff's
+        AgentTimeouts timeouts = PRReviewWorkflowImpl.fittedTimeouts(
+                shard.diff != null ? shard.diff.length() : shard.diffSize != null ? shard.diffSize : 0);
+        CodeQualityActivity codeQualityActivity = Workflow.newActivityStub(
+                CodeQualityActivity.class, PRReviewWorkflowImpl.agentOptions(timeouts, "Code Quality", settings));
+        TestQualityActivity testQualityActivity = Workflow.newActivityStub(
+                TestQualityActivity.class, PRReviewWorkflowImpl.agentOptions(timeouts, "Test Quality", settings));
+        SecurityQualityActivity securityQualityActivity = Workflow.newActivityStub(
+                SecurityQualityActivity.class, PRReviewWorkflowImpl.agentOptions(timeouts, "Security", settings));
+        ComplexityQualityActivity complexityQualityActivity = Workflow.newActivityStub(
+                ComplexityQualityActivity.class, PRReviewWorkflowImpl.agentOptions(timeouts, "Complexity", settings));
+
+        List<Promise<AgentResult>> pending = Arrays.asList(
+                Async.function(codeQualityActivity::analyze, shard),
+                Async.function(testQualityActivity::analyze, shard),
+                Async.function(securityQualityActivity::analyze, shard),
+                Async.function(complexityQualityActivity::analyze, shard)
+        );
+        Promise.allOf(pending).get();
+
+        List<AgentResult> results = new ArrayList<>();
+        for (Promise<AgentResult> promise : pending) {
+            results.add(promise.get());
+        }
+        return results;
+    }
+}
@@ -28,9 +28,20 @@ CREATE TABLE IF NOT EXISTS review_runs (
     agent_results_json      JSONB NOT NULL,
     reviewed_at             TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     took_ms                 BIGINT,
-    model                   VARCHAR(50)
+    model                   VARCHAR(50),
+    head_sha                VARCHAR(64),
+    file_hunk_hashes        JSONB,
+    diff_chars              INTEGER
 );
 
+-- Incremental re-review baseline (added after the initial schema)
+ALTER TABLE review_runs ADD COLUMN IF NOT EXISTS head_sha VARCHAR(64);
+ALTER TABLE review_runs ADD COLUMN IF NOT EXISTS file_hunk_hashes JSONB;
+
+-- Diff size of each review, keying the agent latency samples behind the
+-- adaptive activity timeouts (added after the initial schema)
+ALTER TABLE review_runs ADD COLUMN IF NOT EXISTS diff_chars INTEGER;
+
 CREATE TABLE IF NOT EXISTS findings (
     id              SERIAL PRIMARY KEY,
     review_run_id   INTEGER REFERENCES review_runs(id),
@@ -69,6 +80,33 @@ CREATE TABLE IF NOT EXISTS review_comments (
     created_at          TIMESTAMPTZ
 );
 
+-- Large diffs passed to review workflows by hash (DIFF_STORE=postgres).
+-- Diffs unused for DIFF_STORE_TTL_SECONDS, and the least recently used past
+-- DIFF_STORE_MAX_MB (counted in characters), are deleted by the workers.
+CREATE TABLE IF NOT EXISTS diff_blobs (
+    hash        VARCHAR(64) PRIMARY KEY,
+    size_chars  INTEGER NOT NULL,
+    diff        TEXT NOT NULL,
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+ALTER TABLE diff_blobs ADD COLUMN IF NOT EXISTS last_used_at TIMESTAMPTZ NOT NULL DEFAULT NOW();
+
+-- Shared LLM response cache (LLM_CACHE_STORE=postgres), keyed by a hash of
+-- the model, temperature, response format and messages. A row without a
+-- response is a claim: one worker is calling the LLM for that request and the
+-- others wait for its answer until claimed_until passes.
+CREATE TABLE IF NOT EXISTS llm_responses (
+    cache_key           VARCHAR(64) PRIMARY KEY,
+    model               VARCHAR(100),
+    response            TEXT,
+    prompt_tokens       INTEGER,
+    completion_tokens   INTEGER,
+    size_bytes          INTEGER NOT NULL DEFAULT 0,
+    created_at          TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    last_used_at        TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    claimed_until       TIMESTAMPTZ
+);
+
 -- ============================================================
 -- Learning State Tables
 -- ============================================================
@@ -143,6 +181,14 @@ CREATE TABLE IF NOT EXISTS learning_versions (
     UNIQUE(repository, version)
 );
 
+-- Repositories the learning worker fleet schedules; LearningWorkerApp reads
+-- this table when started without repository arguments
+CREATE TABLE IF NOT EXISTS learning_repositories (
+    repository      VARCHAR(255) PRIMARY KEY,
+    enabled         BOOLEAN NOT NULL DEFAULT TRUE,
+    added_at        TIMESTAMPTZ DEFAULT NOW()
+);
+
 -- ============================================================
 -- Evaluation Tables
 -- ============================================================
@@ -164,6 +210,23 @@ CREATE TABLE IF NOT EXISTS evaluation_snapshots (
     total_findings              INTEGER
 );
 
+-- Running totals behind the evaluation snapshot, kept current by the same
+-- transactions that record reviews, findings, PR outcomes and dispositions.
+-- A repository's row is seeded from the full history the first time it is
+-- read, under an advisory lock on the repository that the writers also take;
+-- delete the row to have it rebuilt.
+CREATE TABLE IF NOT EXISTS evaluation_counters (
+    repository              VARCHAR(255) PRIMARY KEY,
+    total_reviews           INTEGER NOT NULL DEFAULT 0,
+    total_findings          INTEGER NOT NULL DEFAULT 0,
+    merged_prs              INTEGER NOT NULL DEFAULT 0,
+    merged_prs_with_bugs    INTEGER NOT NULL DEFAULT 0,
+    findings_with_outcome   INTEGER NOT NULL DEFAULT 0,
+    accepted_findings       INTEGER NOT NULL DEFAULT 0,
+    dismissed_findings      INTEGER NOT NULL DEFAULT 0,
+    updated_at              TIMESTAMPTZ DEFAULT NOW()
+);
+
 CREATE TABLE IF NOT EXISTS learning_version_deltas (
     id                  SERIAL PRIMARY KEY,
     repository          VARCHAR(255) NOT NULL,
@@ -211,9 +274,12 @@ CREATE TABLE IF NOT EXISTS weekly_learning_metrics (
 
 CREATE INDEX IF NOT EXISTS idx_review_runs_pr ON review_runs(pull_request_id);
 CREATE INDEX IF NOT EXISTS idx_review_runs_version ON review_runs(learning_version);
+CREATE INDEX IF NOT EXISTS idx_review_runs_pr_reviewed ON review_runs(pull_request_id, reviewed_at DESC);
 CREATE INDEX IF NOT EXISTS idx_findings_review ON findings(review_run_id);
 CREATE INDEX IF NOT EXISTS idx_finding_outcomes_finding ON finding_outcomes(finding_id);
 CREATE INDEX IF NOT EXISTS idx_heuristics_repo_status ON learned_heuristics(repository, status);
 CREATE INDEX IF NOT EXISTS idx_precision_repo ON agent_precision_profiles(repository, agent_name);
 CREATE INDEX IF NOT EXISTS idx_eval_repo ON evaluation_snapshots(repository, learning_version);
 CREATE INDEX IF NOT EXISTS idx_pr_repo ON pull_requests(repository, pr_number);
+CREATE INDEX IF NOT EXISTS idx_llm_responses_last_used ON llm_responses(last_used_at);
+CREATE INDEX IF NOT EXISTS idx_diff_blobs_last_used ON diff_blobs(last_used_at);
@@ -0,0 +1,136 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.agent.CodeQualityAgent;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.llm.LlmClient;
+import com.utm.temporal.llm.LlmOptions;
+import com.utm.temporal.llm.LlmResponse;
+import com.utm.temporal.llm.Message;
+import com.utm.temporal.model.AgentResult;
+import com.utm.temporal.model.ReviewRequest;
+import com.utm.temporal.model.TestSummary;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.client.WorkflowFailedException;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.RetryOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agent activities with {@code ASYNC_AGENT_ACTIVITIES} (the default): the
+ * activity method returns before the LLM answers and the activity is
+ * completed from the LLM client's thread.
+ */
+class AgentHeartbeatTest {
+
+    private static final String TASK_QUEUE = "agent-heartbeat-test";
+    private static final ScheduledExecutorService LLM = Executors.newSingleThreadScheduledExecutor();
+
+    private TestWorkflowEnvironment testEnv;
+    private Worker worker;
+
+    @BeforeAll
+    static void validateConfig() {
+        AppConfig.validate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        worker = testEnv.newWorker(TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(CodeQualityOnlyWorkflowImpl.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    void agentActivity_completesWhenTheLlmAnswers() {
+        worker.registerActivitiesImplementations(new CodeQualityActivityImpl(
+                new CodeQualityAgent(delayedLlm("{\"agentName\":\"Code Quality\",\"riskLevel\":\"LOW\","
+                        + "\"recommendation\":\"APPROVE\",\"findings\":[\"ok\"]}")), null));
+
+        AgentResult result = review();
+
+        assertEquals("APPROVE", result.recommendation);
+        assertEquals(1200, result.promptTokens);
+        assertEquals(80, result.completionTokens);
+        assertTrue(result.latencyMs >= 200, "latency " + result.latencyMs);
+    }
+
+    @Test
+    void agentActivity_failsWhenTheLlmAnswerIsUnusable() {
+        worker.registerActivitiesImplementations(new CodeQualityActivityImpl(
+                new CodeQualityAgent(delayedLlm("not json")), null));
+
+        WorkflowFailedException failure = assertThrows(WorkflowFailedException.class, this::review);
+        Throwable cause = failure.getCause().getCause();
+        assertTrue(cause.getMessage().contains("Code Quality Agent failed"), cause.getMessage());
+    }
+
+    private AgentResult review() {
+        testEnv.start();
+        return testEnv.getWorkflowClient().newWorkflowStub(CodeQualityOnlyWorkflow.class,
+                WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).build()).review(request());
+    }
+
+    @WorkflowInterface
+    public interface CodeQualityOnlyWorkflow {
+        @WorkflowMethod
+        AgentResult review(ReviewRequest request);
+    }
+
+    public static class CodeQualityOnlyWorkflowImpl implements CodeQualityOnlyWorkflow {
+        private final CodeQualityActivity codeQuality = Workflow.newActivityStub(CodeQualityActivity.class,
+                ActivityOptions.newBuilder()
+                        .setStartToCloseTimeout(Duration.ofSeconds(10))
+                        .setHeartbeatTimeout(Duration.ofSeconds(3))
+                        .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(1).build())
+                        .build());
+
+        @Override
+        public AgentResult review(ReviewRequest request) {
+            return codeQuality.analyze(request);
+        }
+    }
+
+    /** An LLM that answers {@code content} after 200 ms, from another thread. */
+    private static LlmClient delayedLlm(String content) {
+        return new LlmClient() {
+            @Override
+            public LlmResponse complete(List<Message> messages, LlmOptions options) {
+                return completeAsync(messages, options).join();
+            }
+
+            @Override
+            public CompletableFuture<LlmResponse> completeAsync(List<Message> messages, LlmOptions options) {
+                CompletableFuture<LlmResponse> future = new CompletableFuture<>();
+                LLM.schedule(() -> future.complete(new LlmResponse(content, 1200, 80)), 200, TimeUnit.MILLISECONDS);
+                return future;
+            }
+        };
+    }
+
+    private static ReviewRequest request() {
+        return new ReviewRequest(1, "Add retries", "Retries the client", "dev",
+                "diff --git a/A.java b/A.java\n+int x = 1;\n", new TestSummary(true, 1, 0, 10));
+    }
+}
@@ -0,0 +1,69 @@
+package com.utm.temporal.activity;
+
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.model.ReviewBatchPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewBatchActivityImplTest {
+
+    private static final String LINES = String.join("\n",
+            "{\"prNumber\":1,\"prTitle\":\"Café menu\",\"diff\":\"+a\"}",
+            "",
+            "not json",
+            "{\"prNumber\":2,\"diff\":\"+b\"}\r",
+            "{\"prNumber\":3,\"diff\":\"+c\"}") + "\n";
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void setUp() {
+        AppConfig.validate();
+    }
+
+    @Test
+    void pages_resumeAtTheByteOffsetWhereThePreviousEnded() throws Exception {
+        Path input = write();
+        ReviewBatchActivityImpl activity = new ReviewBatchActivityImpl(null);
+
+        ReviewBatchPage first = activity.readRequestsAt(input.toString(), 0, 0, 2);
+        assertEquals(Arrays.asList(1, 4), first.lineNumbers);
+        assertEquals(Collections.singletonList(3), first.invalidLines);
+        assertEquals("Café menu", first.requests.get(0).prTitle);
+        assertEquals(4, first.nextLine);
+        assertFalse(first.endOfInput);
+
+        ReviewBatchPage second = activity.readRequestsAt(input.toString(), first.nextLine, first.nextOffset, 2);
+        assertEquals(Collections.singletonList(5), second.lineNumbers);
+        assertEquals(3, second.requests.get(0).prNumber);
+        assertEquals(Files.size(input), second.nextOffset);
+        assertTrue(second.endOfInput);
+    }
+
+    @Test
+    void readRequests_withoutOffset_scansFromTheFirstLine() throws Exception {
+        Path input = write();
+        ReviewBatchActivityImpl activity = new ReviewBatchActivityImpl(null);
+
+        ReviewBatchPage page = activity.readRequests(input.toString(), 4, 2);
+
+        assertEquals(Collections.singletonList(5), page.lineNumbers);
+        assertEquals(Files.size(input), page.nextOffset);
+    }
+
+    private Path write() throws Exception {
+        Path input = dir.resolve("requests.jsonl");
+        Files.write(input, LINES.getBytes(StandardCharsets.UTF_8));
+        return input;
+    }
+}
@@ -0,0 +1,52 @@
+package com.utm.temporal.codec;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressingPayloadCodecTest {
+
+    @Test
+    void encode_largePayload_isCompressedAndRoundTrips() {
+        CompressingPayloadCodec codec = new CompressingPayloadCodec(1_024);
+        Payload original = jsonPayload("{\"diff\":\"" + "+    int value = compute();\\n".repeat(500) + "\"}");
+
+        Payload encoded = codec.encode(Collections.singletonList(original)).get(0);
+        assertEquals(CompressingPayloadCodec.ENCODING,
+                encoded.getMetadataOrThrow("encoding").toString(StandardCharsets.UTF_8));
+        assertTrue(encoded.getSerializedSize() < original.getSerializedSize() / 4);
+        assertTrue(codec.compressionRatio() > 0.75);
+
+        assertEquals(original, codec.decode(Collections.singletonList(encoded)).get(0));
+    }
+
+    @Test
+    void encode_smallPayload_passesThrough() {
+        CompressingPayloadCodec codec = new CompressingPayloadCodec(1_024);
+        Payload original = jsonPayload("{\"prNumber\":42}");
+
+        List<Payload> encoded = codec.encode(Collections.singletonList(original));
+        assertSame(original, encoded.get(0));
+        assertEquals(0.0, codec.compressionRatio());
+    }
+
+    @Test
+    void decode_uncompressedPayload_passesThrough() {
+        CompressingPayloadCodec codec = new CompressingPayloadCodec(1);
+        Payload plain = jsonPayload("{\"recommendation\":\"APPROVE\"}");
+        assertSame(plain, codec.decode(Collections.singletonList(plain)).get(0));
+    }
+
+    private static Payload jsonPayload(String json) {
+        return Payload.newBuilder()
+                .putMetadata("encoding", ByteString.copyFromUtf8("json/plain"))
+                .setData(ByteString.copyFromUtf8(json))
+                .build();
+    }
+}
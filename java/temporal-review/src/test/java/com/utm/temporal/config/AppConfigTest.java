@@ -34,6 +34,57 @@ class AppConfigTest {
         assertEquals("gpt-5.4-mini", AppConfig.DEFAULT_OPENAI_MODEL);
         assertEquals(60, AppConfig.DEFAULT_ACTIVITY_TIMEOUT_SECONDS);
         assertEquals(5, AppConfig.DEFAULT_RETRY_INTERVAL_SECONDS);
+        assertTrue(AppConfig.DEFAULT_PARALLEL_AGENTS);
+        assertEquals(10, AppConfig.DEFAULT_LOCAL_ACTIVITY_TIMEOUT_SECONDS);
+        assertEquals(15, AppConfig.DEFAULT_AGENT_HEARTBEAT_TIMEOUT_SECONDS);
+        assertEquals(300, AppConfig.DEFAULT_REVIEW_LATENCY_BUDGET_SECONDS);
+        assertEquals(600, AppConfig.DEFAULT_RESULT_CACHE_TTL_SECONDS);
+        assertTrue(AppConfig.DEFAULT_ADAPTIVE_TIMEOUTS);
+        assertTrue(AppConfig.DEFAULT_ASYNC_AGENT_ACTIVITIES);
+        assertEquals(256, AppConfig.DEFAULT_LLM_MAX_CONCURRENT_REQUESTS);
+        assertTrue(AppConfig.DEFAULT_LLM_STREAMING);
+        assertTrue(AppConfig.DEFAULT_LLM_RATE_LIMITER);
+        assertTrue(AppConfig.DEFAULT_LLM_CACHE);
+        assertEquals(512, AppConfig.DEFAULT_LLM_CACHE_MEMORY_ENTRIES);
+        assertEquals(604_800, AppConfig.DEFAULT_LLM_CACHE_TTL_SECONDS);
+        assertEquals(512, AppConfig.DEFAULT_LLM_CACHE_MAX_MB);
+        assertEquals("filesystem", AppConfig.DEFAULT_LLM_CACHE_STORE);
+        assertEquals(120, AppConfig.DEFAULT_LLM_CACHE_LOCK_SECONDS);
+        assertEquals(30, AppConfig.DEFAULT_ADAPTIVE_TIMEOUT_MIN_SECONDS);
+        assertEquals(300, AppConfig.DEFAULT_ADAPTIVE_TIMEOUT_MAX_SECONDS);
+        assertEquals(20_000, AppConfig.DEFAULT_SHARD_MAX_TOKENS);
+        assertEquals(4, AppConfig.DEFAULT_MAX_CONCURRENT_SHARDS);
+        assertEquals(5, AppConfig.DEFAULT_BATCH_PARALLELISM);
+        assertEquals(20, AppConfig.DEFAULT_INTERACTIVE_MAX_CONCURRENT_ACTIVITIES);
+        assertEquals(4, AppConfig.DEFAULT_BULK_MAX_CONCURRENT_ACTIVITIES);
+        assertEquals(4, AppConfig.DEFAULT_LEARNING_MAX_CONCURRENT_ACTIVITIES);
+        assertTrue(AppConfig.DEFAULT_SEPARATE_ACTIVITY_QUEUES);
+        assertEquals("workflows,agents,storage", AppConfig.DEFAULT_WORKER_POOLS);
+        assertEquals(5, AppConfig.DEFAULT_AGENT_ACTIVITY_POLLERS);
+        assertEquals(50, AppConfig.DEFAULT_STORAGE_MAX_CONCURRENT_ACTIVITIES);
+        assertEquals(2, AppConfig.DEFAULT_STORAGE_ACTIVITY_POLLERS);
+        assertEquals("none", AppConfig.DEFAULT_DIFF_STORE);
+        assertEquals(32_768, AppConfig.DEFAULT_DIFF_STORE_MIN_CHARS);
+        assertEquals(604_800, AppConfig.DEFAULT_DIFF_STORE_TTL_SECONDS);
+        assertEquals(1024, AppConfig.DEFAULT_DIFF_STORE_MAX_MB);
+        assertTrue(AppConfig.DEFAULT_PAYLOAD_COMPRESSION);
+        assertEquals(4_096, AppConfig.DEFAULT_PAYLOAD_COMPRESSION_MIN_BYTES);
+    }
+
+    @Test
+    void laneTaskQueue_defaultsToInteractive() {
+        assertEquals("pr-review-interactive", AppConfig.laneTaskQueue("pr-review", null));
+        assertEquals("pr-review-interactive", AppConfig.laneTaskQueue("pr-review", "interactive"));
+        assertEquals("pr-review-bulk", AppConfig.laneTaskQueue("pr-review", "BULK"));
+        assertThrows(IllegalArgumentException.class, () -> AppConfig.laneTaskQueue("pr-review", "urgent"));
+    }
+
+    @Test
+    void activityTaskQueue_followsTheWorkflowQueue() {
+        assertEquals("pr-review-interactive-agents",
+                AppConfig.activityTaskQueue("pr-review-interactive", AppConfig.POOL_AGENTS));
+        assertEquals("pr-review-bulk-storage",
+                AppConfig.activityTaskQueue("pr-review-bulk", AppConfig.POOL_STORAGE));
     }
 
     // -----------------------------------------------------------------
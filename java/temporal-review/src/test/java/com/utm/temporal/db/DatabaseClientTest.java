@@ -0,0 +1,38 @@
+package com.utm.temporal.db;
+
+import com.utm.temporal.model.EvaluationCounters;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseClientTest {
+
+    @Test
+    void dispositionDelta_countsFirstOutcome() {
+        EvaluationCounters delta = DatabaseClient.dispositionDelta(null, "ACCEPTED");
+        assertEquals(1, delta.findingsWithOutcome);
+        assertEquals(1, delta.acceptedFindings);
+        assertEquals(0, delta.dismissedFindings);
+
+        EvaluationCounters unknown = DatabaseClient.dispositionDelta(null, "UNKNOWN");
+        assertEquals(0, unknown.findingsWithOutcome);
+        assertEquals(0, unknown.acceptedFindings);
+    }
+
+    @Test
+    void dispositionDelta_movesChangedOutcomeBetweenCounters() {
+        EvaluationCounters delta = DatabaseClient.dispositionDelta("ACCEPTED", "DISMISSED");
+        assertEquals(0, delta.findingsWithOutcome);
+        assertEquals(-1, delta.acceptedFindings);
+        assertEquals(1, delta.dismissedFindings);
+
+        EvaluationCounters deferred = DatabaseClient.dispositionDelta("UNKNOWN", "DEFERRED");
+        assertEquals(1, deferred.findingsWithOutcome);
+        assertEquals(0, deferred.acceptedFindings);
+        assertEquals(0, deferred.dismissedFindings);
+
+        EvaluationCounters same = DatabaseClient.dispositionDelta("DISMISSED", "DISMISSED");
+        assertEquals(0, same.findingsWithOutcome);
+        assertEquals(0, same.dismissedFindings);
+    }
+}
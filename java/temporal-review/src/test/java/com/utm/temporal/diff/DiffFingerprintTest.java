@@ -0,0 +1,73 @@
+package com.utm.temporal.diff;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiffFingerprintTest {
+
+    @Test
+    void hunkHashes_keysFilesInDiffOrder() {
+        String diff = fileDiff("src/B.java", hunk(1, "b")) + fileDiff("src/A.java", hunk(1, "a"), hunk(50, "c"));
+        Map<String, List<String>> hashes = DiffFingerprint.hunkHashes(diff);
+        assertEquals(Arrays.asList("src/B.java", "src/A.java"), List.copyOf(hashes.keySet()));
+        assertEquals(1, hashes.get("src/B.java").size());
+        assertEquals(2, hashes.get("src/A.java").size());
+    }
+
+    @Test
+    void hunkHashes_ignoreLineNumberShifts() {
+        String before = fileDiff("a.txt", hunk(10, "x"));
+        String after = fileDiff("a.txt", hunk(14, "x"));
+        assertEquals(DiffFingerprint.hunkHashes(before), DiffFingerprint.hunkHashes(after));
+    }
+
+    @Test
+    void changedHunks_unchangedDiff_returnsEmpty() {
+        String diff = fileDiff("a.txt", hunk(1, "x")) + fileDiff("b.txt", hunk(1, "y"));
+        assertEquals("", DiffFingerprint.changedHunks(diff, DiffFingerprint.hunkHashes(diff)));
+    }
+
+    @Test
+    void changedHunks_keepsOnlyNewOrChangedHunksUnderTheirFileHeader() {
+        String before = fileDiff("a.txt", hunk(1, "x"), hunk(50, "y")) + fileDiff("b.txt", hunk(1, "z"));
+        String after = fileDiff("a.txt", hunk(1, "x"), hunk(50, "y2")) + fileDiff("b.txt", hunk(1, "z"))
+                + fileDiff("c.txt", hunk(1, "new"));
+
+        String changed = DiffFingerprint.changedHunks(after, DiffFingerprint.hunkHashes(before));
+        assertEquals(fileDiff("a.txt", hunk(50, "y2")) + fileDiff("c.txt", hunk(1, "new")), changed);
+        assertEquals(Arrays.asList("a.txt", "c.txt"), DiffFingerprint.filePaths(changed));
+    }
+
+    @Test
+    void changedHunks_noBaseline_returnsWholeDiff() {
+        String diff = fileDiff("a.txt", hunk(1, "x"));
+        assertEquals(diff, DiffFingerprint.changedHunks(diff, null));
+    }
+
+    @Test
+    void filePath_usesNewSideOfRename() {
+        assertEquals("new/Name.java",
+                DiffFingerprint.filePath("diff --git a/old/Name.java b/new/Name.java\nsimilarity index 100%\n"));
+        assertNull(DiffFingerprint.filePath("preamble\n"));
+    }
+
+    private static String fileDiff(String path, String... hunks) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("diff --git a/").append(path).append(" b/").append(path).append("\n");
+        sb.append("--- a/").append(path).append("\n");
+        sb.append("+++ b/").append(path).append("\n");
+        for (String hunk : hunks) {
+            sb.append(hunk);
+        }
+        return sb.toString();
+    }
+
+    private static String hunk(int line, String content) {
+        return "@@ -" + line + ",1 +" + line + ",2 @@\n context\n+" + content + "\n";
+    }
+}
@@ -0,0 +1,123 @@
+package com.utm.temporal.diff;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiffSharderTest {
+
+    // -------------------------------------------------------------------------
+    // split – small inputs
+    // -------------------------------------------------------------------------
+
+    @Test
+    void split_diffWithinBudget_returnsSingleShard() {
+        String diff = fileDiff("a.txt", 2, 10);
+        List<String> shards = DiffSharder.split(diff, 10_000);
+        assertEquals(1, shards.size());
+        assertEquals(diff, shards.get(0));
+    }
+
+    @Test
+    void split_nullDiff_returnsSingleNullShard() {
+        List<String> shards = DiffSharder.split(null, 100);
+        assertEquals(1, shards.size());
+        assertNull(shards.get(0));
+    }
+
+    @Test
+    void split_nonPositiveBudget_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> DiffSharder.split("x", 0));
+    }
+
+    // -------------------------------------------------------------------------
+    // split – large inputs
+    // -------------------------------------------------------------------------
+
+    @Test
+    void split_manyFiles_cutsAtFileBoundariesWithinBudget() {
+        StringBuilder diff = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            diff.append(fileDiff("src/File" + i + ".java", 2, 20));
+        }
+        int maxTokens = 500;
+        List<String> shards = DiffSharder.split(diff.toString(), maxTokens);
+
+        assertTrue(shards.size() > 1);
+        for (String shard : shards) {
+            assertTrue(shard.length() <= maxTokens * DiffSharder.CHARS_PER_TOKEN, "shard exceeds budget");
+            assertTrue(shard.startsWith("diff --git "), "shard should start at a file boundary");
+        }
+        assertEquals(diff.toString(), String.join("", shards), "no content may be lost or reordered");
+    }
+
+    @Test
+    void split_singleOversizedFile_repeatsFileHeaderOnEveryPiece() {
+        String diff = fileDiff("src/Big.java", 30, 20);
+        List<String> shards = DiffSharder.split(diff, 300);
+
+        assertTrue(shards.size() > 1);
+        for (String shard : shards) {
+            assertTrue(shard.startsWith("diff --git a/src/Big.java b/src/Big.java\n"));
+            assertTrue(shard.contains("@@"), "each piece should carry at least one hunk");
+            assertTrue(shard.length() <= 300 * DiffSharder.CHARS_PER_TOKEN);
+        }
+    }
+
+    @Test
+    void split_singleHugeHunk_fallsBackToLineBoundaries() {
+        String diff = fileDiff("src/Huge.java", 1, 2_000);
+        List<String> shards = DiffSharder.split(diff, 1_000);
+
+        assertTrue(shards.size() > 1);
+        for (String shard : shards) {
+            assertTrue(shard.length() <= 1_000 * DiffSharder.CHARS_PER_TOKEN);
+            assertTrue(shard.endsWith("\n"), "cuts should land on line boundaries");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // splitFiles / estimateTokens
+    // -------------------------------------------------------------------------
+
+    @Test
+    void splitFiles_keepsPreambleAsOwnSection() {
+        String diff = "preamble\n" + fileDiff("a.txt", 1, 1) + fileDiff("b.txt", 1, 1);
+        List<String> sections = DiffSharder.splitFiles(diff);
+        assertEquals(3, sections.size());
+        assertEquals("preamble\n", sections.get(0));
+    }
+
+    @Test
+    void splitFiles_textWithoutFileMarkers_isOneSection() {
+        assertEquals(1, DiffSharder.splitFiles("just some text\nmore text\n").size());
+    }
+
+    @Test
+    void estimateTokens_roundsUp() {
+        assertEquals(0, DiffSharder.estimateTokens(null));
+        assertEquals(1, DiffSharder.estimateTokens("abc"));
+        assertEquals(2, DiffSharder.estimateTokens("abcde"));
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private static String fileDiff(String path, int hunks, int linesPerHunk) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("diff --git a/").append(path).append(" b/").append(path).append("\n");
+        sb.append("--- a/").append(path).append("\n");
+        sb.append("+++ b/").append(path).append("\n");
+        for (int h = 0; h < hunks; h++) {
+            sb.append("@@ -").append(h * 100 + 1).append(",").append(linesPerHunk)
+                    .append(" +").append(h * 100 + 1).append(",").append(linesPerHunk).append(" @@\n");
+            for (int l = 0; l < linesPerHunk; l++) {
+                sb.append("+    int value").append(l).append(" = compute(").append(l).append(");\n");
+            }
+        }
+        return sb.toString();
+    }
+}
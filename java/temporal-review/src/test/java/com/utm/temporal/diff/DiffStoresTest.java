@@ -0,0 +1,162 @@
+package com.utm.temporal.diff;
+
+import com.utm.temporal.model.ReviewRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiffStoresTest {
+
+    private static final Duration TTL = Duration.ofDays(1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fileSystemStore_roundTripsByContentHash() {
+        FileSystemDiffStore store = new FileSystemDiffStore(tempDir, TTL, 1 << 20);
+        String hash = store.put("diff --git a/a.txt b/a.txt\n+hello\n");
+
+        assertEquals(DiffStore.contentHash("diff --git a/a.txt b/a.txt\n+hello\n"), hash);
+        assertEquals(hash, store.put("diff --git a/a.txt b/a.txt\n+hello\n"));
+        assertEquals("diff --git a/a.txt b/a.txt\n+hello\n", store.get(hash));
+    }
+
+    @Test
+    void fileSystemStore_unknownHash_throwsIllegalStateException() {
+        FileSystemDiffStore store = new FileSystemDiffStore(tempDir, TTL, 1 << 20);
+        assertThrows(IllegalStateException.class, () -> store.get(DiffStore.contentHash("missing")));
+        assertThrows(IllegalArgumentException.class, () -> store.get("../../etc/passwd"));
+    }
+
+    @Test
+    void fileSystemStore_pastItsLimit_evictsLeastRecentlyUsed() throws Exception {
+        FileSystemDiffStore probe = new FileSystemDiffStore(tempDir.resolve("probe"), TTL, 1 << 20);
+        probe.put(diff(0));
+        long maxBytes = probe.bytesStored() * 10;
+
+        FileSystemDiffStore store = new FileSystemDiffStore(tempDir.resolve("store"), TTL, maxBytes);
+        String[] hashes = new String[11];
+        for (int i = 0; i < 10; i++) {
+            hashes[i] = store.put(diff(i));
+            Thread.sleep(5);
+        }
+        // Reading the oldest diff makes it the most recently used
+        store.get(hashes[0]);
+        Thread.sleep(5);
+        hashes[10] = store.put(diff(10));
+
+        assertTrue(store.bytesStored() <= maxBytes, "store holds " + store.bytesStored() + " bytes");
+        assertEquals(diff(0), store.get(hashes[0]));
+        assertThrows(IllegalStateException.class, () -> store.get(hashes[1]));
+        assertEquals(diff(10), store.get(hashes[10]));
+    }
+
+    @Test
+    void fileSystemStore_evictsDiffsUnusedForTheTtl() throws Exception {
+        FileSystemDiffStore store = new FileSystemDiffStore(tempDir, Duration.ofMillis(50), 1 << 20);
+        String stale = store.put(diff(1));
+        Thread.sleep(100);
+        String fresh = store.put(diff(2));
+
+        store.evict();
+
+        assertThrows(IllegalStateException.class, () -> store.get(stale));
+        assertEquals(diff(2), store.get(fresh));
+    }
+
+    @Test
+    void cachingStore_servesRepeatedReadsFromMemory() {
+        CountingStore counting = new CountingStore();
+        CachingDiffStore store = new CachingDiffStore(counting, 1);
+        String a = counting.put("a");
+        String b = counting.put("b");
+
+        store.get(a);
+        store.get(a);
+        assertEquals(1, counting.gets);
+        store.get(b); // evicts a
+        store.get(a);
+        assertEquals(3, counting.gets);
+    }
+
+    @Test
+    void cachingStore_memoryHits_markTheDiffUsedInTheBackingStore() {
+        CountingStore counting = new CountingStore();
+        String a = counting.put("a");
+
+        CachingDiffStore everyHit = new CachingDiffStore(counting, 4, Duration.ZERO);
+        everyHit.get(a);
+        everyHit.get(a);
+        everyHit.get(a);
+        assertEquals(1, counting.gets);
+        assertEquals(2, counting.touches);
+
+        CachingDiffStore hourly = new CachingDiffStore(counting, 4, Duration.ofHours(1));
+        hourly.get(a);
+        hourly.get(a);
+        assertEquals(2, counting.touches);
+    }
+
+    @Test
+    void externalize_movesLargeDiffsOnly() {
+        FileSystemDiffStore store = new FileSystemDiffStore(tempDir, TTL, 1 << 20);
+        ReviewRequest small = request("tiny");
+        DiffStores.externalize(small, store, 10);
+        assertEquals("tiny", small.diff);
+        assertNull(small.diffHash);
+
+        ReviewRequest large = request("0123456789abcdef");
+        DiffStores.externalize(large, store, 10);
+        assertNull(large.diff);
+        assertEquals(16, large.diffSize);
+        assertEquals("0123456789abcdef", DiffStores.resolve(large, store));
+    }
+
+    @Test
+    void resolve_referenceWithoutStore_throwsIllegalStateException() {
+        ReviewRequest request = request(null);
+        request.diffHash = DiffStore.contentHash("x");
+        assertThrows(IllegalStateException.class, () -> DiffStores.resolve(request, null));
+    }
+
+    private static String diff(int i) {
+        return "diff --git a/F" + i + ".java b/F" + i + ".java\n+int value = " + i + ";\n";
+    }
+
+    private static ReviewRequest request(String diff) {
+        ReviewRequest request = new ReviewRequest();
+        request.diff = diff;
+        return request;
+    }
+
+    private static class CountingStore implements DiffStore {
+        private final Map<String, String> diffs = new HashMap<>();
+        int gets;
+        int touches;
+
+        @Override
+        public String put(String diff) {
+            String hash = DiffStore.contentHash(diff);
+            diffs.put(hash, diff);
+            return hash;
+        }
+
+        @Override
+        public String get(String hash) {
+            gets++;
+            return diffs.get(hash);
+        }
+
+        @Override
+        public void touch(String hash) {
+            touches++;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.utm.temporal.learning;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LearningSchedulesTest {
+
+    @Test
+    void offsets_areDeterministicAndSpreadAcrossTheWindow() {
+        Set<Integer> minutes = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            String id = LearningSchedules.scheduleId("outcome-collection-hourly", "acme/repo-" + i);
+            int minute = LearningSchedules.jitterMinutes(id, 60);
+            assertEquals(minute, LearningSchedules.jitterMinutes(id, 60));
+            assertTrue(minute >= 0 && minute < 60);
+            minutes.add(minute);
+        }
+        // 50 repositories must not pile onto a handful of minutes
+        assertTrue(minutes.size() > 20, "only " + minutes.size() + " distinct minutes");
+    }
+
+    @Test
+    void daily_staysInsideItsWindow() {
+        for (int i = 0; i < 50; i++) {
+            String[] fields = LearningSchedules.daily("learning-daily-acme-repo-" + i, 3, 120, "MON").split(" ");
+            int minuteOfDay = Integer.parseInt(fields[1]) * 60 + Integer.parseInt(fields[0]);
+            assertTrue(minuteOfDay >= 180 && minuteOfDay < 300, "outside 03:00-05:00: " + minuteOfDay);
+            assertEquals("MON", fields[4]);
+        }
+        assertEquals("learning-daily-nadvolod-ultimate-code-metrics",
+                LearningSchedules.scheduleId("learning-daily", "nadvolod/ultimate-code-metrics"));
+    }
+}
@@ -0,0 +1,325 @@
+package com.utm.temporal.llm;
+
+import com.utm.temporal.model.CachedLlmResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingLlmClientTest {
+
+    private static final LlmOptions OPTIONS = new LlmOptions("gpt-test", 0.2, "json_object");
+    private static final Duration TTL = Duration.ofDays(1);
+    private static final Duration POLL = Duration.ofMillis(20);
+    private static final ScheduledExecutorService LLM = Executors.newSingleThreadScheduledExecutor();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void repeatedRequest_isAnsweredFromMemoryAtZeroCost() {
+        CountingClient delegate = new CountingClient(0);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, null, TTL);
+
+        LlmResponse first = client.complete(messages("diff 1"), OPTIONS);
+        LlmResponse second = client.complete(messages("diff 1"), OPTIONS);
+
+        assertEquals(1, delegate.calls.get());
+        assertEquals(first.content, second.content);
+        assertFalse(first.cached);
+        assertEquals(1200, first.promptTokens);
+        assertTrue(second.cached);
+        assertEquals(0, second.promptTokens);
+        assertEquals(0, second.completionTokens);
+        assertEquals(1, client.getHits());
+        assertEquals(1, client.getMisses());
+        assertTrue(client.metricsSummary().contains("1200 prompt + 80 completion tokens saved"),
+                client.metricsSummary());
+    }
+
+    @Test
+    void key_coversModelTemperatureFormatAndMessages() {
+        CachingLlmClient client = new CachingLlmClient(new CountingClient(0), 16, null, TTL);
+        String base = client.key(messages("diff 1"), OPTIONS);
+
+        assertEquals(base, client.key(messages("diff 1"), new LlmOptions("gpt-test", 0.2, "json_object")));
+        assertNotEquals(base, client.key(messages("diff 2"), OPTIONS));
+        assertNotEquals(base, client.key(messages("diff 1"), new LlmOptions("gpt-other", 0.2, "json_object")));
+        assertNotEquals(base, client.key(messages("diff 1"), new LlmOptions("gpt-test", 0.7, "json_object")));
+        assertNotEquals(base, client.key(messages("diff 1"), new LlmOptions("gpt-test", 0.2, null)));
+        assertNotEquals(base, client.key(List.of(new Message("user", "diff 1")), OPTIONS));
+    }
+
+    @Test
+    void storedResponse_survivesANewClient() {
+        CountingClient delegate = new CountingClient(0);
+        new CachingLlmClient(delegate, 16, new FileSystemLlmResponseStore(dir, TTL, 1 << 20), TTL)
+                .complete(messages("diff 1"), OPTIONS);
+
+        CachingLlmClient restarted =
+                new CachingLlmClient(delegate, 16, new FileSystemLlmResponseStore(dir, TTL, 1 << 20), TTL);
+        LlmResponse response = restarted.complete(messages("diff 1"), OPTIONS);
+
+        assertEquals(1, delegate.calls.get());
+        assertTrue(response.cached);
+        assertTrue(restarted.metricsSummary().contains("0 memory, 1 store"), restarted.metricsSummary());
+    }
+
+    @Test
+    void expiredEntries_areNotReused() throws Exception {
+        Duration ttl = Duration.ofMillis(50);
+        CountingClient delegate = new CountingClient(0);
+        CachingLlmClient client =
+                new CachingLlmClient(delegate, 16, new FileSystemLlmResponseStore(dir, ttl, 1 << 20), ttl);
+
+        client.complete(messages("diff 1"), OPTIONS);
+        Thread.sleep(100);
+        LlmResponse response = client.complete(messages("diff 1"), OPTIONS);
+
+        assertEquals(2, delegate.calls.get());
+        assertFalse(response.cached);
+    }
+
+    @Test
+    void concurrentIdenticalRequests_makeOneCall() throws Exception {
+        CountingClient delegate = new CountingClient(200);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, null, TTL);
+
+        CompletableFuture<LlmResponse> first = client.completeAsync(messages("diff 1"), OPTIONS);
+        CompletableFuture<LlmResponse> second = client.completeAsync(messages("diff 1"), OPTIONS);
+
+        assertEquals(first.get().content, second.get().content);
+        assertEquals(1, delegate.calls.get());
+        assertFalse(first.get().cached);
+        assertTrue(second.get().cached);
+        assertEquals(0, second.get().promptTokens);
+    }
+
+    @Test
+    void firstCallerCancelling_leavesTheOthersTheAnswer() throws Exception {
+        CountingClient delegate = new CountingClient(200);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, null, TTL);
+
+        CompletableFuture<LlmResponse> first = client.completeAsync(messages("diff 1"), OPTIONS);
+        CompletableFuture<LlmResponse> second = client.completeAsync(messages("diff 1"), OPTIONS);
+        first.cancel(true);
+
+        assertTrue(second.get(5, TimeUnit.SECONDS).content.contains("diff 1"));
+        assertFalse(delegate.lastCall.isCancelled());
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    void everyCallerCancelling_cancelsTheCall() {
+        CountingClient delegate = new CountingClient(5_000);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, null, TTL);
+
+        CompletableFuture<LlmResponse> first = client.completeAsync(messages("diff 1"), OPTIONS);
+        CompletableFuture<LlmResponse> second = client.completeAsync(messages("diff 1"), OPTIONS);
+        first.cancel(true);
+        assertFalse(delegate.lastCall.isCancelled());
+        second.cancel(true);
+
+        assertTrue(delegate.lastCall.isCancelled());
+    }
+
+    @Test
+    void sharedStore_letsOneWorkerCallWhileTheOthersWait() throws Exception {
+        SharedStore store = new SharedStore();
+        CountingClient nodeA = new CountingClient(200);
+        CountingClient nodeB = new CountingClient(200);
+        CachingLlmClient clientA = new CachingLlmClient(nodeA, 16, store, TTL, POLL);
+        CachingLlmClient clientB = new CachingLlmClient(nodeB, 16, store, TTL, POLL);
+
+        CompletableFuture<LlmResponse> first = clientA.completeAsync(messages("diff 1"), OPTIONS);
+        CompletableFuture<LlmResponse> second = clientB.completeAsync(messages("diff 1"), OPTIONS);
+
+        assertEquals(first.get(5, TimeUnit.SECONDS).content, second.get(5, TimeUnit.SECONDS).content);
+        assertEquals(1, nodeA.calls.get());
+        assertEquals(0, nodeB.calls.get());
+        assertTrue(second.get().cached);
+    }
+
+    @Test
+    void sharedStore_lapsedClaim_isTakenOver() throws Exception {
+        SharedStore store = new SharedStore();
+        CountingClient delegate = new CountingClient(0);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, store, TTL, POLL);
+        // A worker that died after claiming the request
+        store.claims.put(client.key(messages("diff 1"), OPTIONS), System.currentTimeMillis() + 100);
+
+        LlmResponse response = client.completeAsync(messages("diff 1"), OPTIONS).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, delegate.calls.get());
+        assertFalse(response.cached);
+    }
+
+    @Test
+    void sharedStore_takenOverCall_reportsToTheCallersTracker() throws Exception {
+        SharedStore store = new SharedStore();
+        CountingClient delegate = new CountingClient(0);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, store, TTL, POLL);
+        store.claims.put(client.key(messages("diff 1"), OPTIONS), System.currentTimeMillis() + 100);
+
+        try (LlmProgress tracker = LlmProgress.track()) {
+            client.completeAsync(messages("diff 1"), OPTIONS).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, delegate.calls.get());
+            assertSame(tracker, delegate.lastProgress);
+        }
+    }
+
+    @Test
+    void pollDelay_backsOffToEightTimesTheInterval() {
+        assertEquals(1000, CachingLlmClient.pollDelayMs(1000, 0));
+        assertEquals(2000, CachingLlmClient.pollDelayMs(1000, 1));
+        assertEquals(4000, CachingLlmClient.pollDelayMs(1000, 2));
+        assertEquals(8000, CachingLlmClient.pollDelayMs(1000, 3));
+        assertEquals(8000, CachingLlmClient.pollDelayMs(1000, 100));
+    }
+
+    @Test
+    void failedCall_releasesItsClaim() {
+        SharedStore store = new SharedStore();
+        LlmClient failing = (messages, options) -> {
+            throw new IllegalStateException("HTTP 500");
+        };
+        CachingLlmClient client = new CachingLlmClient(failing, 16, store, TTL, POLL);
+
+        assertThrows(IllegalStateException.class, () -> client.complete(messages("diff 1"), OPTIONS));
+        assertTrue(store.claims.isEmpty());
+    }
+
+    @Test
+    void malformedJsonAnswer_isReturnedButNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        LlmClient truncated = (messages, options) -> {
+            calls.incrementAndGet();
+            return new LlmResponse("{\"riskLevel\":\"LOW\",\"findings\":[", 1200, 80);
+        };
+        SharedStore store = new SharedStore();
+        CachingLlmClient client = new CachingLlmClient(truncated, 16, store, TTL, POLL);
+
+        LlmResponse first = client.complete(messages("diff 1"), OPTIONS);
+        LlmResponse second = client.complete(messages("diff 1"), OPTIONS);
+
+        assertEquals(2, calls.get());
+        assertFalse(first.cached);
+        assertFalse(second.cached);
+        assertTrue(store.responses.isEmpty());
+        assertTrue(store.claims.isEmpty());
+    }
+
+    @Test
+    void invalidate_dropsTheAnswerFromBothTiers() {
+        CountingClient delegate = new CountingClient(0);
+        FileSystemLlmResponseStore store = new FileSystemLlmResponseStore(dir, TTL, 1 << 20);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, store, TTL);
+
+        client.complete(messages("diff 1"), OPTIONS);
+        client.invalidate(messages("diff 1"), OPTIONS);
+        LlmResponse response = client.complete(messages("diff 1"), OPTIONS);
+
+        assertEquals(2, delegate.calls.get());
+        assertFalse(response.cached);
+        assertNotNull(store.get(client.key(messages("diff 1"), OPTIONS)));
+    }
+
+    @Test
+    void invalidate_withoutAStore_isPassedOnToTheDelegate() {
+        CountingClient delegate = new CountingClient(0);
+        CachingLlmClient client = new CachingLlmClient(delegate, 16, null, TTL);
+
+        client.invalidate(messages("diff 1"), OPTIONS);
+
+        assertEquals(1, delegate.invalidations.get());
+    }
+
+    private static List<Message> messages(String diff) {
+        return List.of(new Message("system", "You review code."), new Message("user", diff));
+    }
+
+    /** Answers every request with a fixed response after {@code delayMs}, counting the calls. */
+    private static class CountingClient implements LlmClient {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CompletableFuture<LlmResponse> lastCall;
+        volatile LlmProgress lastProgress;
+        final AtomicInteger invalidations = new AtomicInteger();
+        private final long delayMs;
+
+        CountingClient(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public LlmResponse complete(List<Message> messages, LlmOptions options) {
+            return completeAsync(messages, options).join();
+        }
+
+        @Override
+        public CompletableFuture<LlmResponse> completeAsync(List<Message> messages, LlmOptions options) {
+            calls.incrementAndGet();
+            lastProgress = LlmProgress.current();
+            String diff = messages.get(messages.size() - 1).content;
+            LlmResponse response = new LlmResponse("{\"riskLevel\":\"LOW\",\"findings\":[\"" + diff + "\"]}", 1200, 80);
+            CompletableFuture<LlmResponse> future = new CompletableFuture<>();
+            LLM.schedule(() -> future.complete(response), delayMs, TimeUnit.MILLISECONDS);
+            lastCall = future;
+            return future;
+        }
+
+        @Override
+        public void invalidate(List<Message> messages, LlmOptions options) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /** In-memory stand-in for a store shared by several workers, with expiring claims. */
+    private static class SharedStore implements LlmResponseStore {
+        final Map<String, CachedLlmResponse> responses = new ConcurrentHashMap<>();
+        final Map<String, Long> claims = new ConcurrentHashMap<>();
+
+        @Override
+        public CachedLlmResponse get(String key) {
+            return responses.get(key);
+        }
+
+        @Override
+        public void put(String key, String model, CachedLlmResponse response) {
+            responses.put(key, response);
+            claims.remove(key);
+        }
+
+        @Override
+        public void remove(String key) {
+            responses.remove(key);
+        }
+
+        @Override
+        public synchronized boolean claim(String key, String model) {
+            long nowMs = System.currentTimeMillis();
+            Long claimedUntil = claims.get(key);
+            if (claimedUntil != null && claimedUntil > nowMs) {
+                return false;
+            }
+            claims.put(key, nowMs + 10_000);
+            return true;
+        }
+
+        @Override
+        public void release(String key) {
+            claims.remove(key);
+        }
+    }
+}
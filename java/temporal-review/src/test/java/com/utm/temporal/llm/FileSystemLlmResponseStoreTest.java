@@ -0,0 +1,63 @@
+package com.utm.temporal.llm;
+
+import com.utm.temporal.model.CachedLlmResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemLlmResponseStoreTest {
+
+    private static final Duration TTL = Duration.ofDays(1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void put_thenGet_roundTripsTheAnswerAndUsage() {
+        FileSystemLlmResponseStore store = new FileSystemLlmResponseStore(dir, TTL, 1 << 20);
+        store.put(key(1), "gpt-test", response(1));
+
+        CachedLlmResponse loaded = store.get(key(1));
+
+        assertEquals(response(1).content, loaded.content);
+        assertEquals(1200, loaded.promptTokens);
+        assertEquals(80, loaded.completionTokens);
+        assertNull(store.get(key(2)));
+    }
+
+    @Test
+    void pastItsLimit_evictsLeastRecentlyUsed() throws Exception {
+        FileSystemLlmResponseStore probe = new FileSystemLlmResponseStore(dir.resolve("probe"), TTL, 1 << 20);
+        probe.put(key(0), "gpt-test", response(0));
+        long entryBytes = probe.bytesStored();
+        long maxBytes = entryBytes * 10;
+
+        FileSystemLlmResponseStore store = new FileSystemLlmResponseStore(dir.resolve("cache"), TTL, maxBytes);
+        for (int i = 0; i < 10; i++) {
+            store.put(key(i), "gpt-test", response(i));
+            Thread.sleep(5);
+        }
+        // Reading the oldest entry makes it the most recently used
+        assertNotNull(store.get(key(0)));
+        Thread.sleep(5);
+        store.put(key(10), "gpt-test", response(10));
+
+        assertTrue(store.bytesStored() <= maxBytes, "store holds " + store.bytesStored() + " bytes");
+        assertNotNull(store.get(key(0)));
+        assertNull(store.get(key(1)));
+        assertNotNull(store.get(key(10)));
+    }
+
+    private static String key(int i) {
+        return String.format("%064x", i + 0xab00);
+    }
+
+    private static CachedLlmResponse response(int i) {
+        return new CachedLlmResponse("{\"riskLevel\":\"LOW\",\"findings\":[\"diff " + (i % 10) + "\"]}",
+                1200, 80, System.currentTimeMillis());
+    }
+}
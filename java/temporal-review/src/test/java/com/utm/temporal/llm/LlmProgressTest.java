@@ -0,0 +1,52 @@
+package com.utm.temporal.llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmProgressTest {
+
+    @Test
+    void track_installsTheTrackerOnTheCurrentThreadUntilClosed() {
+        try (LlmProgress progress = LlmProgress.track()) {
+            assertSame(progress, LlmProgress.current());
+        }
+        assertNull(LlmProgress.current());
+    }
+
+    @Test
+    void newAttempt_restartsTheByteCount() {
+        try (LlmProgress progress = LlmProgress.track()) {
+            progress.onBytes(100);
+            progress.onBytes(50);
+            assertEquals(150, progress.getBytesReceived());
+
+            progress.onAttempt(2);
+            assertEquals(2, progress.getAttempt());
+            assertEquals(0, progress.getBytesReceived());
+        }
+    }
+
+    @Test
+    void newAttempt_measuresTimeToFirstContentAgain() {
+        try (LlmProgress progress = LlmProgress.track()) {
+            progress.onContent("{\"recommendation\"");
+            assertTrue(progress.getFirstContentMs() > 0);
+
+            progress.onAttempt(2);
+            assertEquals(0, progress.getFirstContentMs());
+        }
+    }
+
+    @Test
+    void isStalled_onlyOnceTheResponseStartedArriving() {
+        try (LlmProgress progress = LlmProgress.track()) {
+            long later = System.currentTimeMillis() + 60_000;
+            assertFalse(progress.isStalled(later, 15_000), "waiting for the first byte is not a stall");
+
+            progress.onBytes(1);
+            assertFalse(progress.isStalled(System.currentTimeMillis(), 15_000));
+            assertTrue(progress.isStalled(later, 15_000));
+        }
+    }
+}
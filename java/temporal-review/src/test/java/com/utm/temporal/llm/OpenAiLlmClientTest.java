@@ -1,5 +1,6 @@
 package com.utm.temporal.llm;
 
+import okio.Buffer;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -115,4 +116,82 @@ class OpenAiLlmClientTest {
     void testConstructor_zeroMaxDiffChars_throwsIllegalArgumentException() {
         assertThrows(IllegalArgumentException.class, () -> new OpenAiLlmClient(0));
     }
+
+    // -------------------------------------------------------------------------
+    // complete / parseResponse – per-call usage
+    // -------------------------------------------------------------------------
+
+    @Test
+    void parseResponse_returnsContentAndUsageOfThatResponse() throws Exception {
+        OpenAiLlmClient client = new OpenAiLlmClient(100);
+        LlmResponse first = client.parseResponse("{\"choices\":[{\"message\":{\"content\":\"one\"}}]," +
+                "\"usage\":{\"prompt_tokens\":120,\"completion_tokens\":30}}");
+        LlmResponse second = client.parseResponse("{\"choices\":[{\"message\":{\"content\":\"two\"}}]}");
+
+        assertEquals("one", first.content);
+        assertEquals(120, first.promptTokens);
+        assertEquals(30, first.completionTokens);
+        // A later response without usage must not change or inherit the first one's
+        assertEquals("two", second.content);
+        assertEquals(0, second.promptTokens);
+        assertEquals(120, first.promptTokens);
+    }
+
+    @Test
+    void parseResponse_missingContent_throws() {
+        OpenAiLlmClient client = new OpenAiLlmClient(100);
+        assertThrows(java.io.IOException.class, () -> client.parseResponse("{\"choices\":[]}"));
+    }
+
+    @Test
+    void complete_inDummyMode_returnsCannedContentWithoutUsage() {
+        OpenAiLlmClient client = new OpenAiLlmClient(100);
+        LlmResponse response = client.complete(Arrays.asList(
+                new Message("system", "You are a security reviewer."),
+                new Message("user", "diff")), new LlmOptions(null, 0.2, "json_object"));
+        assertTrue(response.content.contains("\"Security\""));
+        assertEquals(0, response.promptTokens);
+        assertEquals(0, response.retries);
+        assertEquals(response.content, client.chat(Arrays.asList(
+                new Message("system", "You are a security reviewer.")), new LlmOptions()));
+    }
+
+    // -------------------------------------------------------------------------
+    // readStream – server-sent events
+    // -------------------------------------------------------------------------
+
+    @Test
+    void readStream_joinsDeltasAndReportsThemAsTheyArrive() throws Exception {
+        OpenAiLlmClient client = new OpenAiLlmClient(100);
+        Buffer stream = new Buffer().writeUtf8(
+                "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}\n\n" +
+                "data: {\"choices\":[{\"delta\":{\"content\":\"{\\\"recommendation\\\": \\\"BLOCK\\\",\"}}]}\n\n" +
+                ": keep-alive\n\n" +
+                "data: {\"choices\":[{\"delta\":{\"content\":\" \\\"findings\\\": [\\\"SQL injection\\\"]}\"}}]}\n\n" +
+                "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":900,\"completion_tokens\":40}}\n\n" +
+                "data: [DONE]\n\n");
+
+        LlmResponse response;
+        LlmProgress progress;
+        try (LlmProgress tracker = LlmProgress.track()) {
+            progress = tracker;
+            response = client.readStream(stream, tracker);
+        }
+
+        assertEquals("{\"recommendation\": \"BLOCK\", \"findings\": [\"SQL injection\"]}", response.content);
+        assertEquals(900, response.promptTokens);
+        assertEquals(40, response.completionTokens);
+        assertTrue(progress.getFirstContentMs() > 0);
+        assertTrue(progress.getBytesReceived() > 0);
+        assertEquals("BLOCK", progress.getContent().getString("recommendation"));
+        assertEquals(List.of("SQL injection"), progress.getContent().getStrings("findings"));
+    }
+
+    @Test
+    void readStream_endingBeforeDone_throws() {
+        OpenAiLlmClient client = new OpenAiLlmClient(100);
+        Buffer stream = new Buffer().writeUtf8(
+                "data: {\"choices\":[{\"delta\":{\"content\":\"{\\\"risk\"}}]}\n\n");
+        assertThrows(java.io.IOException.class, () -> client.readStream(stream, null));
+    }
 }
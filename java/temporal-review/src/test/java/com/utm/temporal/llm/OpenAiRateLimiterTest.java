@@ -0,0 +1,115 @@
+package com.utm.temporal.llm;
+
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiRateLimiterTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    void unknownLimits_letEveryCallThrough() {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.reserve(10_000, NOW).waitMs);
+        }
+    }
+
+    @Test
+    void exhaustedRequestBudget_spacesCallsAtTheSustainableRate() {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        // 60 requests a minute, 2 left: one call per second once they are used
+        limiter.update(Headers.of(
+                "x-ratelimit-limit-requests", "60",
+                "x-ratelimit-remaining-requests", "2"), NOW);
+
+        assertEquals(0, limiter.reserve(100, NOW).waitMs);
+        assertEquals(0, limiter.reserve(100, NOW).waitMs);
+        assertEquals(1000, limiter.reserve(100, NOW).waitMs);
+        assertEquals(2000, limiter.reserve(100, NOW).waitMs);
+        // Time refills the bucket
+        assertEquals(0, limiter.reserve(100, NOW + 60_000).waitMs);
+    }
+
+    @Test
+    void tokenBudget_holdsBackLargeCalls_andSettleReturnsUnusedTokens() {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        limiter.update(Headers.of(
+                "x-ratelimit-limit-tokens", "60000",
+                "x-ratelimit-remaining-tokens", "10000"), NOW);
+
+        assertEquals(0, limiter.reserve(10_000, NOW).waitMs);
+        // 6000 tokens short at 1000 tokens a second
+        assertEquals(6000, limiter.reserve(6_000, NOW).waitMs);
+
+        OpenAiRateLimiter settled = new OpenAiRateLimiter();
+        settled.update(Headers.of(
+                "x-ratelimit-limit-tokens", "60000",
+                "x-ratelimit-remaining-tokens", "10000"), NOW);
+        OpenAiRateLimiter.Reservation reservation = settled.reserve(10_000, NOW);
+        settled.settle(reservation, 4_000, NOW);
+        assertEquals(0, settled.reserve(6_000, NOW).waitMs);
+    }
+
+    @Test
+    void failedCall_settlingWithNoUsage_returnsItsWholeReservation() {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        limiter.update(Headers.of(
+                "x-ratelimit-limit-tokens", "60000",
+                "x-ratelimit-remaining-tokens", "10000"), NOW);
+
+        OpenAiRateLimiter.Reservation reservation = limiter.reserve(10_000, NOW);
+        limiter.settle(reservation, 0, NOW);
+        assertEquals(0, limiter.reserve(10_000, NOW).waitMs);
+    }
+
+    @Test
+    void callReservedBeforeTheLimitWasKnown_getsNothingBack() {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        OpenAiRateLimiter.Reservation early = limiter.reserve(10_000, NOW);
+        limiter.update(Headers.of(
+                "x-ratelimit-limit-tokens", "60000",
+                "x-ratelimit-remaining-tokens", "10000"), NOW);
+
+        // The early call took no tokens, so failing must not credit its estimate to the bucket
+        limiter.settle(early, 0, NOW);
+        assertEquals(0, limiter.reserve(10_000, NOW).waitMs);
+        assertEquals(6000, limiter.reserve(6_000, NOW).waitMs);
+    }
+
+    @Test
+    void exhaustedLimit_pausesUntilItsReset() {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        limiter.update(Headers.of(
+                "x-ratelimit-limit-requests", "5000",
+                "x-ratelimit-remaining-requests", "0",
+                "x-ratelimit-reset-requests", "1.5s"), NOW);
+
+        assertTrue(limiter.reserve(100, NOW).waitMs >= 1500);
+    }
+
+    @Test
+    void retryAfter_pausesEveryCall() {
+        Headers headers = Headers.of("Retry-After", "20");
+        assertEquals(20_000, OpenAiRateLimiter.retryAfterMs(headers));
+        assertEquals(250, OpenAiRateLimiter.retryAfterMs(Headers.of("retry-after-ms", "250", "Retry-After", "1")));
+        assertEquals(0, OpenAiRateLimiter.retryAfterMs(Headers.of()));
+
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+        limiter.pause(OpenAiRateLimiter.retryAfterMs(headers), NOW);
+        assertEquals(20_000, limiter.reserve(100, NOW).waitMs);
+        assertEquals(5_000, limiter.reserve(100, NOW + 15_000).waitMs);
+        assertTrue(limiter.metricsSummary().contains("2 calls delayed"), limiter.metricsSummary());
+    }
+
+    @Test
+    void parseDurationMs_readsOpenAiResetFormats() {
+        assertEquals(20, OpenAiRateLimiter.parseDurationMs("20ms"));
+        assertEquals(1000, OpenAiRateLimiter.parseDurationMs("1s"));
+        assertEquals(360_000, OpenAiRateLimiter.parseDurationMs("6m0s"));
+        assertEquals(3_723_500, OpenAiRateLimiter.parseDurationMs("1h2m3.5s"));
+        assertEquals(0, OpenAiRateLimiter.parseDurationMs(null));
+    }
+}
@@ -0,0 +1,71 @@
+package com.utm.temporal.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartialJsonObjectTest {
+
+    private static final String RESPONSE = "{\n" +
+            "  \"agentName\": \"Security\",\n" +
+            "  \"riskLevel\": \"HIGH\",\n" +
+            "  \"recommendation\": \"BLOCK\",\n" +
+            "  \"details\": {\"cwe\": \"CWE-89\", \"lines\": [12, 14]},\n" +
+            "  \"findings\": [\n" +
+            "    \"SQL built by string concatenation\",\n" +
+            "    \"Secret logged at INFO\"\n" +
+            "  ]\n" +
+            "}";
+
+    @Test
+    void fields_appearAsSoonAsTheirValueIsComplete() {
+        PartialJsonObject object = new PartialJsonObject();
+        int recommendationEnd = RESPONSE.indexOf("BLOCK\"") + "BLOCK\"".length();
+
+        object.feed(RESPONSE.substring(0, recommendationEnd - 1));
+        assertEquals("HIGH", object.getString("riskLevel"));
+        assertNull(object.getString("recommendation"));
+
+        object.feed(RESPONSE.substring(recommendationEnd - 1, recommendationEnd));
+        assertEquals("BLOCK", object.getString("recommendation"));
+        assertTrue(object.getStrings("findings").isEmpty());
+    }
+
+    @Test
+    void arrayElements_areAddedOneAtATime() {
+        PartialJsonObject object = new PartialJsonObject();
+        int secondFinding = RESPONSE.indexOf("\"Secret");
+
+        object.feed(RESPONSE.substring(0, secondFinding + 5));
+        assertEquals(List.of("SQL built by string concatenation"), object.getStrings("findings"));
+
+        object.feed(RESPONSE.substring(secondFinding + 5));
+        assertEquals(List.of("SQL built by string concatenation", "Secret logged at INFO"),
+                object.getStrings("findings"));
+        // Nested objects are skipped rather than mixed into the top level
+        assertFalse(object.snapshot().containsKey("cwe"));
+        assertEquals("Security", object.getString("agentName"));
+    }
+
+    @Test
+    void characterByCharacter_givesTheSameFields() {
+        PartialJsonObject object = new PartialJsonObject();
+        for (char c : RESPONSE.toCharArray()) {
+            object.feed(String.valueOf(c));
+        }
+        assertEquals("BLOCK", object.getString("recommendation"));
+        assertEquals(2, object.getStrings("findings").size());
+    }
+
+    @Test
+    void invalidJson_keepsTheFieldsReadBeforeIt() {
+        PartialJsonObject object = new PartialJsonObject();
+        object.feed("{\"riskLevel\": \"LOW\", \"recommendation\": APPROVE");
+        object.feed(", \"findings\": [\"x\"]}");
+        assertEquals("LOW", object.getString("riskLevel"));
+        assertNull(object.getString("recommendation"));
+        assertTrue(object.getStrings("findings").isEmpty());
+    }
+}
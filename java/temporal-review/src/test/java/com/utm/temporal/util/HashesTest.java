@@ -0,0 +1,17 @@
+package com.utm.temporal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashesTest {
+
+    @Test
+    void sha256Hex_matchesKnownDigests() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", Hashes.sha256Hex(""));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Hashes.sha256Hex("abc"));
+        assertEquals(Hashes.sha256Hex("abc"), Hashes.sha256Hex("abc".getBytes(StandardCharsets.UTF_8)));
+    }
+}
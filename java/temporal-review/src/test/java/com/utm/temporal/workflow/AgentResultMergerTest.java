@@ -0,0 +1,131 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.AgentResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentResultMergerTest {
+
+    @Test
+    void merge_keepsMostSevereRecommendationAndRisk() {
+        AgentResult merged = AgentResultMerger.merge(Arrays.asList(
+                result("Security", "LOW", "APPROVE", "a"),
+                result("Security", "HIGH", "REQUEST_CHANGES", "b"),
+                result("Security", "MEDIUM", "APPROVE", "c")
+        ));
+        assertEquals("Security", merged.agentName);
+        assertEquals("REQUEST_CHANGES", merged.recommendation);
+        assertEquals("HIGH", merged.riskLevel);
+    }
+
+    @Test
+    void merge_blockWinsOverRequestChanges() {
+        AgentResult merged = AgentResultMerger.merge(Arrays.asList(
+                result("Test Quality", "MEDIUM", "REQUEST_CHANGES"),
+                result("Test Quality", "HIGH", "BLOCK")
+        ));
+        assertEquals("BLOCK", merged.recommendation);
+    }
+
+    @Test
+    void merge_deduplicatesFindingsIgnoringCaseAndWhitespace() {
+        AgentResult merged = AgentResultMerger.merge(Arrays.asList(
+                result("Code Quality", "LOW", "APPROVE", "Missing null check", "Long method"),
+                result("Code Quality", "LOW", "APPROVE", "  missing   NULL check ", "Magic number")
+        ));
+        assertEquals(Arrays.asList("Missing null check", "Long method", "Magic number"), merged.findings);
+    }
+
+    @Test
+    void merge_keepsTimedOutStatus() {
+        AgentResult timedOut = new AgentResult("Security", null, null, Arrays.asList());
+        timedOut.status = "TIMED_OUT";
+
+        AgentResult merged = AgentResultMerger.merge(Arrays.asList(
+                timedOut,
+                result("Security", "MEDIUM", "REQUEST_CHANGES", "carried forward")
+        ));
+        assertEquals("TIMED_OUT", merged.status);
+        assertEquals("REQUEST_CHANGES", merged.recommendation);
+        assertEquals(Arrays.asList("carried forward"), merged.findings);
+    }
+
+    @Test
+    void merge_sumsTokenUsage() {
+        AgentResult first = result("Complexity", "LOW", "APPROVE");
+        first.promptTokens = 100;
+        first.completionTokens = 10;
+        AgentResult second = result("Complexity", "LOW", "APPROVE");
+        second.promptTokens = 200;
+        second.completionTokens = 20;
+
+        AgentResult merged = AgentResultMerger.merge(Arrays.asList(first, second));
+        assertEquals(300, merged.promptTokens);
+        assertEquals(30, merged.completionTokens);
+    }
+
+    @Test
+    void mergeByAgent_preservesFirstSeenAgentOrder() {
+        List<AgentResult> shard1 = Arrays.asList(
+                result("Code Quality", "LOW", "APPROVE", "x"),
+                result("Security", "LOW", "APPROVE", "y"));
+        List<AgentResult> shard2 = Arrays.asList(
+                result("Code Quality", "MEDIUM", "APPROVE", "z"),
+                result("Security", "LOW", "APPROVE", "y"));
+
+        List<AgentResult> merged = AgentResultMerger.mergeByAgent(Arrays.asList(shard1, shard2));
+        assertEquals(2, merged.size());
+        assertEquals("Code Quality", merged.get(0).agentName);
+        assertEquals(Arrays.asList("x", "z"), merged.get(0).findings);
+        assertEquals("Security", merged.get(1).agentName);
+        assertEquals(Collections.singletonList("y"), merged.get(1).findings);
+    }
+
+    @Test
+    void carryForward_dropsFindingsAboutStaleFiles() {
+        List<AgentResult> carried = AgentResultMerger.carryForward(
+                Collections.singletonList(result("Security", "HIGH", "REQUEST_CHANGES",
+                        "SQL built by concatenation in src/db/UserDao.java", "Token logged in Auth.java:42")),
+                Arrays.asList("src/db/UserDao.java", "README.md"),
+                Arrays.asList("src/db/UserDao.java", "src/auth/Auth.java"));
+
+        assertEquals(1, carried.size());
+        assertEquals(Collections.singletonList("Token logged in Auth.java:42"), carried.get(0).findings);
+        assertEquals("REQUEST_CHANGES", carried.get(0).recommendation);
+        assertEquals(0, carried.get(0).promptTokens);
+    }
+
+    @Test
+    void carryForward_allFindingsStale_resetsVerdict() {
+        List<AgentResult> carried = AgentResultMerger.carryForward(
+                Collections.singletonList(result("Code Quality", "MEDIUM", "REQUEST_CHANGES", "Long method in Foo.java")),
+                Collections.singletonList("src/main/Foo.java"),
+                Collections.singletonList("src/main/Foo.java"));
+
+        assertTrue(carried.get(0).findings.isEmpty());
+        assertEquals("APPROVE", carried.get(0).recommendation);
+        assertEquals("LOW", carried.get(0).riskLevel);
+    }
+
+    @Test
+    void carryForward_dropsFindingsThatNameNoReviewedFile() {
+        List<AgentResult> carried = AgentResultMerger.carryForward(
+                Collections.singletonList(result("Test Quality", "HIGH", "BLOCK",
+                        "Tests are failing - 2 out of 10 tests failed")),
+                Collections.emptyList(),
+                Collections.singletonList("src/main/Foo.java"));
+
+        assertTrue(carried.get(0).findings.isEmpty());
+        assertEquals("APPROVE", carried.get(0).recommendation);
+        assertEquals("LOW", carried.get(0).riskLevel);
+    }
+
+    private static AgentResult result(String agent, String risk, String recommendation, String... findings) {
+        return new AgentResult(agent, risk, recommendation, Arrays.asList(findings));
+    }
+}
@@ -0,0 +1,45 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.AgentLatencySample;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentTimeoutModelTest {
+
+    @Test
+    void fit_usesTwiceTheP95PerAgentAndDiffSize() {
+        List<AgentLatencySample> samples = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            // Small diffs: 1s..20s, p95 = 19s
+            samples.add(new AgentLatencySample("Security", 500, i * 1000L));
+            // Large diffs: 10s..200s, p95 = 190s
+            samples.add(new AgentLatencySample("Security", 50_000, i * 10_000L));
+        }
+
+        AgentTimeoutModel model = AgentTimeoutModel.fit(samples, 30, 300);
+
+        assertEquals(38, model.timeoutsFor(1_000).timeoutSeconds.get("Security"));
+        // 2 x 190s is clamped to the maximum
+        assertEquals(300, model.timeoutsFor(40_000).timeoutSeconds.get("Security"));
+    }
+
+    @Test
+    void fit_leavesSparseBucketsAndAgentsUnset() {
+        List<AgentLatencySample> samples = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            samples.add(new AgentLatencySample("Complexity", 500, 100));
+        }
+        samples.add(new AgentLatencySample("Security", 500, 5000));
+
+        AgentTimeoutModel model = AgentTimeoutModel.fit(samples, 30, 300);
+
+        // Fast agent is raised to the minimum; too few Security samples to fit
+        assertEquals(30, model.timeoutsFor(500).timeoutSeconds.get("Complexity"));
+        assertNull(model.timeoutsFor(500).timeoutSeconds.get("Security"));
+        assertTrue(model.timeoutsFor(200_000).timeoutSeconds.isEmpty());
+    }
+}
@@ -0,0 +1,325 @@
+package com.utm.temporal.workflow;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.utm.temporal.activity.*;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.model.*;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.testing.WorkflowReplayer;
+import io.temporal.worker.Worker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Determinism and replay-cost regression suite for the review workflows.
+ *
+ * <p>Each scenario is a review recorded against fake agents. The histories
+ * committed under {@code src/test/resources/histories} are replayed against
+ * the current workflow code, so a change that breaks determinism for
+ * histories already in flight fails the build. Each scenario is then run
+ * again on the in-memory test server, and the build also fails when the
+ * fresh history has grown more than {@link #ALLOWED_GROWTH} beyond the
+ * recorded one (events or payload bytes), or when replaying it takes longer
+ * than {@code replay.budgetMs} (default {@value #DEFAULT_REPLAY_BUDGET_MS} ms).
+ *
+ * <p>After an intended change of history shape, re-record with
+ * {@code mvn test -Dtest=ReviewReplayTest -Dreplay.record=true} and commit
+ * the updated histories. Copy the replaced ones into {@code histories/legacy}
+ * first: those are only replayed, so the version markers that keep older
+ * histories replaying stay covered.
+ */
+class ReviewReplayTest {
+
+    private static final String TASK_QUEUE = "replay-test";
+    private static final Path HISTORIES = Paths.get("src/test/resources/histories");
+    private static final Path LEGACY_HISTORIES = HISTORIES.resolve("legacy");
+    private static final double ALLOWED_GROWTH = 1.10;
+    private static final long DEFAULT_REPLAY_BUDGET_MS = 2000;
+    private static final int WARMUP_REPLAYS = 3;
+    private static final int MEASURED_REPLAYS = 10;
+
+    private static TestWorkflowEnvironment testEnv;
+
+    @BeforeAll
+    static void setUp() {
+        AppConfig.validate();
+        testEnv = TestWorkflowEnvironment.newInstance();
+        for (String queue : Arrays.asList(TASK_QUEUE,
+                AppConfig.activityTaskQueue(TASK_QUEUE, AppConfig.POOL_AGENTS),
+                AppConfig.activityTaskQueue(TASK_QUEUE, AppConfig.POOL_STORAGE))) {
+            Worker worker = testEnv.newWorker(queue);
+            worker.registerWorkflowImplementationTypes(PRReviewWorkflowImpl.class, ShardReviewWorkflowImpl.class);
+            worker.registerActivitiesImplementations(
+                    new FakeCodeQuality(), new FakeTestQuality(), new FakeSecurity(), new FakeComplexity(),
+                    new FakePriority(), new FakeStorage(), new FakeInsights(), new FakeHistory());
+        }
+        testEnv.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    void smallDiff_parallelAgents() throws Exception {
+        checkScenario("small-parallel", request(1, diff(3, 400), false));
+    }
+
+    @Test
+    void failFast_blockCancelsRemainingAgents() throws Exception {
+        ReviewRequest request = request(2, diff(2, 300) + "+String password = \"hunter2\";\n", true);
+        checkScenario("fail-fast-block", request);
+    }
+
+    @Test
+    void largeDiff_shardedIntoChildWorkflows() throws Exception {
+        // ~90k characters: just over SHARD_MAX_TOKENS, reviewed as two shards
+        checkScenario("large-sharded", request(3, diff(30, 3000), false),
+                "-shard-1", "-shard-2");
+    }
+
+    @Test
+    void legacyHistories_stillReplay() throws Exception {
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(LEGACY_HISTORIES)) {
+            files = listed.filter(p -> p.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+        }
+        assertFalse(files.isEmpty(), "no histories in " + LEGACY_HISTORIES);
+        for (Path file : files) {
+            String id = file.getFileName().toString().replaceFirst("\\.json$", "");
+            replay(WorkflowExecutionHistory.fromJson(Files.readString(file), id));
+        }
+    }
+
+    /**
+     * Replays the recorded histories of {@code name} (the review plus the
+     * children with the given workflow ID suffixes), runs the scenario again
+     * and checks the fresh histories against the recorded ones.
+     */
+    private void checkScenario(String name, ReviewRequest request, String... childSuffixes) throws Exception {
+        String workflowId = "replay-" + name;
+        List<String> ids = new ArrayList<>();
+        ids.add(workflowId);
+        for (String suffix : childSuffixes) {
+            ids.add(workflowId + suffix);
+        }
+
+        boolean record = Boolean.getBoolean("replay.record");
+        if (!record) {
+            for (String id : ids) {
+                replay(WorkflowExecutionHistory.fromJson(Files.readString(historyFile(id)), id));
+            }
+        }
+
+        PRReviewWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(PRReviewWorkflow.class,
+                WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).setWorkflowId(workflowId).build());
+        WorkflowClient.execute(workflow::review, request).get();
+
+        for (String id : ids) {
+            WorkflowExecutionHistory fresh = testEnv.getWorkflowClient().fetchHistory(id);
+            if (record) {
+                Files.createDirectories(HISTORIES);
+                Files.writeString(historyFile(id), fresh.toJson(true), StandardCharsets.UTF_8);
+                continue;
+            }
+            WorkflowExecutionHistory recorded = WorkflowExecutionHistory.fromJson(Files.readString(historyFile(id)), id);
+            double replayMs = measureReplay(fresh);
+            int events = commandEvents(fresh);
+            long payloadBytes = payloadBytes(fresh.getHistory());
+            System.out.printf("replay %-32s %5d events %9d history bytes %9d payload bytes %8.2f ms%n",
+                    id, fresh.getHistory().getEventsCount(), fresh.getHistory().getSerializedSize(),
+                    payloadBytes, replayMs);
+
+            assertTrue(events <= commandEvents(recorded) * ALLOWED_GROWTH,
+                    id + " history grew from " + commandEvents(recorded) + " to " + events
+                            + " non-workflow-task events; re-record with -Dreplay.record=true if intended");
+            assertTrue(payloadBytes <= payloadBytes(recorded.getHistory()) * ALLOWED_GROWTH,
+                    id + " payloads grew from " + payloadBytes(recorded.getHistory()) + " to " + payloadBytes
+                            + " bytes; re-record with -Dreplay.record=true if intended");
+            long budgetMs = Long.getLong("replay.budgetMs", DEFAULT_REPLAY_BUDGET_MS);
+            assertTrue(replayMs <= budgetMs, id + " replay took " + String.format("%.2f", replayMs) + " ms, budget " + budgetMs + " ms");
+        }
+    }
+
+    private static void replay(WorkflowExecutionHistory history) throws Exception {
+        WorkflowReplayer.replayWorkflowExecution(history, PRReviewWorkflowImpl.class, ShardReviewWorkflowImpl.class);
+    }
+
+    /** Mean replay time, in milliseconds, after a few warm-up replays. */
+    private static double measureReplay(WorkflowExecutionHistory history) throws Exception {
+        for (int i = 0; i < WARMUP_REPLAYS; i++) {
+            replay(history);
+        }
+        long startNs = System.nanoTime();
+        for (int i = 0; i < MEASURED_REPLAYS; i++) {
+            replay(history);
+        }
+        return (System.nanoTime() - startNs) / (MEASURED_REPLAYS * 1_000_000.0);
+    }
+
+    /**
+     * Events other than workflow task events. How many workflow tasks a run
+     * takes depends on how activity completions happen to be batched, so
+     * only the remaining events are stable from run to run.
+     */
+    private static int commandEvents(WorkflowExecutionHistory history) {
+        int count = 0;
+        for (HistoryEvent event : history.getEvents()) {
+            if (!event.getEventType().name().startsWith("EVENT_TYPE_WORKFLOW_TASK_")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Total size of the payload data in {@code message} and everything it contains. */
+    private static long payloadBytes(Message message) {
+        if (message instanceof Payload) {
+            return ((Payload) message).getData().size();
+        }
+        long bytes = 0;
+        for (Map.Entry<FieldDescriptor, Object> field : message.getAllFields().entrySet()) {
+            if (field.getKey().getJavaType() != FieldDescriptor.JavaType.MESSAGE) continue;
+            if (field.getKey().isRepeated()) {
+                for (Object value : (List<?>) field.getValue()) {
+                    bytes += payloadBytes((Message) value);
+                }
+            } else {
+                bytes += payloadBytes((Message) field.getValue());
+            }
+        }
+        return bytes;
+    }
+
+    private static Path historyFile(String workflowId) {
+        return HISTORIES.resolve(workflowId + ".json");
+    }
+
+    private static ReviewRequest request(int prNumber, String diff, boolean failFast) {
+        ReviewRequest request = new ReviewRequest(prNumber, "Replay scenario " + prNumber,
+                "Recorded for the replay suite", "replay-bot", diff, new TestSummary(true, 10, 0, 1200));
+        request.repository = "acme/replay";
+        request.failFast = failFast;
+        return request;
+    }
+
+    /** A diff of {@code files} files, each about {@code charsPerFile} characters. */
+    private static String diff(int files, int charsPerFile) {
+        StringBuilder diff = new StringBuilder();
+        for (int f = 0; f < files; f++) {
+            String path = "src/main/java/com/acme/Service" + f + ".java";
+            diff.append("diff --git a/").append(path).append(" b/").append(path).append('\n')
+                .append("--- a/").append(path).append('\n')
+                .append("+++ b/").append(path).append('\n')
+                .append("@@ -1,1 +1,40 @@\n");
+            int start = diff.length();
+            for (int line = 0; diff.length() - start < charsPerFile; line++) {
+                diff.append("+    int value").append(line).append(" = compute(").append(line).append(");\n");
+            }
+        }
+        return diff.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // Fake activities: deterministic results derived from the request
+    // -------------------------------------------------------------------------
+
+    private static AgentResult result(String agent, ReviewRequest request, boolean block) {
+        if (Boolean.TRUE.equals(request.failFast) && !block) {
+            // Still running when Security blocks, so fail-fast always cancels
+            // it. The in-memory test server can stall a workflow whose cancel
+            // races the activity's completion.
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String diff = request.diff != null ? request.diff : "";
+        AgentResult result = new AgentResult(agent, block ? "HIGH" : "LOW", block ? "BLOCK" : "APPROVE",
+                new ArrayList<>(Collections.singletonList(agent + " reviewed "
+                        + (diff.split("diff --git", -1).length - 1) + " files")));
+        result.promptTokens = diff.length() / 4;
+        result.completionTokens = 50;
+        return result;
+    }
+
+    static class FakeCodeQuality implements CodeQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Code Quality", pullRequest, false);
+        }
+    }
+
+    static class FakeTestQuality implements TestQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Test Quality", pullRequest, false);
+        }
+    }
+
+    static class FakeSecurity implements SecurityQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Security", pullRequest,
+                    pullRequest.diff != null && pullRequest.diff.contains("password"));
+        }
+    }
+
+    static class FakeComplexity implements ComplexityQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Complexity", pullRequest, false);
+        }
+    }
+
+    static class FakePriority implements PriorityActivity {
+        @Override
+        public AgentResult prioritizeIssues(ReviewRequest request, List<AgentResult> agentResults) {
+            return new AgentResult("Priority", "LOW", "APPROVE",
+                    new ArrayList<>(Collections.singletonList(agentResults.size() + " agents prioritized")));
+        }
+    }
+
+    static class FakeStorage implements OutcomeRecordingActivity {
+        @Override
+        public void recordReviewOutcome(ReviewOutcome outcome) {
+        }
+    }
+
+    static class FakeInsights implements LoadInsightsActivity {
+        @Override
+        public LearningInsights loadInsights(String repository) {
+            return null;
+        }
+    }
+
+    static class FakeHistory implements ReviewHistoryActivity {
+        @Override
+        public PreviousReview loadLastReview(String repository, int prNumber) {
+            return null;
+        }
+    }
+}
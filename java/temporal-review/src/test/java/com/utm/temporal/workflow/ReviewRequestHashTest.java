@@ -0,0 +1,37 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.model.ReviewRequest;
+import com.utm.temporal.model.TestSummary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewRequestHashTest {
+
+    @Test
+    void identicalRequests_hashTheSame() {
+        ReviewRequest request = request();
+        assertEquals(ReviewRequestHash.of(request), ReviewRequestHash.of(new ReviewRequest(request)));
+        assertEquals(64, ReviewRequestHash.of(request).length());
+    }
+
+    @Test
+    void anyFieldChange_changesTheHash() {
+        ReviewRequest request = request();
+        ReviewRequest changedDiff = new ReviewRequest(request);
+        changedDiff.diff = request.diff + "+one more line\n";
+        ReviewRequest changedSummary = new ReviewRequest(request);
+        changedSummary.testSummary = new TestSummary(false, 12, 2, 3400);
+
+        assertNotEquals(ReviewRequestHash.of(request), ReviewRequestHash.of(changedDiff));
+        assertNotEquals(ReviewRequestHash.of(request), ReviewRequestHash.of(changedSummary));
+    }
+
+    private static ReviewRequest request() {
+        ReviewRequest request = new ReviewRequest();
+        request.prTitle = "Add retry to client";
+        request.diff = "diff --git a/A.java b/A.java\n@@ -1 +1 @@\n-a\n+b\n";
+        request.testSummary = new TestSummary(true, 12, 0, 3400);
+        return request;
+    }
+}
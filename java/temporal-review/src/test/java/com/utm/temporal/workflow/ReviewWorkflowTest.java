@@ -0,0 +1,380 @@
+package com.utm.temporal.workflow;
+
+import com.utm.temporal.activity.*;
+import com.utm.temporal.config.AppConfig;
+import com.utm.temporal.diff.DiffFingerprint;
+import com.utm.temporal.model.*;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.common.interceptors.WorkerInterceptorBase;
+import io.temporal.common.interceptors.WorkflowInboundCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowInboundCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowOutboundCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowOutboundCallsInterceptorBase;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.workflow.Workflow;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour of {@link PRReviewWorkflowImpl} on the in-memory test server,
+ * against fake agents. The fakes react to marker lines in the diff they are
+ * given: an agent is slow when the diff has a {@code "slow: <agent>"} line,
+ * Security blocks when it mentions a password, and Test Quality blocks when
+ * the test summary has failures. Markers in different files let a test make
+ * one shard of a large diff behave differently from another.
+ */
+class ReviewWorkflowTest {
+
+    private static final String TASK_QUEUE = "review-test";
+    private static final long SLOW_AGENT_MS = 5_000;
+    private static final long REVIEW_TIMEOUT_SECONDS = 60;
+
+    // Memo passed to continue-as-new, by workflow ID
+    private static final Map<String, Map<String, Object>> CONTINUE_AS_NEW_MEMOS = new ConcurrentHashMap<>();
+
+    // Last recorded review served by the fake history, by repository
+    private static final Map<String, PreviousReview> BASELINES = new ConcurrentHashMap<>();
+
+    private static TestWorkflowEnvironment testEnv;
+
+    @BeforeAll
+    static void setUp() {
+        AppConfig.validate();
+        testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(WorkerFactoryOptions.newBuilder()
+                        .setWorkerInterceptors(new ContinueAsNewRecorder())
+                        .build())
+                .build());
+        for (String queue : Arrays.asList(TASK_QUEUE,
+                AppConfig.activityTaskQueue(TASK_QUEUE, AppConfig.POOL_AGENTS),
+                AppConfig.activityTaskQueue(TASK_QUEUE, AppConfig.POOL_STORAGE))) {
+            Worker worker = testEnv.newWorker(queue);
+            worker.registerWorkflowImplementationTypes(PRReviewWorkflowImpl.class, ShardReviewWorkflowImpl.class);
+            worker.registerActivitiesImplementations(
+                    new FakeCodeQuality(), new FakeTestQuality(), new FakeSecurity(), new FakeComplexity(),
+                    new FakePriority(), new FakeStorage(), new FakeInsights(), new FakeHistory());
+        }
+        testEnv.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        testEnv.close();
+    }
+
+    // -------------------------------------------------------------------------
+    // Latency budget
+    // -------------------------------------------------------------------------
+
+    @Test
+    void latencyBudget_slowAgent_isReportedTimedOut() {
+        ReviewRequest request = request(withLine(diff(2, 300), 0, "// slow: Complexity"));
+        request.latencyBudgetSeconds = 2;
+
+        ReviewResponse response = review("budget-agent", request);
+
+        // The budget is spent waiting for Complexity, so Priority is skipped too
+        assertEquals(Arrays.asList("Complexity", "Priority"), response.metadata.timedOutAgents);
+        assertNull(response.metadata.timedOutShards);
+        AgentResult complexity = agent(response, "Complexity");
+        assertEquals(PRReviewWorkflowImpl.TIMED_OUT, complexity.status);
+        assertNull(complexity.recommendation);
+        for (String finished : Arrays.asList("Code Quality", "Test Quality", "Security")) {
+            assertNull(agent(response, finished).status, finished);
+            assertEquals("APPROVE", agent(response, finished).recommendation, finished);
+        }
+        assertEquals("APPROVE", response.overallRecommendation);
+    }
+
+    @Test
+    void latencyBudget_slowShards_areCountedAndTheirAgentsTimedOut() {
+        // ~90k characters: over SHARD_MAX_TOKENS, reviewed as two shards, both slow
+        String diff = withLine(withLine(diff(30, 3000), 0, "// slow: Complexity"), 29, "// slow: Complexity");
+        ReviewRequest request = request(diff);
+        request.latencyBudgetSeconds = 2;
+
+        ReviewResponse response = review("budget-shards", request);
+
+        assertEquals(Integer.valueOf(2), response.metadata.timedOutShards);
+        assertEquals(Arrays.asList("Code Quality", "Test Quality", "Security", "Complexity", "Priority"),
+                response.metadata.timedOutAgents);
+    }
+
+    // -------------------------------------------------------------------------
+    // Fail-fast
+    // -------------------------------------------------------------------------
+
+    @Test
+    void failFast_shardedReview_blockCancelsTheOtherShards() {
+        // The first shard blocks at once; the second is still running
+        String diff = withLine(withLine(diff(30, 3000), 0, "String password = \"hunter2\";"),
+                29, "// slow: Complexity");
+        ReviewRequest request = request(diff);
+        request.failFast = true;
+
+        ReviewResponse response = review("fail-fast-shards", request);
+
+        assertTrue(response.earlyTerminated);
+        assertEquals("BLOCK", response.overallRecommendation);
+        assertEquals(Integer.valueOf(1), response.metadata.cancelledShards);
+        assertNull(response.metadata.timedOutShards);
+        assertNull(response.metadata.timedOutAgents);
+        assertEquals("BLOCK", agent(response, "Security").recommendation);
+        assertTrue(response.agents.stream().noneMatch(r -> "Priority".equals(r.agentName)));
+    }
+
+    @Test
+    void failFast_shardedReview_withoutBlock_reviewsEveryShard() {
+        ReviewRequest request = request(diff(30, 3000));
+        request.failFast = true;
+
+        ReviewResponse response = review("fail-fast-shards-approve", request);
+
+        assertFalse(response.earlyTerminated);
+        assertEquals("APPROVE", response.overallRecommendation);
+        assertNull(response.metadata.cancelledShards);
+        assertNull(agent(response, "Priority").status);
+    }
+
+    // -------------------------------------------------------------------------
+    // Supersede
+    // -------------------------------------------------------------------------
+
+    @Test
+    void supersede_sameHeadOtherContent_continuesAsNewWithTheNewRequest() {
+        ReviewRequest first = request(withLine(diff(2, 300), 0, "// slow: Complexity"));
+        first.headSha = "abc123";
+        PRReviewWorkflow workflow = stub("supersede");
+        WorkflowExecution firstRun = WorkflowClient.start(workflow::review, first);
+
+        // Same head, but the request differs: it must not be ignored
+        ReviewRequest second = new ReviewRequest(first);
+        second.diff = diff(2, 300);
+        second.prTitle = "Workflow test, rebased";
+        second.failFast = true;
+        workflow.supersede(second);
+
+        WorkflowStub latest = testEnv.getWorkflowClient().newUntypedWorkflowStub("supersede");
+        ReviewResponse response = latest.getResult(ReviewResponse.class);
+
+        assertEquals("Workflow test, rebased", response.prTitle);
+        assertNull(response.metadata.timedOutAgents);
+        assertEquals(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_CONTINUED_AS_NEW,
+                testEnv.getWorkflowClient().newUntypedWorkflowStub(firstRun, Optional.empty())
+                        .describe().getStatus());
+        // The test server does not carry a continue-as-new memo over to the
+        // new run, so check the memo the workflow asked for
+        assertEquals(ReviewRequestHash.of(second),
+                CONTINUE_AS_NEW_MEMOS.get("supersede").get(ReviewRequestHash.MEMO_KEY));
+    }
+
+    // -------------------------------------------------------------------------
+    // Incremental review
+    // -------------------------------------------------------------------------
+
+    @Test
+    void incremental_noHunksChanged_rerunsTestQualityOnTheCurrentSummary() {
+        String diff = diff(2, 300);
+        PreviousReview baseline = new PreviousReview();
+        baseline.reviewId = "previous";
+        baseline.headSha = "abc123";
+        baseline.fileHunkHashes = DiffFingerprint.hunkHashes(diff);
+        baseline.agentResults = Arrays.asList(
+                new AgentResult("Code Quality", "MEDIUM", "REQUEST_CHANGES",
+                        new ArrayList<>(Collections.singletonList("Magic number in Service1.java"))),
+                new AgentResult("Test Quality", "HIGH", "BLOCK",
+                        new ArrayList<>(Collections.singletonList("Tests are failing - 2 out of 10 tests failed"))),
+                new AgentResult("Security", "LOW", "APPROVE", new ArrayList<>()),
+                new AgentResult("Complexity", "LOW", "APPROVE", new ArrayList<>()));
+        ReviewRequest request = request(diff);
+        request.repository = "acme/incremental-test";
+        request.headSha = "def456";
+        request.incremental = true;
+        BASELINES.put(request.repository, baseline);
+
+        ReviewResponse response = review("incremental-tests-fixed", request);
+
+        // The tests pass now, so the failing-tests BLOCK is not carried forward
+        AgentResult testQuality = agent(response, "Test Quality");
+        assertEquals("APPROVE", testQuality.recommendation);
+        assertEquals(Collections.singletonList("Test Quality reviewed the diff"), testQuality.findings);
+        assertEquals(Collections.singletonList("Magic number in Service1.java"),
+                agent(response, "Code Quality").findings);
+        assertNotEquals("BLOCK", response.overallRecommendation);
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private static ReviewResponse review(String workflowId, ReviewRequest request) {
+        PRReviewWorkflow workflow = stub(workflowId);
+        try {
+            // Fail rather than hang if the test server wedges the workflow
+            return WorkflowClient.execute(workflow::review, request).get(REVIEW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError("Review " + workflowId + " did not complete", e);
+        }
+    }
+
+    private static PRReviewWorkflow stub(String workflowId) {
+        return testEnv.getWorkflowClient().newWorkflowStub(PRReviewWorkflow.class,
+                WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).setWorkflowId(workflowId).build());
+    }
+
+    private static AgentResult agent(ReviewResponse response, String agentName) {
+        return response.agents.stream()
+                .filter(r -> agentName.equals(r.agentName))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + agentName + " result"));
+    }
+
+    private static ReviewRequest request(String diff) {
+        ReviewRequest request = new ReviewRequest(1, "Workflow test", "Reviewed against fake agents", "test-bot",
+                diff, new TestSummary(true, 10, 0, 1200));
+        request.repository = "acme/review-test";
+        return request;
+    }
+
+    /** A diff of {@code files} files, each about {@code charsPerFile} characters. */
+    private static String diff(int files, int charsPerFile) {
+        StringBuilder diff = new StringBuilder();
+        for (int f = 0; f < files; f++) {
+            String path = "src/main/java/com/acme/Service" + f + ".java";
+            diff.append("diff --git a/").append(path).append(" b/").append(path).append('\n')
+                .append("--- a/").append(path).append('\n')
+                .append("+++ b/").append(path).append('\n')
+                .append("@@ -1,1 +1,40 @@\n");
+            int start = diff.length();
+            for (int line = 0; diff.length() - start < charsPerFile; line++) {
+                diff.append("+    int value").append(line).append(" = compute(").append(line).append(");\n");
+            }
+        }
+        return diff.toString();
+    }
+
+    /** {@code diff} with {@code line} added at the top of the hunk of file number {@code file}. */
+    private static String withLine(String diff, int file, String line) {
+        String hunk = "Service" + file + ".java\n@@ -1,1 +1,40 @@\n";
+        int at = diff.indexOf(hunk);
+        assertTrue(at >= 0, "no file " + file + " in the diff");
+        at += hunk.length();
+        return diff.substring(0, at) + "+" + line + "\n" + diff.substring(at);
+    }
+
+    // -------------------------------------------------------------------------
+    // Fake activities
+    // -------------------------------------------------------------------------
+
+    private static AgentResult result(String agent, ReviewRequest request, boolean block) {
+        String diff = request.diff != null ? request.diff : "";
+        if (diff.contains("slow: " + agent)) {
+            try {
+                Thread.sleep(SLOW_AGENT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new AgentResult(agent, block ? "HIGH" : "LOW", block ? "BLOCK" : "APPROVE",
+                new ArrayList<>(Collections.singletonList(agent + " reviewed the diff")));
+    }
+
+    /** Records the memo of every continue-as-new in {@link #CONTINUE_AS_NEW_MEMOS}. */
+    static class ContinueAsNewRecorder extends WorkerInterceptorBase {
+        @Override
+        public WorkflowInboundCallsInterceptor interceptWorkflow(WorkflowInboundCallsInterceptor next) {
+            return new WorkflowInboundCallsInterceptorBase(next) {
+                @Override
+                public void init(WorkflowOutboundCallsInterceptor outboundCalls) {
+                    super.init(new WorkflowOutboundCallsInterceptorBase(outboundCalls) {
+                        @Override
+                        public void continueAsNew(ContinueAsNewInput input) {
+                            if (input.getOptions() != null && input.getOptions().getMemo() != null) {
+                                CONTINUE_AS_NEW_MEMOS.put(Workflow.getInfo().getWorkflowId(),
+                                        input.getOptions().getMemo());
+                            }
+                            super.continueAsNew(input);
+                        }
+                    });
+                }
+            };
+        }
+    }
+
+    static class FakeCodeQuality implements CodeQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Code Quality", pullRequest, false);
+        }
+    }
+
+    static class FakeTestQuality implements TestQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Test Quality", pullRequest,
+                    pullRequest.testSummary != null && pullRequest.testSummary.failedTests > 0);
+        }
+    }
+
+    static class FakeSecurity implements SecurityQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Security", pullRequest,
+                    pullRequest.diff != null && pullRequest.diff.contains("password"));
+        }
+    }
+
+    static class FakeComplexity implements ComplexityQualityActivity {
+        @Override
+        public AgentResult analyze(ReviewRequest pullRequest) {
+            return result("Complexity", pullRequest, false);
+        }
+    }
+
+    static class FakePriority implements PriorityActivity {
+        @Override
+        public AgentResult prioritizeIssues(ReviewRequest request, List<AgentResult> agentResults) {
+            return new AgentResult("Priority", "LOW", "APPROVE",
+                    new ArrayList<>(Collections.singletonList(agentResults.size() + " agents prioritized")));
+        }
+    }
+
+    static class FakeStorage implements OutcomeRecordingActivity {
+        @Override
+        public void recordReviewOutcome(ReviewOutcome outcome) {
+        }
+    }
+
+    static class FakeInsights implements LoadInsightsActivity {
+        @Override
+        public LearningInsights loadInsights(String repository) {
+            return null;
+        }
+    }
+
+    static class FakeHistory implements ReviewHistoryActivity {
+        @Override
+        public PreviousReview loadLastReview(String repository, int prNumber) {
+            return BASELINES.get(repository);
+        }
+    }
+}